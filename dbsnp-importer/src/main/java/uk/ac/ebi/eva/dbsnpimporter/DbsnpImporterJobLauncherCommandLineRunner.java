@@ -17,32 +17,265 @@ package uk.ac.ebi.eva.dbsnpimporter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameter;
 import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersIncrementer;
 import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.batch.JobLauncherCommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import uk.ac.ebi.eva.dbsnpimporter.parameters.BatchIdsResolver;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.DbsnpDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Launches the job configured in the parameters. If a list of batches is provided in the batchIds parameter, the job is
+ * launched once for each of them in the same application context, so the reference sequence, contig mapping and
+ * database connections are shared. The batches are imported concurrently, up to batchParallelism at a time.
+ *
+ * All the batches of a run share the same run.id. When some of the batches were not completed in the previous run with
+ * the same parameters, its run.id is reused, so the batches that were completed are skipped and the rest are launched
+ * or restarted; otherwise the incrementer of the job starts a new run, like JobLauncherCommandLineRunner does for a
+ * single job.
+ */
 @Component
 public class DbsnpImporterJobLauncherCommandLineRunner extends JobLauncherCommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DbsnpImporterJobLauncherCommandLineRunner.class);
 
+    private static final int INSTANCES_PAGE_SIZE = 100;
+
     private JobParameters jobParameters;
 
+    private JobLauncher jobLauncher;
+
+    private JobExplorer jobExplorer;
+
+    private JobRepository jobRepository;
+
+    private Parameters parameters;
+
+    private DbsnpDatasource dbsnpDatasource;
+
+    private Collection<Job> jobs = Collections.emptyList();
+
     public DbsnpImporterJobLauncherCommandLineRunner(JobLauncher jobLauncher, JobExplorer jobExplorer,
-                                                     JobParameters jobParameters) {
+                                                     JobRepository jobRepository, JobParameters jobParameters,
+                                                     Parameters parameters, DbsnpDatasource dbsnpDatasource) {
         super(jobLauncher, jobExplorer);
+        this.jobLauncher = jobLauncher;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
         this.jobParameters = jobParameters;
+        this.parameters = parameters;
+        this.dbsnpDatasource = dbsnpDatasource;
+    }
+
+    @Autowired(required = false)
+    @Override
+    public void setJobs(Collection<Job> jobs) {
+        super.setJobs(jobs);
+        this.jobs = jobs;
     }
 
     @Override
     public void run(String... args) throws JobExecutionException {
-        Properties parameters = jobParameters.toProperties();
-        logger.debug("Running default command line with: {}", parameters);
-        launchJobFromProperties(parameters);
+        if (parameters.getBatchIds() != null && !parameters.getBatchIds().isEmpty()) {
+            runBatches();
+        } else {
+            Properties parameters = jobParameters.toProperties();
+            logger.debug("Running default command line with: {}", parameters);
+            launchJobFromProperties(parameters);
+        }
+    }
+
+    private void runBatches() throws JobExecutionException {
+        Job job = jobs.stream().filter(candidate -> candidate.getName().equals(parameters.getJob())).findFirst()
+                      .orElseThrow(() -> new JobExecutionException("Job " + parameters.getJob() + " not found"));
+        List<Integer> batches = new BatchIdsResolver(dbsnpDatasource.getDatasource(), parameters.getAssembly())
+                .resolve(parameters.getBatchIds());
+        int parallelism = Math.max(1, parameters.getBatchParallelism());
+        JobParameters runJobParameters = getRunJobParameters(job, batches);
+        logger.info("Importing {} batches with job {}, {} at a time", batches.size(), job.getName(), parallelism);
+
+        List<Integer> failedBatches = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+        for (Integer batch : batches) {
+            executorService.submit(() -> {
+                if (!runBatch(job, runJobParameters, batch)) {
+                    failedBatches.add(batch);
+                }
+            });
+        }
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobExecutionException("Interrupted while waiting for the batches to be imported", e);
+        }
+
+        logger.info("Imported {} of {} batches", batches.size() - failedBatches.size(), batches.size());
+        if (!failedBatches.isEmpty()) {
+            Collections.sort(failedBatches);
+            throw new JobExecutionException("The import of the following batches failed: " + failedBatches);
+        }
+    }
+
+    /**
+     * Returns the job parameters shared by all the batches of this run: those of the command line plus the parameters
+     * of the incrementer of the job (e.g. run.id). Those are reused from the previous run with the same command line
+     * parameters if any of the batches was not completed in it, or incremented otherwise.
+     */
+    private JobParameters getRunJobParameters(Job job, List<Integer> batches) {
+        JobParametersIncrementer incrementer = job.getJobParametersIncrementer();
+        if (incrementer == null) {
+            return jobParameters;
+        }
+        Set<String> incrementerKeys = incrementer.getNext(new JobParameters()).getParameters().keySet();
+        JobParameters previousRunParameters = findLastRunParameters(job, incrementerKeys);
+
+        JobParameters runParameters;
+        if (previousRunParameters == null) {
+            runParameters = incrementer.getNext(new JobParameters());
+        } else if (job.isRestartable() && isRunUnfinished(job, previousRunParameters, incrementerKeys, batches)) {
+            logger.info("Resuming the previous run of job {}", job.getName());
+            runParameters = previousRunParameters;
+        } else {
+            runParameters = incrementer.getNext(previousRunParameters);
+        }
+        return addIncrementerParameters(jobParameters, runParameters, incrementerKeys);
+    }
+
+    /**
+     * Finds the most recent job instance with the same command line parameters as this run, regardless of the batch
+     * and the incrementer parameters, and returns its parameters
+     */
+    private JobParameters findLastRunParameters(Job job, Set<String> incrementerKeys) {
+        List<JobInstance> instances;
+        int start = 0;
+        do {
+            instances = jobExplorer.getJobInstances(job.getName(), start, INSTANCES_PAGE_SIZE);
+            for (JobInstance instance : instances) {
+                JobExecution lastExecution = getLastExecution(instance);
+                if (lastExecution != null
+                        && isSameRun(jobParameters, lastExecution.getJobParameters(), incrementerKeys)) {
+                    return lastExecution.getJobParameters();
+                }
+            }
+            start += instances.size();
+        } while (instances.size() == INSTANCES_PAGE_SIZE);
+        return null;
+    }
+
+    /**
+     * A run is unfinished if any of the batches was imported in it, and any other was not completed
+     */
+    private boolean isRunUnfinished(Job job, JobParameters previousRunParameters, Set<String> incrementerKeys,
+                                    List<Integer> batches) {
+        JobParameters runParameters = addIncrementerParameters(jobParameters, previousRunParameters, incrementerKeys);
+        boolean anyLaunched = false;
+        boolean anyNotCompleted = false;
+        for (Integer batch : batches) {
+            JobExecution lastExecution = getLastBatchExecution(job, runParameters, batch);
+            anyLaunched |= lastExecution != null;
+            anyNotCompleted |= lastExecution == null || lastExecution.getStatus() != BatchStatus.COMPLETED;
+        }
+        return anyLaunched && anyNotCompleted;
+    }
+
+    private JobParameters addIncrementerParameters(JobParameters parameters, JobParameters runParameters,
+                                                   Set<String> incrementerKeys) {
+        JobParametersBuilder builder = new JobParametersBuilder(parameters);
+        for (Map.Entry<String, JobParameter> parameter : runParameters.getParameters().entrySet()) {
+            if (incrementerKeys.contains(parameter.getKey())
+                    && !parameters.getParameters().containsKey(parameter.getKey())
+                    && !Parameters.BATCH_ID.equals(parameter.getKey())) {
+                builder.addParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+        return builder.toJobParameters();
+    }
+
+    private JobExecution getLastBatchExecution(Job job, JobParameters runJobParameters, int batch) {
+        return jobRepository.getLastJobExecution(job.getName(), getBatchJobParameters(runJobParameters, batch));
+    }
+
+    private JobParameters getBatchJobParameters(JobParameters runJobParameters, int batch) {
+        return new JobParametersBuilder(runJobParameters).addLong(Parameters.BATCH_ID, (long) batch)
+                                                         .toJobParameters();
+    }
+
+    private JobExecution getLastExecution(JobInstance instance) {
+        List<JobExecution> executions = jobExplorer.getJobExecutions(instance);
+        if (executions.isEmpty()) {
+            return null;
+        }
+        return Collections.max(executions, Comparator.comparing(JobExecution::getId));
+    }
+
+    private boolean isSameRun(JobParameters parameters, JobParameters otherParameters, Set<String> incrementerKeys) {
+        return getRunIdentifyingParameters(parameters, incrementerKeys)
+                .equals(getRunIdentifyingParameters(otherParameters, incrementerKeys));
+    }
+
+    private Map<String, JobParameter> getRunIdentifyingParameters(JobParameters parameters,
+                                                                  Set<String> incrementerKeys) {
+        Map<String, JobParameter> identifying = new HashMap<>(parameters.getParameters());
+        identifying.remove(Parameters.BATCH_ID);
+        identifying.keySet().removeAll(incrementerKeys);
+        identifying.values().removeIf(parameter -> !parameter.isIdentifying());
+        return identifying;
+    }
+
+    private boolean isStoppedOrFailed(JobExecution execution) {
+        BatchStatus status = execution.getStatus();
+        return status == BatchStatus.STOPPED || status == BatchStatus.FAILED;
+    }
+
+    private boolean runBatch(Job job, JobParameters runJobParameters, int batch) {
+        JobParameters batchJobParameters = getBatchJobParameters(runJobParameters, batch);
+        try {
+            JobExecution lastExecution = getLastBatchExecution(job, runJobParameters, batch);
+            if (lastExecution != null && lastExecution.getStatus() == BatchStatus.COMPLETED) {
+                logger.info("Batch {} was already imported in this run, skipping it", batch);
+                return true;
+            }
+            if (lastExecution != null && isStoppedOrFailed(lastExecution)) {
+                logger.info("Restarting the import of batch {}, which finished with status {}", batch,
+                            lastExecution.getStatus());
+            } else {
+                logger.info("Importing batch {}", batch);
+            }
+            JobExecution jobExecution = jobLauncher.run(job, batchJobParameters);
+            logger.info("Batch {} finished with status {}", batch, jobExecution.getStatus());
+            return jobExecution.getStatus() == BatchStatus.COMPLETED;
+        } catch (Exception e) {
+            // runtime exceptions from the job repository would otherwise be lost in the future of the task
+            logger.error("Batch " + batch + " could not be imported", e);
+            return false;
+        }
     }
 }
@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,8 @@ import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
 import javax.sql.DataSource;
 
+import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.BATCH_ID;
+
 @Configuration
 @EnableConfigurationProperties({Parameters.class, DbsnpDatasource.class})
 public class BatchReaderConfiguration {
@@ -42,9 +45,11 @@ public class BatchReaderConfiguration {
 
     @Bean(name = BATCH_READER)
     @StepScope
-    ItemStreamReader<DbsnpBatch> batchReader(Parameters parameters, DbsnpDatasource dbsnpDatasource) throws Exception {
+    ItemStreamReader<DbsnpBatch> batchReader(Parameters parameters, DbsnpDatasource dbsnpDatasource,
+                                             @Value("#{jobParameters['" + BATCH_ID + "']}") Long batchIdJobParameter)
+            throws Exception {
         logger.info("Injecting BatchReader with parameters: {}, {}", parameters, dbsnpDatasource);
         DataSource dataSource = dbsnpDatasource.getDatasource();
-        return new BatchReader(parameters.getBatchId(), dataSource, parameters.getPageSize());
+        return new BatchReader(parameters.resolveBatchId(batchIdJobParameter), dataSource, parameters.getPageSize());
     }
 }
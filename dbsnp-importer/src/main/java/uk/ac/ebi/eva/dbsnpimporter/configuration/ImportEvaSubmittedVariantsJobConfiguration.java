@@ -31,6 +31,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
 
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetricsListener;
+
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportVariantsStepConfiguration.IMPORT_VARIANTS_STEP_BEAN;
 import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.JOB;
 
@@ -49,6 +51,9 @@ public class ImportEvaSubmittedVariantsJobConfiguration {
     @Qualifier(IMPORT_VARIANTS_STEP_BEAN)
     private Step importVariantsStep;
 
+    @Autowired
+    private ImportMetricsListener importMetricsListener;
+
 
     @Bean(IMPORT_EVASUBMITTED_VARIANTS_JOB_BEAN)
     @Scope("prototype")
@@ -57,7 +62,8 @@ public class ImportEvaSubmittedVariantsJobConfiguration {
         logger.debug("Building '" + IMPORT_EVASUBMITTED_VARIANTS_JOB + "'");
 
         JobBuilder jobBuilder = jobBuilderFactory.get(IMPORT_EVASUBMITTED_VARIANTS_JOB)
-                                                 .incrementer(new RunIdIncrementer());
+                                                 .incrementer(new RunIdIncrementer())
+                                                 .listener(importMetricsListener);
 
         return jobBuilder.start(importVariantsStep).build();
     }
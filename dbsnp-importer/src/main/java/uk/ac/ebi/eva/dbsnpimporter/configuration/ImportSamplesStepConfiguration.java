@@ -24,19 +24,23 @@ import org.springframework.batch.core.Step;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.listener.StepListenerSupport;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
 import uk.ac.ebi.eva.commons.core.models.IVariantSource;
 import uk.ac.ebi.eva.dbsnpimporter.configuration.processors.DbsnpBatchToVariantSourceProcessorConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.PendingVariantSources;
 import uk.ac.ebi.eva.dbsnpimporter.models.DbsnpBatch;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
@@ -55,6 +59,16 @@ public class ImportSamplesStepConfiguration {
 
     public static final String IMPORT_SAMPLES_STEP_BEAN = "IMPORT_SAMPLES_STEP_BEAN";
 
+    public static final String ASSEMBLE_SAMPLES_STEP = "ASSEMBLE_SAMPLES_STEP";
+
+    public static final String ASSEMBLE_SAMPLES_STEP_BEAN = "ASSEMBLE_SAMPLES_STEP_BEAN";
+
+    public static final String WRITE_SAMPLES_STEP = "WRITE_SAMPLES_STEP";
+
+    public static final String WRITE_SAMPLES_STEP_BEAN = "WRITE_SAMPLES_STEP_BEAN";
+
+    private static final String PENDING_VARIANT_SOURCE_WRITER = "PENDING_VARIANT_SOURCE_WRITER";
+
     @Autowired
     @Qualifier(BATCH_READER)
     private ItemStreamReader<DbsnpBatch> reader;
@@ -91,4 +105,55 @@ public class ImportSamplesStepConfiguration {
                 .build();
     }
 
+    @Bean
+    public PendingVariantSources pendingVariantSources() {
+        return new PendingVariantSources();
+    }
+
+    @Bean(PENDING_VARIANT_SOURCE_WRITER)
+    @StepScope
+    ItemWriter<IVariantSource> pendingVariantSourceWriter(
+            PendingVariantSources pendingVariantSources,
+            @Value("#{stepExecution.jobExecutionId}") Long jobExecutionId) {
+        return pendingVariantSources.getWriter(jobExecutionId);
+    }
+
+    /**
+     * Reads the samples and builds the variant source like {@link #importSamplesStep}, but keeps it in {@link
+     * PendingVariantSources} to be written by {@link #writeSamplesStep}, so this step can run at the same time as the
+     * variants import. It is always run again on restart, because the pending variant sources are not persisted
+     */
+    @Bean(ASSEMBLE_SAMPLES_STEP_BEAN)
+    public Step assembleSamplesStep(StepBuilderFactory stepBuilderFactory,
+                                    SimpleCompletionPolicy chunkSizeCompletionPolicy,
+                                    @Qualifier(PENDING_VARIANT_SOURCE_WRITER)
+                                            ItemWriter<IVariantSource> pendingVariantSourceWriter) {
+        logger.debug("Building '" + ASSEMBLE_SAMPLES_STEP + "'");
+
+        return stepBuilderFactory.get(ASSEMBLE_SAMPLES_STEP)
+                .allowStartIfComplete(true)
+                .<DbsnpBatch, IVariantSource>chunk(chunkSizeCompletionPolicy)
+                .reader(reader)
+                .processor(processor)
+                .writer(pendingVariantSourceWriter)
+                .listener((StepExecutionListener) listenerLogger)
+                .listener((ChunkListener) listenerLogger)
+                .listener((ItemReadListener) listenerLogger)
+                .build();
+    }
+
+    @Bean(WRITE_SAMPLES_STEP_BEAN)
+    public Step writeSamplesStep(StepBuilderFactory stepBuilderFactory,
+                                 PendingVariantSources pendingVariantSources) {
+        logger.debug("Building '" + WRITE_SAMPLES_STEP + "'");
+
+        return stepBuilderFactory.get(WRITE_SAMPLES_STEP)
+                .tasklet((contribution, chunkContext) -> {
+                    long jobExecutionId = chunkContext.getStepContext().getStepExecution().getJobExecutionId();
+                    contribution.incrementWriteCount(pendingVariantSources.write(jobExecutionId, writer));
+                    return RepeatStatus.FINISHED;
+                })
+                .listener((StepExecutionListener) listenerLogger)
+                .build();
+    }
 }
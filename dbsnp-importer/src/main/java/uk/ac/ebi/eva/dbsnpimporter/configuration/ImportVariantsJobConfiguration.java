@@ -19,11 +19,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
+import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.listener.JobExecutionListenerSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -31,10 +36,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.PendingVariantSources;
 import uk.ac.ebi.eva.dbsnpimporter.jobs.deciders.SkipStepOnEmptyBatchDecider;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetricsListener;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportSamplesStepConfiguration.ASSEMBLE_SAMPLES_STEP_BEAN;
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportSamplesStepConfiguration.IMPORT_SAMPLES_STEP_BEAN;
+import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportSamplesStepConfiguration.WRITE_SAMPLES_STEP_BEAN;
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportVariantsStepConfiguration.IMPORT_VARIANTS_STEP_BEAN;
 import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.JOB;
 
@@ -49,23 +60,47 @@ public class ImportVariantsJobConfiguration {
 
     public static final String IMPORT_VARIANTS_JOB_BEAN = "IMPORT_VARIANTS_JOB_BEAN";
 
+    private static final String IMPORT_VARIANTS_FLOW = "IMPORT_VARIANTS_FLOW";
+
+    private static final String ASSEMBLE_SAMPLES_FLOW = "ASSEMBLE_SAMPLES_FLOW";
+
+    private static final String IMPORT_VARIANTS_AND_SAMPLES_FLOW = "IMPORT_VARIANTS_AND_SAMPLES_FLOW";
+
     @Autowired
     @Qualifier(IMPORT_VARIANTS_STEP_BEAN)
     private Step importVariantsStep;
 
+    @Autowired
+    private ImportMetricsListener importMetricsListener;
+
     @Autowired
     @Qualifier(IMPORT_SAMPLES_STEP_BEAN)
     private Step importSamplesStep;
 
+    @Autowired
+    @Qualifier(ASSEMBLE_SAMPLES_STEP_BEAN)
+    private Step assembleSamplesStep;
+
+    @Autowired
+    @Qualifier(WRITE_SAMPLES_STEP_BEAN)
+    private Step writeSamplesStep;
+
+    @Autowired
+    private PendingVariantSources pendingVariantSources;
 
     @Bean(IMPORT_VARIANTS_JOB_BEAN)
     @Scope("prototype")
     @ConditionalOnProperty(name = JOB, havingValue = IMPORT_VARIANTS_JOB)
-    public Job importBatchJob(JobBuilderFactory jobBuilderFactory) {
+    public Job importBatchJob(JobBuilderFactory jobBuilderFactory, Parameters parameters) {
         logger.debug("Building '" + IMPORT_VARIANTS_JOB + "'");
 
         JobBuilder jobBuilder = jobBuilderFactory.get(IMPORT_VARIANTS_JOB)
-                                                 .incrementer(new RunIdIncrementer());
+                                                 .incrementer(new RunIdIncrementer())
+                                                 .listener(importMetricsListener);
+
+        if (parameters.isConcurrentSamplesStep()) {
+            return buildConcurrentSamplesJob(jobBuilder);
+        }
 
         SkipStepOnEmptyBatchDecider decider = new SkipStepOnEmptyBatchDecider();
         return jobBuilder.start(importVariantsStep)
@@ -74,4 +109,36 @@ public class ImportVariantsJobConfiguration {
                          .build().build();
     }
 
+    /**
+     * The samples are read and the variant source is built in parallel with the variants import, and the variant
+     * source is written after it, only if any variant was written. A failure building the variant source doesn't stop
+     * the variants import: it is reported when the variant source has to be written, so a batch that doesn't exist
+     * completes without variants as in the sequential job
+     */
+    private Job buildConcurrentSamplesJob(JobBuilder jobBuilder) {
+        logger.debug("Reading samples while importing variants");
+
+        Flow importVariantsFlow = new FlowBuilder<SimpleFlow>(IMPORT_VARIANTS_FLOW).start(importVariantsStep)
+                                                                                   .build();
+        Flow assembleSamplesFlow = new FlowBuilder<SimpleFlow>(ASSEMBLE_SAMPLES_FLOW).start(assembleSamplesStep)
+                                                                                     .on("*").end()
+                                                                                     .build();
+        Flow importVariantsAndSamplesFlow = new FlowBuilder<SimpleFlow>(IMPORT_VARIANTS_AND_SAMPLES_FLOW)
+                .split(new SimpleAsyncTaskExecutor(IMPORT_VARIANTS_AND_SAMPLES_FLOW + "-"))
+                .add(importVariantsFlow, assembleSamplesFlow)
+                .build();
+
+        SkipStepOnEmptyBatchDecider decider = new SkipStepOnEmptyBatchDecider();
+        return jobBuilder.listener(new JobExecutionListenerSupport() {
+                             @Override
+                             public void afterJob(JobExecution jobExecution) {
+                                 pendingVariantSources.discard(jobExecution.getId());
+                             }
+                         })
+                         .start(importVariantsAndSamplesFlow)
+                         .next(decider).on(SkipStepOnEmptyBatchDecider.DO_STEP).to(writeSamplesStep)
+                         .from(decider).on(SkipStepOnEmptyBatchDecider.SKIP_STEP).end(BatchStatus.COMPLETED.toString())
+                         .build().build();
+    }
+
 }
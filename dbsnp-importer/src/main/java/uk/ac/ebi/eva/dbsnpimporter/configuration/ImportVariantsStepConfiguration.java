@@ -18,35 +18,48 @@ package uk.ac.ebi.eva.dbsnpimporter.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
 import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.CompletionPolicy;
 import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 import uk.ac.ebi.eva.dbsnpimporter.configuration.processors.VariantsProcessorConfiguration;
-import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.FilterCountingAsyncItemWriter;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetricsListener;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners.LoadOrderPartitioner;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.AdaptiveChunkSizeCompletionPolicy;
 import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.DbsnpDatasource;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import java.util.concurrent.Future;
+
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.processors.VariantsProcessorConfiguration.VARIANTS_PROCESSOR;
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.VariantsReaderConfiguration.VARIANTS_READER;
 import static uk.ac.ebi.eva.dbsnpimporter.configuration.VariantsWriterConfiguration.VARIANTS_WRITER;
-import static uk.ac.ebi.eva.dbsnpimporter.configuration.processors.AssemblyCheckFilterProcessorConfiguration
-        .ASSEMBLY_CHECK_STEP_LISTENER;
+import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.BATCH_ID;
 
 @Configuration
 @EnableBatchProcessing
@@ -60,6 +73,10 @@ public class ImportVariantsStepConfiguration {
 
     public static final String IMPORT_VARIANTS_STEP_BEAN = "IMPORT_VARIANTS_STEP_BEAN";
 
+    public static final String IMPORT_VARIANTS_PARTITION_STEP = "IMPORT_VARIANTS_PARTITION_STEP";
+
+    private static final String IMPORT_VARIANTS_PROCESSOR_THREAD = "IMPORT_VARIANTS_PROCESSOR-";
+
     @Autowired
     @Qualifier(VARIANTS_READER)
     private ItemStreamReader<SubSnpCoreFields> reader;
@@ -76,31 +93,130 @@ public class ImportVariantsStepConfiguration {
     private StepListenerSupport<SubSnpCoreFields, IVariant> listenerLogger;
 
     @Autowired
-    @Qualifier(ASSEMBLY_CHECK_STEP_LISTENER)
-    private StepExecutionListener assemblyCheckStepListener;
+    private ImportMetricsListener importMetricsListener;
+
+    @Bean
+    @StepScope
+    public Partitioner loadOrderPartitioner(
+            Parameters parameters, DbsnpDatasource dbsnpDatasource,
+            @Value("#{jobParameters['" + BATCH_ID + "']}") Long batchIdJobParameter) {
+        return new LoadOrderPartitioner(dbsnpDatasource.getDatasource(), parameters.resolveBatchId(batchIdJobParameter),
+                                        parameters.getAssembly());
+    }
 
     @Bean
     public SimpleCompletionPolicy chunkSizecompletionPolicy(Parameters parameters) {
         return new SimpleCompletionPolicy(parameters.getChunkSize());
     }
 
+    /**
+     * Builds a single chunk-oriented step, or, if more than one partition is requested in the parameters, a step that
+     * splits the batch in ranges of load_order and imports each of them in a parallel worker step. If more than one
+     * processor thread is requested, the variants of each chunk are processed concurrently
+     */
     @Bean(IMPORT_VARIANTS_STEP_BEAN)
     public Step importVariantsStep(StepBuilderFactory stepBuilderFactory,
-                                   SimpleCompletionPolicy chunkSizeCompletionPolicy) {
+                                   SimpleCompletionPolicy chunkSizeCompletionPolicy, Parameters parameters,
+                                   Partitioner loadOrderPartitioner) {
+        CompletionPolicy completionPolicy = buildCompletionPolicy(chunkSizeCompletionPolicy, parameters);
+        if (parameters.getPartitions() > 1) {
+            return buildPartitionedStep(stepBuilderFactory, completionPolicy, parameters, loadOrderPartitioner);
+        }
         logger.debug("Building '" + IMPORT_VARIANTS_STEP + "'");
 
-        SimpleStepBuilder builder = stepBuilderFactory.get(IMPORT_VARIANTS_STEP)
-                .<SubSnpCoreFields, IVariant>chunk(chunkSizeCompletionPolicy)
-                .reader(reader)
-                .processor(processor)
-                .writer(writer);
+        return buildChunkStep(stepBuilderFactory, IMPORT_VARIANTS_STEP, completionPolicy, parameters).build();
+    }
+
+    /**
+     * Uses chunks of chunkSize variants, or, if a target chunk duration is requested in the parameters, adjusts the
+     * size of the chunks to it. The adaptive policy is shared by all the partitions, but it keeps the chunk size of
+     * each step execution in its execution context
+     */
+    private CompletionPolicy buildCompletionPolicy(SimpleCompletionPolicy chunkSizeCompletionPolicy,
+                                                   Parameters parameters) {
+        if (parameters.getTargetChunkMilliseconds() > 0) {
+            logger.debug("Adjusting the chunk size to take " + parameters.getTargetChunkMilliseconds() + " ms");
+            return new AdaptiveChunkSizeCompletionPolicy(parameters.getChunkSize(), parameters.getMaxChunkSize(),
+                                                         parameters.getTargetChunkMilliseconds(),
+                                                         parameters.getMongoBulkMaxBytes());
+        }
+        return chunkSizeCompletionPolicy;
+    }
+
+    private Step buildPartitionedStep(StepBuilderFactory stepBuilderFactory, CompletionPolicy completionPolicy,
+                                      Parameters parameters, Partitioner loadOrderPartitioner) {
+        logger.debug("Building '" + IMPORT_VARIANTS_STEP + "' with " + parameters.getPartitions() + " partitions");
+
+        Step workerStep = buildChunkStep(stepBuilderFactory, IMPORT_VARIANTS_PARTITION_STEP,
+                                         completionPolicy, parameters).build();
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(IMPORT_VARIANTS_PARTITION_STEP + "-");
+        taskExecutor.setConcurrencyLimit(parameters.getPartitions());
+
+        return stepBuilderFactory.get(IMPORT_VARIANTS_STEP)
+                                 .partitioner(IMPORT_VARIANTS_PARTITION_STEP, loadOrderPartitioner)
+                                 .step(workerStep)
+                                 .gridSize(parameters.getPartitions())
+                                 .taskExecutor(taskExecutor)
+                                 .build();
+    }
+
+    private SimpleStepBuilder buildChunkStep(StepBuilderFactory stepBuilderFactory, String stepName,
+                                             CompletionPolicy completionPolicy, Parameters parameters) {
+        SimpleStepBuilder builder;
+        if (parameters.getProcessorThreads() > 1) {
+            FilterCountingAsyncItemWriter<IVariant> asyncWriter = buildAsyncWriter();
+            builder = stepBuilderFactory.get(stepName)
+                    .<SubSnpCoreFields, Future<IVariant>>chunk(completionPolicy)
+                    .reader(reader)
+                    .processor(buildAsyncProcessor(parameters.getProcessorThreads()))
+                    .writer(asyncWriter);
+            builder.listener((ChunkListener) asyncWriter);
+        } else {
+            builder = stepBuilderFactory.get(stepName)
+                    .<SubSnpCoreFields, IVariant>chunk(completionPolicy)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer);
+            builder.listener((ItemWriteListener) listenerLogger);
+        }
         builder.listener((StepExecutionListener) listenerLogger);
         builder.listener((ChunkListener) listenerLogger);
         builder.listener((ItemReadListener) listenerLogger);
-        builder.listener((ItemWriteListener) listenerLogger);
-        builder.listener(assemblyCheckStepListener);
+        builder.listener((ChunkListener) importMetricsListener);
+        builder.listener((ItemReadListener) importMetricsListener);
+        builder.listener((ItemProcessListener) importMetricsListener);
+        builder.listener((ItemWriteListener) importMetricsListener);
+        if (completionPolicy instanceof AdaptiveChunkSizeCompletionPolicy) {
+            builder.listener((ChunkListener) completionPolicy);
+            builder.listener((ItemWriteListener) completionPolicy);
+        }
+        return builder;
+    }
+
+    /**
+     * The processor chain of each item is submitted to a pool of processorThreads threads, so the chunk is processed
+     * while the reader keeps reading, and the results are collected by the writer built in {@link #buildAsyncWriter}
+     * before being written. Items filtered by the chain are dropped by the writer, which moves them from the write
+     * count to the filter count of the step.
+     */
+    private AsyncItemProcessor<SubSnpCoreFields, IVariant> buildAsyncProcessor(int processorThreads) {
+        logger.debug("Processing variants in " + processorThreads + " threads");
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(processorThreads);
+        taskExecutor.setMaxPoolSize(processorThreads);
+        taskExecutor.setThreadNamePrefix(IMPORT_VARIANTS_PROCESSOR_THREAD);
+        taskExecutor.setDaemon(true);
+        taskExecutor.initialize();
+
+        AsyncItemProcessor<SubSnpCoreFields, IVariant> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(processor);
+        asyncProcessor.setTaskExecutor(taskExecutor);
+        return asyncProcessor;
+    }
 
-        return builder.build();
+    private FilterCountingAsyncItemWriter<IVariant> buildAsyncWriter() {
+        return new FilterCountingAsyncItemWriter<>(writer);
     }
 
 }
@@ -35,7 +35,7 @@ public class JobParametersConfiguration {
         parametersBuilder = new JobParametersBuilder();
 
         addParameter("assembly", parameters.getAssembly());
-        addParameter("batchId", parameters.getBatchId());
+        addParameter(Parameters.BATCH_ID, parameters.getBatchId());
         addParameter("chunkSize", parameters.getChunkSize());
         addParameter("dbsnpBuild", parameters.getDbsnpBuild());
         addParameter("pageSize", parameters.getPageSize());
@@ -44,6 +44,8 @@ public class JobParametersConfiguration {
         addParameter("filesCollection", parameters.getFilesCollection());
         addParameter("contigMappingUrl", parameters.getContigMappingUrl());
         addParameter("referenceFastaFile", parameters.getReferenceFastaFile());
+        // a dry run must not make a later import of the same batch look already completed
+        addParameter("dryRun", parameters.isDryRun());
 
         addParameter("driverClassName", dbsnpDatasource.getDriverClassName());
         addParameter("url", dbsnpDatasource.getUrl());
@@ -77,4 +79,8 @@ public class JobParametersConfiguration {
         parametersBuilder.addLong(key, (long) value);
     }
 
+    private void addParameter(String key, boolean value) {
+        parametersBuilder.addString(key, Boolean.toString(value));
+    }
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.configuration;
+
+import org.springframework.batch.core.configuration.annotation.BatchConfigurer;
+import org.springframework.batch.core.configuration.annotation.DefaultBatchConfigurer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Job repository in the database configured with the spring.datasource properties.
+ *
+ * When a list of batches is imported, one job is launched per batch concurrently against this repository, and the
+ * default SERIALIZABLE isolation used to create the job executions makes those launches fail with serialization errors.
+ * READ_COMMITTED is enough because each batch has its own job instance.
+ */
+@Configuration
+public class JobRepositoryConfiguration {
+
+    private static final String ISOLATION_LEVEL_FOR_CREATE = "ISOLATION_READ_COMMITTED";
+
+    @Bean
+    public BatchConfigurer batchConfigurer(DataSource dataSource) {
+        return new DefaultBatchConfigurer(dataSource) {
+            @Override
+            protected JobRepository createJobRepository() throws Exception {
+                JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+                factory.setDataSource(dataSource);
+                factory.setTransactionManager(getTransactionManager());
+                factory.setIsolationLevelForCreate(ISOLATION_LEVEL_FOR_CREATE);
+                factory.afterPropertiesSet();
+                return factory.getObject();
+            }
+        };
+    }
+}
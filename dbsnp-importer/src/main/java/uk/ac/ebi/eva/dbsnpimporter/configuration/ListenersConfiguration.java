@@ -27,37 +27,44 @@ import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 import uk.ac.ebi.eva.commons.core.models.IVariantSource;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetricsListener;
 import uk.ac.ebi.eva.dbsnpimporter.models.Sample;
 import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import java.nio.file.Paths;
 import java.util.List;
 
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PRE_FILTERED_ROWS_KEY;
+
 @Configuration
 public class ListenersConfiguration {
 
     @Bean
-    public StepListenerSupport<SubSnpCoreFields, IVariant> variantImportListener(Parameters parameters) {
-        return new VariantImportListener(parameters);
+    public StepListenerSupport<SubSnpCoreFields, IVariant> variantImportListener() {
+        return new VariantImportListener();
     }
 
     @Bean
-    public StepListenerSupport<List<Sample>, IVariantSource> sampleImportListener(Parameters parameters) {
-        return new SampleImportListener(parameters);
+    public StepListenerSupport<List<Sample>, IVariantSource> sampleImportListener() {
+        return new SampleImportListener();
     }
 
-    private static class VariantImportListener extends StepListenerSupport<SubSnpCoreFields, IVariant> {
-
-        private static final Logger logger = LoggerFactory.getLogger(VariantImportListener.class);
+    @Bean
+    public ImportMetrics importMetrics() {
+        return new ImportMetrics();
+    }
 
-        private Parameters parameters;
+    @Bean
+    public ImportMetricsListener importMetricsListener(ImportMetrics importMetrics, Parameters parameters) {
+        String metricsDirectory = parameters.getMetricsDirectory();
+        return new ImportMetricsListener(importMetrics, metricsDirectory != null ? Paths.get(metricsDirectory) : null);
+    }
 
-        private long numItemsRead;
+    private static class VariantImportListener extends StepListenerSupport<SubSnpCoreFields, IVariant> {
 
-        public VariantImportListener(Parameters parameters) {
-            this.parameters = parameters;
-            this.numItemsRead = 0;
-        }
+        private static final Logger logger = LoggerFactory.getLogger(VariantImportListener.class);
 
         @Override
         public void beforeStep(StepExecution stepExecution) {
@@ -66,22 +73,9 @@ public class ListenersConfiguration {
 
         @Override
         public void beforeChunk(ChunkContext context) {
-            logger.debug("Starting a chunk");
-        }
-
-        @Override
-        public void beforeRead() {
-            if (numItemsRead % parameters.getChunkSize() == 0) {
-                logger.debug("About to read item {}", numItemsRead);
-            }
-            numItemsRead++;
-        }
-
-        @Override
-        public void afterRead(SubSnpCoreFields item) {
-            if (numItemsRead % parameters.getChunkSize() == 0) {
-                logger.debug("Read {} items", numItemsRead);
-            }
+            // the counts of the step execution are not mixed with those of other steps running concurrently
+            logger.debug("Starting a chunk after reading {} items",
+                         context.getStepContext().getStepExecution().getReadCount());
         }
 
         @Override
@@ -111,6 +105,10 @@ public class ListenersConfiguration {
 
         @Override
         public ExitStatus afterStep(StepExecution stepExecution) {
+            if (stepExecution.getExecutionContext().containsKey(PRE_FILTERED_ROWS_KEY)) {
+                logger.info("{}: Rows skipped by the database pre-filters = {}", stepExecution.getStepName(),
+                            stepExecution.getExecutionContext().getLong(PRE_FILTERED_ROWS_KEY));
+            }
             logger.debug("Finished a step");
             return stepExecution.getExitStatus();
         }
@@ -121,15 +119,6 @@ public class ListenersConfiguration {
 
         private static final Logger logger = LoggerFactory.getLogger(SampleImportListener.class);
 
-        private Parameters parameters;
-
-        private long numItemsRead;
-
-        public SampleImportListener(Parameters parameters) {
-            this.parameters = parameters;
-            this.numItemsRead = 0;
-        }
-
         @Override
         public void beforeStep(StepExecution stepExecution) {
             logger.debug("Starting a step");
@@ -137,22 +126,9 @@ public class ListenersConfiguration {
 
         @Override
         public void beforeChunk(ChunkContext context) {
-            logger.debug("Starting a chunk");
-        }
-
-        @Override
-        public void beforeRead() {
-            if (numItemsRead % parameters.getChunkSize() == 0) {
-                logger.debug("About to read item {}", numItemsRead);
-            }
-            numItemsRead++;
-        }
-
-        @Override
-        public void afterRead(List<Sample> item) {
-            if (numItemsRead % parameters.getChunkSize() == 0) {
-                logger.debug("Read {} items", numItemsRead);
-            }
+            // the counts of the step execution are not mixed with those of other steps running concurrently
+            logger.debug("Starting a chunk after reading {} items",
+                         context.getStepContext().getStepExecution().getReadCount());
         }
 
         @Override
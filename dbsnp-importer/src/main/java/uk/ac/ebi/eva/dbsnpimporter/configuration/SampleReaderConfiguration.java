@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,6 +33,8 @@ import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 import javax.sql.DataSource;
 import java.util.List;
 
+import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.BATCH_ID;
+
 @Configuration
 @EnableConfigurationProperties({Parameters.class, DbsnpDatasource.class})
 public class SampleReaderConfiguration {
@@ -42,11 +45,14 @@ public class SampleReaderConfiguration {
 
     @Bean(name = SAMPLE_READER)
     @StepScope
-    ItemStreamReader<List<Sample>> sampleReader(Parameters parameters, DbsnpDatasource dbsnpDatasource) throws Exception {
+    ItemStreamReader<List<Sample>> sampleReader(Parameters parameters, DbsnpDatasource dbsnpDatasource,
+                                                @Value("#{jobParameters['" + BATCH_ID + "']}") Long batchIdJobParameter)
+            throws Exception {
         logger.info("Injecting SampleReader with parameters: {}, {}", parameters, dbsnpDatasource);
         DataSource dataSource = dbsnpDatasource.getDatasource();
 
-        SampleReader sampleReader = new SampleReader(parameters.getBatchId(), dataSource, parameters.getPageSize());
+        SampleReader sampleReader = new SampleReader(parameters.resolveBatchId(batchIdJobParameter), dataSource,
+                                                     parameters.getPageSize());
         sampleReader.afterPropertiesSet();
         return new WindingItemStreamReader<>(sampleReader);
     }
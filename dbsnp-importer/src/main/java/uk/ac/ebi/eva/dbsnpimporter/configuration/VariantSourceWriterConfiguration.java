@@ -18,11 +18,13 @@ package uk.ac.ebi.eva.dbsnpimporter.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoOperations;
 
+import uk.ac.ebi.eva.commons.core.models.IVariantSource;
 import uk.ac.ebi.eva.commons.mongodb.writers.VariantSourceMongoWriter;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
@@ -34,9 +36,20 @@ public class VariantSourceWriterConfiguration {
 
     public static final String VARIANT_SOURCE_WRITER = "VARIANT_SOURCE_WRITER";
 
+    /**
+     * In a dry run the variant sources are logged instead of written
+     */
     @Bean(name = VARIANT_SOURCE_WRITER)
     @StepScope
-    VariantSourceMongoWriter variantSourceWriter(Parameters parameters, MongoOperations mongoOperations) throws Exception {
+    ItemWriter<IVariantSource> variantSourceWriter(Parameters parameters, MongoOperations mongoOperations)
+            throws Exception {
+        if (parameters.isDryRun()) {
+            logger.info("Dry run: variant sources will not be written to collection {}",
+                        parameters.getFilesCollection());
+            return variantSources -> variantSources.forEach(variantSource -> logger.info(
+                    "Dry run: discarding variant source of study {} with {} samples", variantSource.getStudyId(),
+                    variantSource.getSamplesPosition().size()));
+        }
         logger.debug("Injecting VariantSourceMongoWriter");
         return new VariantSourceMongoWriter(mongoOperations, parameters.getFilesCollection());
     }
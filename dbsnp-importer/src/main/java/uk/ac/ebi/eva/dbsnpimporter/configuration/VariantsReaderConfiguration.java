@@ -18,15 +18,30 @@ package uk.ac.ebi.eva.dbsnpimporter.configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.PrefetchingItemStreamReader;
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsPagingReader;
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader;
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PreFilter;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.DbsnpDatasource;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
-import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader;
 
 import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static uk.ac.ebi.eva.dbsnpimporter.configuration.ImportVariantsJobConfiguration.IMPORT_VARIANTS_JOB;
+import static uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners.LoadOrderPartitioner.MAX_LOAD_ORDER_KEY;
+import static uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners.LoadOrderPartitioner.MIN_LOAD_ORDER_KEY;
+import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.BATCH_ID;
 
 @Configuration
 @EnableConfigurationProperties({Parameters.class, DbsnpDatasource.class})
@@ -38,12 +53,50 @@ public class VariantsReaderConfiguration {
 
     @Bean(name = VARIANTS_READER)
     @StepScope
-    SubSnpCoreFieldsReader subSnpCoreFieldsReader(Parameters parameters,
-                                                  DbsnpDatasource dbsnpDatasource) throws Exception {
+    ItemStreamReader<SubSnpCoreFields> subSnpCoreFieldsReader(
+            Parameters parameters, DbsnpDatasource dbsnpDatasource,
+            @Value("#{jobParameters['" + BATCH_ID + "']}") Long batchIdJobParameter,
+            @Value("#{stepExecutionContext['" + MIN_LOAD_ORDER_KEY + "']}") Long minLoadOrder,
+            @Value("#{stepExecutionContext['" + MAX_LOAD_ORDER_KEY + "']}") Long maxLoadOrder) throws Exception {
         logger.info("Injecting SubSnpCoreFieldsReader with parameters: {}, {}", parameters, dbsnpDatasource);
         DataSource dataSource = dbsnpDatasource.getDatasource();
-        return new SubSnpCoreFieldsReader(parameters.getBatchId(), parameters.getAssembly(), dataSource,
-                                          parameters.getPageSize());
+        if (minLoadOrder != null) {
+            logger.info("Reading partition with load_order between {} and {}", minLoadOrder, maxLoadOrder);
+        }
+        int batchId = parameters.resolveBatchId(batchIdJobParameter);
+        AbstractItemCountingItemStreamItemReader<SubSnpCoreFields> reader;
+        if (parameters.isKeysetPaging()) {
+            logger.info("Reading variants in pages of {} rows", parameters.getPageSize());
+            reader = new SubSnpCoreFieldsPagingReader(batchId, parameters.getAssembly(), dataSource,
+                                                      parameters.getPageSize(), minLoadOrder, maxLoadOrder,
+                                                      getPreFilters(parameters));
+        } else {
+            reader = new SubSnpCoreFieldsReader(batchId, parameters.getAssembly(), dataSource,
+                                                parameters.getPageSize(), minLoadOrder, maxLoadOrder,
+                                                getPreFilters(parameters));
+        }
+        if (parameters.getPrefetchSize() > 0) {
+            logger.info("Prefetching up to {} variants in a separate thread", parameters.getPrefetchSize());
+            reader.setSaveState(false);
+            // the wrapper is the bean, so Spring won't initialize the reader
+            ((InitializingBean) reader).afterPropertiesSet();
+            return new PrefetchingItemStreamReader<>(reader, parameters.getPrefetchSize());
+        }
+        return reader;
+    }
+
+    private Set<PreFilter> getPreFilters(Parameters parameters) {
+        Set<PreFilter> preFilters = EnumSet.noneOf(PreFilter.class);
+        if (parameters.isPreFilter()) {
+            preFilters.add(PreFilter.COORDINATES);
+            preFilters.add(PreFilter.HGVS_ALLELES);
+            if (IMPORT_VARIANTS_JOB.equals(parameters.getJob())) {
+                // only the import of variants requires genotypes or frequencies
+                preFilters.add(PreFilter.GENOTYPES_OR_FREQUENCIES);
+            }
+            logger.info("Skipping rows in the database with the pre-filters {}", preFilters);
+        }
+        return preFilters;
     }
 }
 
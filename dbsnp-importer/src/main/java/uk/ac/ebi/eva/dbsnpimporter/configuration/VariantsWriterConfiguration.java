@@ -15,34 +15,78 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.configuration;
 
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
 
-import uk.ac.ebi.eva.commons.mongodb.writers.VariantMongoWriter;
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.DiscardingVariantWriter;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.VariantBulkWriter;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.VariantUpsertMongoWriter;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.VariantsCollectionIndexes;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
 @Configuration
 @EnableConfigurationProperties(Parameters.class)
+@Import(ListenersConfiguration.class)
 public class VariantsWriterConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(VariantsWriterConfiguration.class);
 
     public static final String VARIANTS_WRITER = "VARIANTS_WRITER";
 
+    /**
+     * The variants are upserted by a {@link VariantUpsertMongoWriter}, wrapped in a {@link VariantBulkWriter} that
+     * merges duplicated variants and limits the size of each unordered bulk write. If unjournaled writes are requested,
+     * the bulk writes use write concern w:1 with journaling disabled. In a dry run the Mongo writer is replaced by a
+     * {@link DiscardingVariantWriter}.
+     *
+     * The writer is built for every step (or partition), so the indexes of the collection are created once, by
+     * {@link #variantsCollectionIndexes}.
+     */
     @Bean(name = VARIANTS_WRITER)
     @StepScope
-    VariantMongoWriter variantMongoWriter(Parameters parameters, MongoOperations mongoOperations) throws Exception {
-        logger.debug("Injecting VariantMongoWriter");
-        boolean includeSamples = true;
-        boolean includeStats = true;
-        return new VariantMongoWriter(parameters.getVariantsCollection(), mongoOperations,
-                                      includeStats, includeSamples);
+    ItemWriter<IVariant> variantMongoWriter(Parameters parameters, MongoOperations mongoOperations,
+                                            MongoConverter mongoConverter, ImportMetrics importMetrics,
+                                            VariantsCollectionIndexes variantsCollectionIndexes)
+            throws Exception {
+        if (parameters.isDryRun()) {
+            logger.info("Dry run: variants will not be written to collection {}", parameters.getVariantsCollection());
+            MongoConverter encodingConverter = parameters.isDryRunEncoding() ? mongoConverter : null;
+            return new VariantBulkWriter(new DiscardingVariantWriter(importMetrics, encodingConverter),
+                                         parameters.getMongoBulkMaxBytes());
+        }
+        logger.debug("Injecting VariantUpsertMongoWriter");
+        MongoCollection<Document> collection = mongoOperations.getCollection(parameters.getVariantsCollection());
+        if (parameters.isUnjournaledWrites()) {
+            collection = collection.withWriteConcern(WriteConcern.W1.withJournal(false));
+        }
+        return new VariantBulkWriter(new VariantUpsertMongoWriter(collection, mongoConverter),
+                                     parameters.getMongoBulkMaxBytes());
     }
 
+    /**
+     * Creates the indexes of the variants collection when the application starts, unless in a dry run
+     */
+    @Bean
+    VariantsCollectionIndexes variantsCollectionIndexes(Parameters parameters, MongoOperations mongoOperations) {
+        VariantsCollectionIndexes indexes = new VariantsCollectionIndexes(mongoOperations,
+                                                                          parameters.getVariantsCollection());
+        if (!parameters.isDryRun()) {
+            indexes.ensureIndexes();
+        }
+        return indexes;
+    }
 }
 
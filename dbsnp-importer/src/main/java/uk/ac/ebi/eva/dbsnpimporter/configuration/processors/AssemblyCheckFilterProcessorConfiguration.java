@@ -15,51 +15,19 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.configuration.processors;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.batch.core.ExitStatus;
-import org.springframework.batch.core.StepExecution;
-import org.springframework.batch.core.listener.StepListenerSupport;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
-import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.AssemblyCheckFilterProcessor;
-import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 import uk.ac.ebi.eva.dbsnpimporter.io.FastaSequenceReader;
-
-import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.AssemblyCheckFilterProcessor;
 
 @Configuration
+@Import(FastaSequenceReaderConfiguration.class)
 public class AssemblyCheckFilterProcessorConfiguration {
 
-    private static final Logger logger = LoggerFactory.getLogger(AssemblyCheckFilterProcessorConfiguration.class);
-
-    public static final String ASSEMBLY_CHECK_STEP_LISTENER = "ASSEMBLY_CHECK_STEP_LISTENER";
-
-    private FastaSequenceReader fastaSequenceReader;
-
     @Bean
-    AssemblyCheckFilterProcessor assemblyCheckFilterProcessor(Parameters parameters) throws IOException {
-        Path referenceFastaFile = Paths.get(parameters.getReferenceFastaFile());
-        fastaSequenceReader = new FastaSequenceReader(referenceFastaFile);
+    AssemblyCheckFilterProcessor assemblyCheckFilterProcessor(FastaSequenceReader fastaSequenceReader) {
         return new AssemblyCheckFilterProcessor(fastaSequenceReader);
     }
-
-    @Bean(ASSEMBLY_CHECK_STEP_LISTENER)
-    StepListenerSupport assemblyCheckStepListener() {
-        return new StepListenerSupport() {
-            @Override
-            public ExitStatus afterStep(StepExecution stepExecution) {
-                try {
-                    logger.debug("Closing FASTA file reader used for assembly check");
-                    fastaSequenceReader.close();
-                } catch (Exception e) {
-                    logger.warn("Error closing FASTA file reader used for assembly check: {}", e.getMessage());
-                }
-                return stepExecution.getExitStatus();
-            }
-        };
-    }
 }
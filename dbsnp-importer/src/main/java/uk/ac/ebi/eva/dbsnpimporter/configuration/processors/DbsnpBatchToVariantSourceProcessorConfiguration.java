@@ -15,17 +15,25 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.configuration.processors;
 
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.DbsnpBatchToVariantSourceProcessor;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.BATCH_ID;
+
 @Configuration
 public class DbsnpBatchToVariantSourceProcessorConfiguration {
 
     @Bean
-    DbsnpBatchToVariantSourceProcessor dbsnpBatchToVariantSourceProcessor(Parameters parameters) throws Exception {
-        return new DbsnpBatchToVariantSourceProcessor(parameters.getDbsnpBuild(), parameters.getBatchId());
+    @StepScope
+    DbsnpBatchToVariantSourceProcessor dbsnpBatchToVariantSourceProcessor(
+            Parameters parameters, @Value("#{jobParameters['" + BATCH_ID + "']}") Long batchIdJobParameter)
+            throws Exception {
+        return new DbsnpBatchToVariantSourceProcessor(parameters.getDbsnpBuild(),
+                                                      parameters.resolveBatchId(batchIdJobParameter));
     }
 }
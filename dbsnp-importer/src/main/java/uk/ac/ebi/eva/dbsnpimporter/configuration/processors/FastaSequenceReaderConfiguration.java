@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.configuration.processors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.FastaSequenceReader;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The reference sequence reader is shared by all the processors and all the batches imported in a run, so the FASTA
+ * index is loaded only once. It is closed when the application context is closed.
+ */
+@Configuration
+public class FastaSequenceReaderConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(FastaSequenceReaderConfiguration.class);
+
+    @Bean(destroyMethod = "close")
+    FastaSequenceReader fastaSequenceReader(Parameters parameters) throws IOException {
+        Path referenceFastaFile = Paths.get(parameters.getReferenceFastaFile());
+        logger.debug("Opening FASTA file {} with a cache of {} MB, packed in memory: {}", referenceFastaFile,
+                     parameters.getReferenceCacheSize(), parameters.isPackedReference());
+        return new FastaSequenceReader(referenceFastaFile, parameters.getReferenceCacheSize(),
+                                       parameters.isPackedReference());
+    }
+}
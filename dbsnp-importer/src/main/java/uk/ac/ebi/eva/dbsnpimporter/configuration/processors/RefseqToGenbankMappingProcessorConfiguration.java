@@ -19,10 +19,13 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import uk.ac.ebi.eva.dbsnpimporter.contig.AssemblyReportCache;
 import uk.ac.ebi.eva.dbsnpimporter.contig.ContigMapping;
 import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.RefseqToGenbankMappingProcessor;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class RefseqToGenbankMappingProcessorConfiguration {
 
@@ -33,7 +36,13 @@ public class RefseqToGenbankMappingProcessorConfiguration {
     @Bean
     @Profile(NOT_TEST_PROFILE)
     RefseqToGenbankMappingProcessor refseqToGenbankMappingProcessor(Parameters parameters) throws Exception {
-        ContigMapping contigMapping = new ContigMapping(parameters.getContigMappingUrl());
+        ContigMapping contigMapping;
+        if (parameters.getContigMappingCacheDirectory() != null) {
+            AssemblyReportCache cache = new AssemblyReportCache(Paths.get(parameters.getContigMappingCacheDirectory()));
+            contigMapping = cache.getContigMapping(parameters.getContigMappingUrl());
+        } else {
+            contigMapping = new ContigMapping(parameters.getContigMappingUrl());
+        }
         return new RefseqToGenbankMappingProcessor(contigMapping);
     }
 }
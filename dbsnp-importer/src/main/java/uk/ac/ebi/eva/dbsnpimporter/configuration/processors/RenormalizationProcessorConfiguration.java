@@ -17,27 +17,17 @@ package uk.ac.ebi.eva.dbsnpimporter.configuration.processors;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Import;
 
-import uk.ac.ebi.eva.dbsnpimporter.contig.ContigMapping;
-import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.RefseqToGenbankMappingProcessor;
-import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.RenormalizationProcessor;
-import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 import uk.ac.ebi.eva.dbsnpimporter.io.FastaSequenceReader;
-
-import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.RenormalizationProcessor;
 
 @Configuration
+@Import(FastaSequenceReaderConfiguration.class)
 public class RenormalizationProcessorConfiguration {
 
-    private FastaSequenceReader fastaSequenceReader;
-
     @Bean
-    RenormalizationProcessor renormalizationProcessor(Parameters parameters) throws IOException {
-        Path referenceFastaFile = Paths.get(parameters.getReferenceFastaFile());
-        fastaSequenceReader = new FastaSequenceReader(referenceFastaFile);
+    RenormalizationProcessor renormalizationProcessor(FastaSequenceReader fastaSequenceReader) {
         return new RenormalizationProcessor(fastaSequenceReader);
     }
 }
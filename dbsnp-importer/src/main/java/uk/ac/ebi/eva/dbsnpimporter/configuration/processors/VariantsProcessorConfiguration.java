@@ -29,6 +29,9 @@ import org.springframework.context.annotation.Import;
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 import uk.ac.ebi.eva.dbsnpimporter.configuration.ImportEvaSubmittedVariantsJobConfiguration;
 import uk.ac.ebi.eva.dbsnpimporter.configuration.ImportVariantsJobConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.configuration.ListenersConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.MeasuredItemProcessor;
 import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.AssemblyCheckFilterProcessor;
 import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.MatchingAllelesFilterProcessor;
 import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.MissingCoordinatesFilterProcessor;
@@ -40,6 +43,7 @@ import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.UnambiguousAllelesFilte
 import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -48,7 +52,7 @@ import static uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters.JOB;
 @Configuration
 @EnableConfigurationProperties(Parameters.class)
 @Import({RefseqToGenbankMappingProcessorConfiguration.class, AssemblyCheckFilterProcessorConfiguration.class,
-        RenormalizationProcessorConfiguration.class})
+        RenormalizationProcessorConfiguration.class, ListenersConfiguration.class})
 public class VariantsProcessorConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(VariantsProcessorConfiguration.class);
@@ -64,6 +68,9 @@ public class VariantsProcessorConfiguration {
     @Autowired
     private RenormalizationProcessor renormalizationProcessor;
 
+    @Autowired
+    private ImportMetrics importMetrics;
+
     @Bean(name = VARIANTS_PROCESSOR)
     @ConditionalOnProperty(name = JOB, havingValue = ImportVariantsJobConfiguration.IMPORT_VARIANTS_JOB)
     ItemProcessor<SubSnpCoreFields, IVariant> subSnpCoreFieldsToVariantProcessor(Parameters parameters) {
@@ -74,11 +81,9 @@ public class VariantsProcessorConfiguration {
                 new MatchingAllelesFilterProcessor(),
                 refseqToGenbankMappingProcessor,
                 assemblyCheckFilterProcessor,
-                new SubSnpCoreFieldsToVariantProcessor(parameters.getDbsnpBuild()),
+                new SubSnpCoreFieldsToVariantProcessor(parameters.getDbsnpBuild(), importMetrics),
                 renormalizationProcessor);
-        CompositeItemProcessor<SubSnpCoreFields, IVariant> compositeProcessor = new CompositeItemProcessor<>();
-        compositeProcessor.setDelegates(delegates);
-        return compositeProcessor;
+        return buildMeasuredCompositeProcessor(delegates);
     }
 
     @Bean(name = VARIANTS_PROCESSOR)
@@ -94,10 +99,21 @@ public class VariantsProcessorConfiguration {
                 assemblyCheckFilterProcessor,
                 new SubSnpCoreFieldsToEvaSubmittedVariantProcessor(),
                 renormalizationProcessor);
+        return buildMeasuredCompositeProcessor(delegates);
+    }
+
+    /**
+     * Chains the processors, measuring the time spent by each of them and counting the variants each one filters out
+     */
+    private ItemProcessor<SubSnpCoreFields, IVariant> buildMeasuredCompositeProcessor(
+            List<ItemProcessor<?, ?>> delegates) {
+        List<ItemProcessor<?, ?>> measuredDelegates = new ArrayList<>();
+        for (ItemProcessor<?, ?> delegate : delegates) {
+            measuredDelegates.add(new MeasuredItemProcessor<>(delegate, importMetrics));
+        }
         CompositeItemProcessor<SubSnpCoreFields, IVariant> compositeProcessor = new CompositeItemProcessor<>();
-        compositeProcessor.setDelegates(delegates);
+        compositeProcessor.setDelegates(measuredDelegates);
         return compositeProcessor;
     }
 
 }
-
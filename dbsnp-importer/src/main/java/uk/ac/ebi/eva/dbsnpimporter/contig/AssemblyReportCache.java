@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.contig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Keeps local copies of the assembly reports used to build {@link ContigMapping}s, so the same report is not
+ * downloaded and parsed again for every import.
+ *
+ * For each URL the cache directory holds the report, a properties file with its checksum and the ETag, modification
+ * time and length sent by the server, and the parsed mapping written by {@link ContigMapping#write}, named after the
+ * checksum of the report. The copy is reused if the server answers that the report has not been modified (or, for
+ * URLs without conditional requests, if its modification time and length are the same), and also if the report can't
+ * be downloaded at all, so an import doesn't fail because of a transient network error.
+ */
+public class AssemblyReportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssemblyReportCache.class);
+
+    public static final String REPORT_EXTENSION = ".txt";
+
+    public static final String METADATA_EXTENSION = ".properties";
+
+    public static final String MAPPING_EXTENSION = ".contigs";
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+    private static final String CHECKSUM_PROPERTY = "checksum";
+
+    private static final String ETAG_PROPERTY = "etag";
+
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
+    private static final String LENGTH_PROPERTY = "length";
+
+    private static final int TIMEOUT_IN_MILLISECONDS = 60 * 1000;
+
+    private final Path cacheDirectory;
+
+    public AssemblyReportCache(Path cacheDirectory) throws IOException {
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+    }
+
+    public ContigMapping getContigMapping(String url) throws Exception {
+        String key = getChecksum(url.getBytes(StandardCharsets.UTF_8));
+        Path reportPath = cacheDirectory.resolve(key + REPORT_EXTENSION);
+        Path metadataPath = cacheDirectory.resolve(key + METADATA_EXTENSION);
+
+        Properties metadata = readValidMetadata(reportPath, metadataPath);
+        try {
+            metadata = refresh(url, reportPath, metadataPath, metadata);
+        } catch (IOException e) {
+            if (metadata == null) {
+                throw e;
+            }
+            logger.warn("Assembly report {} could not be downloaded, using the copy in {}: {}", url, reportPath,
+                        e.toString());
+        }
+        return getContigMapping(reportPath, metadata.getProperty(CHECKSUM_PROPERTY));
+    }
+
+    /**
+     * @return The metadata of the cached report, or null if there is no report or its checksum doesn't match
+     */
+    private Properties readValidMetadata(Path reportPath, Path metadataPath) throws IOException {
+        if (!Files.exists(reportPath) || !Files.exists(metadataPath)) {
+            return null;
+        }
+        Properties metadata = new Properties();
+        try (InputStream input = Files.newInputStream(metadataPath)) {
+            metadata.load(input);
+        }
+        String checksum;
+        try (InputStream input = Files.newInputStream(reportPath)) {
+            checksum = getChecksum(input);
+        }
+        if (!checksum.equals(metadata.getProperty(CHECKSUM_PROPERTY))) {
+            logger.warn("Checksum of cached assembly report {} doesn't match, it will be downloaded again",
+                        reportPath);
+            return null;
+        }
+        return metadata;
+    }
+
+    private Properties refresh(String url, Path reportPath, Path metadataPath, Properties metadata)
+            throws IOException {
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_IN_MILLISECONDS);
+        connection.setReadTimeout(TIMEOUT_IN_MILLISECONDS);
+        if (metadata != null && metadata.getProperty(ETAG_PROPERTY) != null) {
+            connection.setRequestProperty("If-None-Match", metadata.getProperty(ETAG_PROPERTY));
+        }
+        try {
+            connection.connect();
+            if (metadata != null && isUnchanged(connection, metadata)) {
+                logger.info("Assembly report {} has not changed, using the copy in {}", url, reportPath);
+                return metadata;
+            }
+            logger.info("Downloading assembly report {} to {}", url, reportPath);
+            return download(connection, reportPath, metadataPath);
+        } finally {
+            if (connection instanceof HttpURLConnection) {
+                ((HttpURLConnection) connection).disconnect();
+            }
+        }
+    }
+
+    private boolean isUnchanged(URLConnection connection, Properties metadata) throws IOException {
+        if (connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            return true;
+        }
+        long lastModified = connection.getLastModified();
+        return lastModified > 0
+                && String.valueOf(lastModified).equals(metadata.getProperty(LAST_MODIFIED_PROPERTY))
+                && String.valueOf(connection.getContentLengthLong()).equals(metadata.getProperty(LENGTH_PROPERTY));
+    }
+
+    private Properties download(URLConnection connection, Path reportPath, Path metadataPath) throws IOException {
+        MessageDigest digest = newMessageDigest();
+        Path temporaryReportPath = Files.createTempFile(cacheDirectory, reportPath.getFileName().toString(),
+                                                        TEMPORARY_EXTENSION);
+        try {
+            try (InputStream input = new DigestInputStream(connection.getInputStream(), digest)) {
+                Files.copy(input, temporaryReportPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Properties metadata = new Properties();
+            metadata.setProperty(CHECKSUM_PROPERTY, toHexadecimal(digest.digest()));
+            metadata.setProperty(LAST_MODIFIED_PROPERTY, String.valueOf(connection.getLastModified()));
+            metadata.setProperty(LENGTH_PROPERTY, String.valueOf(Files.size(temporaryReportPath)));
+            if (connection.getHeaderField("ETag") != null) {
+                metadata.setProperty(ETAG_PROPERTY, connection.getHeaderField("ETag"));
+            }
+
+            Files.move(temporaryReportPath, reportPath, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            writeMetadata(metadata, metadataPath);
+            return metadata;
+        } finally {
+            Files.deleteIfExists(temporaryReportPath);
+        }
+    }
+
+    private void writeMetadata(Properties metadata, Path metadataPath) throws IOException {
+        Path temporaryMetadataPath = Files.createTempFile(cacheDirectory, metadataPath.getFileName().toString(),
+                                                          TEMPORARY_EXTENSION);
+        try (OutputStream output = Files.newOutputStream(temporaryMetadataPath)) {
+            metadata.store(output, null);
+        }
+        Files.move(temporaryMetadataPath, metadataPath, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the mapping parsed from a report with the same checksum, or parses the report and saves the mapping
+     */
+    private ContigMapping getContigMapping(Path reportPath, String checksum) throws Exception {
+        Path mappingPath = cacheDirectory.resolve(checksum + MAPPING_EXTENSION);
+        if (Files.exists(mappingPath)) {
+            try {
+                return ContigMapping.load(mappingPath);
+            } catch (IOException e) {
+                logger.warn("Contig mapping {} could not be loaded, parsing {} again: {}", mappingPath, reportPath,
+                            e.toString());
+            }
+        }
+        ContigMapping contigMapping = new ContigMapping(reportPath.toUri().toString());
+        // the mapping is written to a temporary file and moved into place by ContigMapping itself
+        contigMapping.write(mappingPath);
+        return contigMapping;
+    }
+
+    private static String getChecksum(byte[] bytes) {
+        return toHexadecimal(newMessageDigest().digest(bytes));
+    }
+
+    private static String getChecksum(InputStream input) throws IOException {
+        MessageDigest digest = newMessageDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHexadecimal(digest.digest());
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(CHECKSUM_ALGORITHM + " is not available", e);
+        }
+    }
+
+    private static String toHexadecimal(byte[] bytes) {
+        StringBuilder hexadecimal = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hexadecimal.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hexadecimal.toString();
+    }
+}
@@ -15,21 +15,115 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.contig;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Map;
 
+/**
+ * Immutable mapping from RefSeq to GenBank contig names. The synonyms are kept in two arrays sorted by RefSeq name and
+ * looked up with a binary search, so a mapping with hundreds of thousands of scaffolds takes little more memory than
+ * the names themselves, and every variant mapped to the same contig shares the same GenBank name instance.
+ */
 public class ContigMapping {
 
-    private Map<String, String> contigMap;
+    private static final int MAGIC_NUMBER = 0x45564143;
+
+    private static final int VERSION = 1;
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private final String[] refseqContigs;
+
+    private final String[] genbankContigs;
 
     public ContigMapping(Map<String, String> contigMap) {
-        this.contigMap = contigMap;
+        refseqContigs = contigMap.keySet().toArray(new String[0]);
+        Arrays.sort(refseqContigs);
+        genbankContigs = new String[refseqContigs.length];
+        for (int i = 0; i < refseqContigs.length; i++) {
+            genbankContigs[i] = contigMap.get(refseqContigs[i]);
+        }
     }
 
     public ContigMapping(String mappingUrl) throws Exception {
         this(new RefseqAssemblyReportParser(mappingUrl).getContigMap());
     }
 
+    private ContigMapping(String[] refseqContigs, String[] genbankContigs) {
+        this.refseqContigs = refseqContigs;
+        this.genbankContigs = genbankContigs;
+    }
+
     public String getGenbankOrDefault(String refseqContig) {
-        return contigMap.getOrDefault(refseqContig, refseqContig);
+        int index = Arrays.binarySearch(refseqContigs, refseqContig);
+        return index >= 0 ? genbankContigs[index] : refseqContig;
+    }
+
+    public int size() {
+        return refseqContigs.length;
+    }
+
+    /**
+     * Writes the synonyms to a binary file that can be loaded without parsing the assembly report again
+     *
+     * The file is written to a unique temporary file in the same directory and then moved into place, so several
+     * imports sharing the directory can write the same mapping concurrently. The mapping of a path is always the same,
+     * so losing the race against another writer is not an error.
+     *
+     * @param mappingPath File to write, replaced atomically once it is complete
+     */
+    public void write(Path mappingPath) throws IOException {
+        Path directory = mappingPath.toAbsolutePath().getParent();
+        Path temporaryPath = Files.createTempFile(directory, mappingPath.getFileName().toString(), TEMPORARY_EXTENSION);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryPath)))) {
+                output.writeInt(MAGIC_NUMBER);
+                output.writeInt(VERSION);
+                output.writeInt(refseqContigs.length);
+                for (int i = 0; i < refseqContigs.length; i++) {
+                    output.writeUTF(refseqContigs[i]);
+                    output.writeUTF(genbankContigs[i]);
+                }
+            }
+            try {
+                Files.move(temporaryPath, mappingPath, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // another writer moved its copy of the same mapping first
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Reads a file written by {@link #write}
+     */
+    public static ContigMapping load(Path mappingPath) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(mappingPath)))) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+                throw new IOException("File " + mappingPath + " is not a contig mapping of version " + VERSION);
+            }
+            int numberOfContigs = input.readInt();
+            String[] refseqContigs = new String[numberOfContigs];
+            String[] genbankContigs = new String[numberOfContigs];
+            for (int i = 0; i < numberOfContigs; i++) {
+                refseqContigs[i] = input.readUTF();
+                genbankContigs[i] = input.readUTF();
+                if (i > 0 && refseqContigs[i - 1].compareTo(refseqContigs[i]) >= 0) {
+                    throw new IOException("File " + mappingPath + " has contigs out of order: " + refseqContigs[i]);
+                }
+            }
+            return new ContigMapping(refseqContigs, genbankContigs);
+        }
     }
 }
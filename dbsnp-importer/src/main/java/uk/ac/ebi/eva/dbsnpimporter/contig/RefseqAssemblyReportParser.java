@@ -38,6 +38,8 @@ public class RefseqAssemblyReportParser {
 
     private static final String IDENTICAL_SEQUENCE = "=";
 
+    private static final char COLUMN_SEPARATOR = '\t';
+
     private FlatFileItemReader<String> reader;
 
     private Map<String, String> contigMap;
@@ -74,10 +76,34 @@ public class RefseqAssemblyReportParser {
         return contigMap;
     }
 
+    /**
+     * Adds the synonyms of a line if both sequences are identical. Only the GenBank, relationship and RefSeq columns
+     * are extracted, instead of splitting the whole line.
+     */
     private void addContigSynonym(String line, Map<String, String> contigMap) {
-        String[] columns = line.split("\t", -1);
-        if (columns[RELATIONSHIP_COLUMN].equals(IDENTICAL_SEQUENCE)) {
-            contigMap.put(columns[REFSEQ_COLUMN], columns[GENBANK_COLUMN]);
+        int genbankStart = skipColumns(line, 0, GENBANK_COLUMN);
+        int relationshipStart = skipColumns(line, genbankStart, RELATIONSHIP_COLUMN - GENBANK_COLUMN);
+        int refseqStart = skipColumns(line, relationshipStart, REFSEQ_COLUMN - RELATIONSHIP_COLUMN);
+        if (refseqStart < 0) {
+            throw new IllegalArgumentException("Assembly report line has less than " + (REFSEQ_COLUMN + 1) +
+                                                       " columns: " + line);
+        }
+        if (line.startsWith(IDENTICAL_SEQUENCE, relationshipStart)
+                && relationshipStart + IDENTICAL_SEQUENCE.length() + 1 == refseqStart) {
+            contigMap.put(getColumn(line, refseqStart), getColumn(line, genbankStart));
         }
     }
+
+    private static int skipColumns(String line, int columnStart, int columns) {
+        for (int i = 0; i < columns && columnStart >= 0; i++) {
+            int separator = line.indexOf(COLUMN_SEPARATOR, columnStart);
+            columnStart = separator < 0 ? -1 : separator + 1;
+        }
+        return columnStart;
+    }
+
+    private static String getColumn(String line, int columnStart) {
+        int columnEnd = line.indexOf(COLUMN_SEPARATOR, columnStart);
+        return line.substring(columnStart, columnEnd < 0 ? line.length() : columnEnd);
+    }
 }
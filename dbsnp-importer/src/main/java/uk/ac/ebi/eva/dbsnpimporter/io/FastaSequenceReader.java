@@ -25,25 +25,72 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Reads regions from a given FASTA file, and also creates the associated index and dictionary files if they do not
- * exist.
+ * exist. The sequence lookups are synchronized because the underlying indexed file is not thread-safe, and the reader
+ * is shared by the workers of a partitioned import.
+ *
+ * The file is read in blocks of {@link #BLOCK_SIZE} bases that are kept in a least recently used cache, so lookups of
+ * variants close to each other are served from memory instead of seeking and reading the file every time.
+ * Alternatively, the whole reference can be held in memory as a {@link PackedReferenceSequence}, in which case the
+ * lookups are not synchronized.
  */
 public class FastaSequenceReader {
 
     private static final Logger logger = LoggerFactory.getLogger(FastaSequenceReader.class);
 
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_CACHE_SIZE_IN_MEGABYTES = 64;
+
     private ReferenceSequenceFile fastaSequenceFile;
 
     private SAMSequenceDictionary sequenceDictionary;
 
+    private final Map<BlockKey, byte[]> blockCache;
+
+    private final int maxCachedBlocks;
+
+    private PackedReferenceSequence packedReference;
+
     public FastaSequenceReader(Path fastaPath) throws IOException {
+        this(fastaPath, DEFAULT_CACHE_SIZE_IN_MEGABYTES);
+    }
+
+    public FastaSequenceReader(Path fastaPath, int cacheSizeInMegabytes) throws IOException {
+        this(fastaPath, cacheSizeInMegabytes, false);
+    }
+
+    /**
+     * @param fastaPath Path to the FASTA file
+     * @param cacheSizeInMegabytes Memory used to cache blocks of the reference sequence, 0 to disable the cache
+     * @param usePackedReference Whether to hold the whole reference in memory. The packed reference is created next to
+     * the FASTA file if it does not exist or is older than the FASTA file. If it can't be written, the FASTA file is
+     * read as if this was false
+     */
+    public FastaSequenceReader(Path fastaPath, int cacheSizeInMegabytes, boolean usePackedReference)
+            throws IOException {
+        if (cacheSizeInMegabytes < 0) {
+            throw new IllegalArgumentException("The size of the reference sequence cache can't be negative");
+        }
+        maxCachedBlocks = (int) ((long) cacheSizeInMegabytes * 1024 * 1024 / BLOCK_SIZE);
+        blockCache = new LinkedHashMap<BlockKey, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlockKey, byte[]> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        };
+
         fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
         sequenceDictionary = fastaSequenceFile.getSequenceDictionary();
 
@@ -56,6 +103,30 @@ public class FastaSequenceReader {
             FastaSequenceIndexCreator.create(fastaPath, true);
             fastaSequenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(fastaPath, true);
         }
+        if (usePackedReference) {
+            packedReference = loadPackedReference(fastaPath);
+        }
+    }
+
+    /**
+     * @return The packed reference, or null if it didn't exist and could not be written
+     */
+    private PackedReferenceSequence loadPackedReference(Path fastaPath) throws IOException {
+        Path packedPath = PackedReferenceSequence.getPackedPath(fastaPath);
+        if (!Files.exists(packedPath)
+                || Files.getLastModifiedTime(packedPath).compareTo(Files.getLastModifiedTime(fastaPath)) < 0) {
+            logger.info("Packed reference file not found or outdated - creating one...");
+            try (ReferenceSequenceFile referenceFile = ReferenceSequenceFileFactory.getReferenceSequenceFile(
+                    fastaPath, true, false)) {
+                PackedReferenceSequence.write(referenceFile, packedPath);
+            } catch (IOException e) {
+                // e.g. the directory of the FASTA file is read-only
+                logger.warn("Packed reference file {} could not be written, reading the FASTA file instead: {}",
+                            packedPath, e.toString());
+                return null;
+            }
+        }
+        return PackedReferenceSequence.load(packedPath);
     }
 
     /**
@@ -93,7 +164,57 @@ public class FastaSequenceReader {
     public String getSequence(String contig, long start, long end) throws IllegalArgumentException {
         checkArguments(contig, start, end);
 
-        return fastaSequenceFile.getSubsequenceAt(contig, start, end).getBaseString();
+        if (packedReference != null) {
+            return packedReference.getSequence(contig, start, end);
+        }
+        return getSequenceFromFile(contig, start, end);
+    }
+
+    /**
+     * Get a single base from the FASTA file, without creating a String if the reference is packed in memory
+     *
+     * @param contig   Sequence contig or chromosome
+     * @param position Coordinate in the contig
+     * @return Base read from the FASTA file
+     * @throws IllegalArgumentException If the coordinates are not correct
+     */
+    public char getBase(String contig, long position) throws IllegalArgumentException {
+        checkArguments(contig, position, position);
+
+        if (packedReference != null) {
+            return packedReference.getBase(contig, position);
+        }
+        return getSequenceFromFile(contig, position, position).charAt(0);
+    }
+
+    private synchronized String getSequenceFromFile(String contig, long start, long end) {
+        if (maxCachedBlocks == 0) {
+            return fastaSequenceFile.getSubsequenceAt(contig, start, end).getBaseString();
+        }
+        StringBuilder sequence = new StringBuilder((int) (end - start + 1));
+        long position = start;
+        while (position <= end) {
+            long blockIndex = (position - 1) / BLOCK_SIZE;
+            long blockStart = blockIndex * BLOCK_SIZE + 1;
+            byte[] block = getBlock(contig, blockIndex, blockStart);
+            int offset = (int) (position - blockStart);
+            int length = (int) Math.min(end - position + 1, block.length - offset);
+            sequence.append(new String(block, offset, length, StandardCharsets.US_ASCII));
+            position += length;
+        }
+        return sequence.toString();
+    }
+
+    private byte[] getBlock(String contig, long blockIndex, long blockStart) {
+        BlockKey key = new BlockKey(contig, blockIndex);
+        byte[] block = blockCache.get(key);
+        if (block == null) {
+            long contigLength = sequenceDictionary.getSequence(contig).getSequenceLength();
+            long blockEnd = Math.min(blockStart + BLOCK_SIZE - 1, contigLength);
+            block = fastaSequenceFile.getSubsequenceAt(contig, blockStart, blockEnd).getBases();
+            blockCache.put(key, block);
+        }
+        return block;
     }
 
     private void checkArguments(String contig, long start, long end) throws IllegalArgumentException {
@@ -121,7 +242,37 @@ public class FastaSequenceReader {
      * Close the underlying FASTA file
      * @throws Exception If the file cannot be closed
      */
-    public void close() throws Exception {
+    public synchronized void close() throws Exception {
+        blockCache.clear();
         fastaSequenceFile.close();
     }
+
+    private static class BlockKey {
+
+        private final String contig;
+
+        private final long index;
+
+        BlockKey(String contig, long index) {
+            this.contig = contig;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey blockKey = (BlockKey) o;
+            return index == blockKey.index && contig.equals(blockKey.contig);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * contig.hashCode() + Long.hashCode(index);
+        }
+    }
 }
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io;
+
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference sequence held in memory with 2 bits per base, so a whole assembly can be looked up without going to disk.
+ * Any base other than A, C, G or T (usually runs of N) is stored in a list of runs, as well as the soft-masked (lower
+ * case) regions, so the sequences returned are the same as in the FASTA file.
+ *
+ * The packed sequences are built once from the FASTA file and saved in a file next to it (see {@link #getPackedPath}),
+ * which is memory-mapped on later runs. The file starts with a header listing the sequences, their length, their runs
+ * and the offset of their packed bases, followed by the packed bases of all the sequences. Lookups don't modify any
+ * state and can be done concurrently.
+ */
+public class PackedReferenceSequence {
+
+    public static final String EXTENSION = ".packed";
+
+    private static final int MAGIC_NUMBER = 0x45564150;
+
+    private static final int VERSION = 1;
+
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final char[] BASES = {'A', 'C', 'G', 'T'};
+
+    private final Map<String, PackedSequence> sequences;
+
+    private PackedReferenceSequence(Map<String, PackedSequence> sequences) {
+        this.sequences = sequences;
+    }
+
+    public static Path getPackedPath(Path fastaPath) {
+        return fastaPath.resolveSibling(fastaPath.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Packs all the sequences of a FASTA file and writes them to a file. The packed bases are kept in memory until all
+     * the sequences have been read, so this is meant for assemblies that fit in memory once packed.
+     *
+     * @param referenceFile FASTA file, read sequentially from its current position
+     * @param packedPath File to write, replaced atomically once it is complete
+     */
+    public static void write(ReferenceSequenceFile referenceFile, Path packedPath) throws IOException {
+        List<SequenceBuilder> builders = new ArrayList<>();
+        ReferenceSequence referenceSequence;
+        while ((referenceSequence = referenceFile.nextSequence()) != null) {
+            builders.add(new SequenceBuilder(referenceSequence.getName(), referenceSequence.getBases()));
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(builders.size());
+        long dataOffset = 0;
+        for (SequenceBuilder builder : builders) {
+            builder.writeHeader(header, dataOffset);
+            dataOffset += builder.packedBases.length;
+        }
+        header.flush();
+
+        // a unique temporary file, so imports packing the same reference concurrently don't write the same file
+        Path temporaryPath = Files.createTempFile(packedPath.toAbsolutePath().getParent(),
+                                                  packedPath.getFileName().toString(), TEMPORARY_EXTENSION);
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryPath)))) {
+                output.writeInt(MAGIC_NUMBER);
+                output.writeInt(VERSION);
+                output.writeInt(headerBytes.size());
+                headerBytes.writeTo(output);
+                for (SequenceBuilder builder : builders) {
+                    output.write(builder.packedBases);
+                }
+            }
+            try {
+                Files.move(temporaryPath, packedPath, StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // another import packed the same reference first
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Memory-maps a file written by {@link #write}
+     */
+    public static PackedReferenceSequence load(Path packedPath) throws IOException {
+        Map<String, PackedSequence> sequences = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(packedPath)));
+             FileChannel channel = FileChannel.open(packedPath, StandardOpenOption.READ)) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+                throw new IOException("File " + packedPath + " is not a packed reference sequence of version " +
+                                              VERSION);
+            }
+            int headerLength = input.readInt();
+            long dataStart = 3 * Integer.BYTES + headerLength;
+            int numberOfSequences = input.readInt();
+            for (int i = 0; i < numberOfSequences; i++) {
+                PackedSequence sequence = PackedSequence.read(input, channel, dataStart);
+                sequences.put(sequence.name, sequence);
+            }
+        }
+        return new PackedReferenceSequence(sequences);
+    }
+
+    public boolean containsSequence(String contig) {
+        return sequences.containsKey(contig);
+    }
+
+    /**
+     * @param contig Sequence contig or chromosome
+     * @param position 1-based position in the contig
+     * @return Base at the given position, in lower case if it is soft-masked
+     */
+    public char getBase(String contig, long position) {
+        return getPackedSequence(contig, position, position).getBase(position);
+    }
+
+    /**
+     * @param contig Sequence contig or chromosome
+     * @param start 1-based start coordinate in the contig
+     * @param end 1-based end coordinate in the contig, inclusive
+     * @return Sequence between the given coordinates
+     */
+    public String getSequence(String contig, long start, long end) {
+        PackedSequence sequence = getPackedSequence(contig, start, end);
+        char[] bases = new char[(int) (end - start + 1)];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = sequence.getBase(start + i);
+        }
+        return new String(bases);
+    }
+
+    private PackedSequence getPackedSequence(String contig, long start, long end) {
+        PackedSequence sequence = sequences.get(contig);
+        if (sequence == null) {
+            throw new IllegalArgumentException("Sequence " + contig + " not found in packed reference");
+        }
+        if (start < 1 || end < start || end > sequence.length) {
+            throw new IllegalArgumentException(
+                    "Coordinates " + start + "-" + end + " out of the bounds of sequence " + contig + ": 1-" +
+                            sequence.length);
+        }
+        return sequence;
+    }
+
+    private static class PackedSequence {
+
+        private final String name;
+
+        private final long length;
+
+        private final ByteBuffer packedBases;
+
+        private final long[] otherBaseStarts;
+
+        private final long[] otherBaseEnds;
+
+        private final byte[] otherBases;
+
+        private final long[] softMaskStarts;
+
+        private final long[] softMaskEnds;
+
+        private PackedSequence(String name, long length, ByteBuffer packedBases, long[] otherBaseStarts,
+                               long[] otherBaseEnds, byte[] otherBases, long[] softMaskStarts, long[] softMaskEnds) {
+            this.name = name;
+            this.length = length;
+            this.packedBases = packedBases;
+            this.otherBaseStarts = otherBaseStarts;
+            this.otherBaseEnds = otherBaseEnds;
+            this.otherBases = otherBases;
+            this.softMaskStarts = softMaskStarts;
+            this.softMaskEnds = softMaskEnds;
+        }
+
+        static PackedSequence read(DataInputStream input, FileChannel channel, long dataStart) throws IOException {
+            String name = input.readUTF();
+            long length = input.readLong();
+            long dataOffset = input.readLong();
+
+            int otherBaseRuns = input.readInt();
+            long[] otherBaseStarts = new long[otherBaseRuns];
+            long[] otherBaseEnds = new long[otherBaseRuns];
+            byte[] otherBases = new byte[otherBaseRuns];
+            for (int i = 0; i < otherBaseRuns; i++) {
+                otherBaseStarts[i] = input.readLong();
+                otherBaseEnds[i] = input.readLong();
+                otherBases[i] = input.readByte();
+            }
+
+            int softMaskRuns = input.readInt();
+            long[] softMaskStarts = new long[softMaskRuns];
+            long[] softMaskEnds = new long[softMaskRuns];
+            for (int i = 0; i < softMaskRuns; i++) {
+                softMaskStarts[i] = input.readLong();
+                softMaskEnds[i] = input.readLong();
+            }
+
+            ByteBuffer packedBases = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + dataOffset,
+                                                 getPackedLength(length));
+            return new PackedSequence(name, length, packedBases, otherBaseStarts, otherBaseEnds, otherBases,
+                                      softMaskStarts, softMaskEnds);
+        }
+
+        char getBase(long position) {
+            char base;
+            int otherBaseRun = findRun(otherBaseStarts, otherBaseEnds, position);
+            if (otherBaseRun >= 0) {
+                base = (char) otherBases[otherBaseRun];
+            } else {
+                long index = position - 1;
+                int packedByte = packedBases.get((int) (index >>> 2));
+                base = BASES[(packedByte >>> (6 - 2 * (int) (index & 3))) & 3];
+            }
+            if (findRun(softMaskStarts, softMaskEnds, position) >= 0) {
+                base = Character.toLowerCase(base);
+            }
+            return base;
+        }
+
+        private static int findRun(long[] starts, long[] ends, long position) {
+            int index = Arrays.binarySearch(starts, position);
+            if (index < 0) {
+                // the run that may contain the position is the one that starts right before it
+                index = -index - 2;
+            }
+            return (index >= 0 && ends[index] >= position) ? index : -1;
+        }
+    }
+
+    private static class SequenceBuilder {
+
+        private final String name;
+
+        private final long length;
+
+        private final byte[] packedBases;
+
+        private final List<long[]> otherBaseRuns = new ArrayList<>();
+
+        private final List<Byte> otherBases = new ArrayList<>();
+
+        private final List<long[]> softMaskRuns = new ArrayList<>();
+
+        SequenceBuilder(String name, byte[] bases) {
+            this.name = name;
+            this.length = bases.length;
+            this.packedBases = new byte[(int) getPackedLength(bases.length)];
+            for (int i = 0; i < bases.length; i++) {
+                long position = i + 1;
+                byte base = bases[i];
+                if (Character.isLowerCase(base)) {
+                    extendRun(softMaskRuns, position);
+                }
+                byte upperCaseBase = (byte) Character.toUpperCase(base);
+                int code = encode(upperCaseBase);
+                if (code < 0) {
+                    int lastRun = otherBaseRuns.size() - 1;
+                    if (lastRun >= 0 && otherBases.get(lastRun) == upperCaseBase
+                            && otherBaseRuns.get(lastRun)[1] == position - 1) {
+                        otherBaseRuns.get(lastRun)[1] = position;
+                    } else {
+                        otherBaseRuns.add(new long[]{position, position});
+                        otherBases.add(upperCaseBase);
+                    }
+                } else {
+                    packedBases[i >>> 2] |= code << (6 - 2 * (i & 3));
+                }
+            }
+        }
+
+        private static void extendRun(List<long[]> runs, long position) {
+            if (!runs.isEmpty() && runs.get(runs.size() - 1)[1] == position - 1) {
+                runs.get(runs.size() - 1)[1] = position;
+            } else {
+                runs.add(new long[]{position, position});
+            }
+        }
+
+        private static int encode(byte base) {
+            switch (base) {
+                case 'A':
+                    return 0;
+                case 'C':
+                    return 1;
+                case 'G':
+                    return 2;
+                case 'T':
+                    return 3;
+                default:
+                    return -1;
+            }
+        }
+
+        void writeHeader(DataOutputStream header, long dataOffset) throws IOException {
+            header.writeUTF(name);
+            header.writeLong(length);
+            header.writeLong(dataOffset);
+            header.writeInt(otherBaseRuns.size());
+            for (int i = 0; i < otherBaseRuns.size(); i++) {
+                header.writeLong(otherBaseRuns.get(i)[0]);
+                header.writeLong(otherBaseRuns.get(i)[1]);
+                header.writeByte(otherBases.get(i));
+            }
+            header.writeInt(softMaskRuns.size());
+            for (long[] run : softMaskRuns) {
+                header.writeLong(run[0]);
+                header.writeLong(run[1]);
+            }
+        }
+    }
+
+    private static long getPackedLength(long length) {
+        return (length + 3) / 4;
+    }
+}
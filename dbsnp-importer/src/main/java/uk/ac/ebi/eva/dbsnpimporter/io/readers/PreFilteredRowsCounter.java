@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PreFilter;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PRE_FILTERED_ROWS_KEY;
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.LOAD_ORDER_COLUMN;
+
+/**
+ * Counts the rows of a batch (or of a range of load_order in it) that the pre-filters of a reader skip. The count is
+ * queried when the reader is opened for the first time, and kept in the execution context under the key
+ * {@link SubSnpCoreFieldsReader#PRE_FILTERED_ROWS_KEY}, so a restarted step does not query it again.
+ */
+class PreFilteredRowsCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreFilteredRowsCounter.class);
+
+    private final DataSource dataSource;
+
+    private final String sql;
+
+    private final Object[] arguments;
+
+    private long preFilteredRows;
+
+    PreFilteredRowsCounter(int batch, String assembly, DataSource dataSource, Long minLoadOrder, Long maxLoadOrder,
+                           Set<PreFilter> preFilters) {
+        this.dataSource = dataSource;
+        String preFiltersCondition = SubSnpCoreFieldsReader.buildPreFiltersCondition(preFilters);
+        if (preFiltersCondition == null) {
+            sql = null;
+            arguments = null;
+        } else {
+            sql = "SELECT COUNT(*) FROM " + SubSnpCoreFieldsReader.getTableName(assembly) + " WHERE batch_id = ?" +
+                    (minLoadOrder != null ? " AND " + LOAD_ORDER_COLUMN + " BETWEEN ? AND ?" : "") +
+                    " AND NOT " + preFiltersCondition;
+            arguments = minLoadOrder == null ? new Object[]{batch} : new Object[]{batch, minLoadOrder, maxLoadOrder};
+        }
+    }
+
+    void open(ExecutionContext executionContext) {
+        if (sql == null) {
+            return;
+        }
+        if (executionContext.containsKey(PRE_FILTERED_ROWS_KEY)) {
+            preFilteredRows = executionContext.getLong(PRE_FILTERED_ROWS_KEY);
+        } else {
+            preFilteredRows = new JdbcTemplate(dataSource).queryForObject(sql, Long.class, arguments);
+            logger.info("{} rows will be skipped by the database pre-filters", preFilteredRows);
+        }
+    }
+
+    void update(ExecutionContext executionContext) {
+        if (sql != null) {
+            executionContext.putLong(PRE_FILTERED_ROWS_KEY, preFilteredRows);
+        }
+    }
+
+    long getPreFilteredRows() {
+        return preFilteredRows;
+    }
+}
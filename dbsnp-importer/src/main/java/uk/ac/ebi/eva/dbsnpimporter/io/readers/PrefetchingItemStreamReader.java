@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads the items of another reader in a separate thread, keeping up to queueSize items ready to be returned, so the
+ * delegate (e.g. a database cursor) keeps reading while the items already read are processed and written.
+ *
+ * The number of items returned is saved in the execution context, and on restart that many items are read from the
+ * delegate and discarded before returning the next one, like a {@link
+ * org.springframework.batch.item.database.JdbcCursorItemReader} does. The delegate must not save its own state,
+ * because it reads ahead of the items returned by this reader.
+ *
+ * @param <T> Type of the items read
+ */
+public class PrefetchingItemStreamReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingItemStreamReader.class);
+
+    private static final String READ_COUNT = "read.count";
+
+    private static final String PREFETCHING_THREAD_NAME = "prefetching-reader";
+
+    private static final Object END_OF_ITEMS = new Object();
+
+    private final ItemStreamReader<T> delegate;
+
+    private final BlockingQueue<Object> queue;
+
+    private Thread prefetchingThread;
+
+    private volatile Exception readException;
+
+    private long readCount;
+
+    private boolean finished;
+
+    public PrefetchingItemStreamReader(ItemStreamReader<T> delegate, int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The number of prefetched items must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        readCount = executionContext.getLong(getExecutionContextKey(READ_COUNT), 0);
+        finished = false;
+        readException = null;
+        queue.clear();
+
+        long itemsToSkip = readCount;
+        prefetchingThread = new Thread(() -> prefetch(itemsToSkip), PREFETCHING_THREAD_NAME);
+        prefetchingThread.setDaemon(true);
+        prefetchingThread.start();
+    }
+
+    private void prefetch(long itemsToSkip) {
+        try {
+            for (long i = 0; i < itemsToSkip; i++) {
+                if (delegate.read() == null) {
+                    break;
+                }
+            }
+            T item;
+            while ((item = delegate.read()) != null) {
+                queue.put(item);
+            }
+        } catch (InterruptedException e) {
+            logger.debug("Prefetching interrupted");
+            return;
+        } catch (Exception e) {
+            readException = e;
+        }
+        try {
+            queue.put(END_OF_ITEMS);
+        } catch (InterruptedException e) {
+            logger.debug("Prefetching interrupted");
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read() throws Exception {
+        if (finished) {
+            return null;
+        }
+        Object item = queue.take();
+        if (item == END_OF_ITEMS) {
+            finished = true;
+            if (readException != null) {
+                throw readException;
+            }
+            return null;
+        }
+        readCount++;
+        return (T) item;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+        executionContext.putLong(getExecutionContextKey(READ_COUNT), readCount);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (prefetchingThread != null) {
+            prefetchingThread.interrupt();
+            try {
+                prefetchingThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            prefetchingThread = null;
+        }
+        queue.clear();
+        delegate.close();
+    }
+}
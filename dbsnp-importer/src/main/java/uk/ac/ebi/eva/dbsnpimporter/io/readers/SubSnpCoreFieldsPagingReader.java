@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PreFilter;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+
+import javax.sql.DataSource;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.LOAD_ORDER_COLUMN;
+
+/**
+ * Reads the same rows as {@link SubSnpCoreFieldsReader}, but in pages of pageSize rows sorted by load_order, each of
+ * them selected with a separate query:
+ * <pre>
+ *     SELECT ... FROM dbsnp_variant_load_$assembly_hash
+ *     WHERE batch_id = $batch AND load_order > $last_load_order_read
+ *     ORDER BY load_order LIMIT $pageSize
+ * </pre>
+ *
+ * No transaction is kept open between pages, and the last load_order read is saved in the execution context, so a
+ * restarted step continues from the exact row where it stopped. The load_order must be unique within each batch.
+ */
+public class SubSnpCoreFieldsPagingReader extends JdbcPagingItemReader<SubSnpCoreFields> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubSnpCoreFieldsPagingReader.class);
+
+    private static final String BATCH_PARAMETER = "batch";
+
+    private static final String MIN_LOAD_ORDER_PARAMETER = "minLoadOrder";
+
+    private static final String MAX_LOAD_ORDER_PARAMETER = "maxLoadOrder";
+
+    private final PreFilteredRowsCounter preFilteredRowsCounter;
+
+    public SubSnpCoreFieldsPagingReader(int batch, String assembly, DataSource dataSource, int pageSize)
+            throws Exception {
+        this(batch, assembly, dataSource, pageSize, null, null, EnumSet.noneOf(PreFilter.class));
+    }
+
+    public SubSnpCoreFieldsPagingReader(int batch, String assembly, DataSource dataSource, int pageSize,
+                                        Long minLoadOrder, Long maxLoadOrder, Set<PreFilter> preFilters)
+            throws Exception {
+        if ((minLoadOrder == null) != (maxLoadOrder == null)) {
+            throw new IllegalArgumentException("Both the minimum and maximum load order must be provided, or none");
+        }
+        this.preFilteredRowsCounter = new PreFilteredRowsCounter(batch, assembly, dataSource, minLoadOrder,
+                                                                 maxLoadOrder, preFilters);
+
+        Map<String, Object> parameterValues = new HashMap<>();
+        parameterValues.put(BATCH_PARAMETER, batch);
+        String whereClause = "batch_id = :" + BATCH_PARAMETER;
+        if (minLoadOrder != null) {
+            parameterValues.put(MIN_LOAD_ORDER_PARAMETER, minLoadOrder);
+            parameterValues.put(MAX_LOAD_ORDER_PARAMETER, maxLoadOrder);
+            whereClause += " AND " + LOAD_ORDER_COLUMN + " BETWEEN :" + MIN_LOAD_ORDER_PARAMETER + " AND :"
+                    + MAX_LOAD_ORDER_PARAMETER;
+        }
+
+        String preFiltersCondition = SubSnpCoreFieldsReader.buildPreFiltersCondition(preFilters);
+        String tableName = SubSnpCoreFieldsReader.getTableName(assembly);
+        if (preFiltersCondition != null) {
+            whereClause += " AND " + preFiltersCondition;
+        }
+
+        logger.debug("querying table {} for assembly {} in pages of {} rows", tableName, assembly, pageSize);
+        SqlPagingQueryProviderFactoryBean queryProviderFactory = new SqlPagingQueryProviderFactoryBean();
+        queryProviderFactory.setDataSource(dataSource);
+        // the sort key is read to know where the next page starts
+        queryProviderFactory.setSelectClause(SubSnpCoreFieldsReader.getSelectedColumns() + "," + LOAD_ORDER_COLUMN);
+        queryProviderFactory.setFromClause(tableName);
+        queryProviderFactory.setWhereClause(whereClause);
+        queryProviderFactory.setSortKey(LOAD_ORDER_COLUMN);
+
+        setDataSource(dataSource);
+        setQueryProvider(queryProviderFactory.getObject());
+        setParameterValues(parameterValues);
+        setRowMapper(new SubSnpCoreFieldsRowMapper());
+        setPageSize(pageSize);
+        setFetchSize(pageSize);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        preFilteredRowsCounter.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        preFilteredRowsCounter.update(executionContext);
+    }
+
+    public long getPreFilteredRows() {
+        return preFilteredRowsCounter.getPreFilteredRows();
+    }
+}
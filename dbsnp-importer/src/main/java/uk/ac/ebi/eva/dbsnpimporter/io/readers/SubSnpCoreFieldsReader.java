@@ -17,6 +17,8 @@ package uk.ac.ebi.eva.dbsnpimporter.io.readers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.database.JdbcCursorItemReader;
 import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.PreparedStatementSetter;
@@ -26,6 +28,9 @@ import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.ALLELES;
 import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.ALTERNATE;
@@ -64,19 +69,111 @@ import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.G
     WHERE
         batch_id = $batch
     ORDER BY load_order;
+
+ When a range of load_order is provided (e.g. by a partitioned step), only the rows with load_order between the
+ minimum and the maximum (both included) are read.
+
+ When pre-filters are provided, their conditions are added to the WHERE clause, so the rows that the processors would
+ filter out are not transferred from the database. The number of rows skipped this way is counted when the reader is
+ opened, and saved in the execution context under the key {@link #PRE_FILTERED_ROWS_KEY}.
  */
 public class SubSnpCoreFieldsReader extends JdbcCursorItemReader<SubSnpCoreFields> {
 
     private static final Logger logger = LoggerFactory.getLogger(SubSnpCoreFieldsReader.class);
 
+    public static final String PRE_FILTERED_ROWS_KEY = "preFilteredRows";
+
+    /**
+     * Conditions that can be checked by the database, equivalent to some of the filters applied by the processors.
+     * None of them evaluates to NULL, so they can be negated to count the rows they skip.
+     */
+    public enum PreFilter {
+
+        /**
+         * Rows with contig or chromosome coordinates, as required by the MissingCoordinatesFilterProcessor
+         */
+        COORDINATES("(" + CONTIG_NAME_COLUMN + " IS NOT NULL OR (" + CHROMOSOME_COLUMN + " IS NOT NULL AND "
+                            + CHROMOSOME_START_COLUMN + " IS NOT NULL AND " + CHROMOSOME_END_COLUMN + " IS NOT NULL))"),
+
+        /**
+         * Rows with an HGVS string to take the reference allele from, as required by the
+         * UnambiguousAllelesFilterProcessor
+         */
+        HGVS_ALLELES("(" + HGVS_C_STRING + " IS NOT NULL OR " + HGVS_T_STRING + " IS NOT NULL)"),
+
+        /**
+         * Rows with genotypes or frequencies, as required by the SubSnpCoreFieldsToVariantProcessor
+         */
+        GENOTYPES_OR_FREQUENCIES("((" + GENOTYPES_COLUMN + " IS NOT NULL AND TRIM(" + GENOTYPES_COLUMN + ") <> '')"
+                                         + " OR (" + FREQUENCIES_COLUMN + " IS NOT NULL AND TRIM("
+                                         + FREQUENCIES_COLUMN + ") <> ''))");
+
+        private final String condition;
+
+        PreFilter(String condition) {
+            this.condition = condition;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+    }
+
+    private final Object[] arguments;
+
+    private final PreFilteredRowsCounter preFilteredRowsCounter;
+
     public SubSnpCoreFieldsReader(int batch, String assembly, DataSource dataSource, int pageSize) throws Exception {
+        this(batch, assembly, dataSource, pageSize, null, null);
+    }
+
+    public SubSnpCoreFieldsReader(int batch, String assembly, DataSource dataSource, int pageSize, Long minLoadOrder,
+                                  Long maxLoadOrder) throws Exception {
+        this(batch, assembly, dataSource, pageSize, minLoadOrder, maxLoadOrder, EnumSet.noneOf(PreFilter.class));
+    }
+
+    public SubSnpCoreFieldsReader(int batch, String assembly, DataSource dataSource, int pageSize, Long minLoadOrder,
+                                  Long maxLoadOrder, Set<PreFilter> preFilters) throws Exception {
+        if ((minLoadOrder == null) != (maxLoadOrder == null)) {
+            throw new IllegalArgumentException("Both the minimum and maximum load order must be provided, or none");
+        }
+        this.arguments = minLoadOrder == null ? new Object[]{batch} : new Object[]{batch, minLoadOrder, maxLoadOrder};
+        this.preFilteredRowsCounter = new PreFilteredRowsCounter(batch, assembly, dataSource, minLoadOrder,
+                                                                 maxLoadOrder, preFilters);
+        String preFiltersCondition = buildPreFiltersCondition(preFilters);
         setDataSource(dataSource);
-        setSql(buildSql(assembly));
-        setPreparedStatementSetter(buildPreparedStatementSetter(batch));
+        setSql(buildSql(assembly, minLoadOrder != null, preFiltersCondition));
+        setPreparedStatementSetter(buildPreparedStatementSetter());
         setRowMapper(new SubSnpCoreFieldsRowMapper());
         setFetchSize(pageSize);
     }
 
+    /**
+     * @return The conditions of all the pre-filters, or null if there are none
+     */
+    static String buildPreFiltersCondition(Set<PreFilter> preFilters) {
+        if (preFilters.isEmpty()) {
+            return null;
+        }
+        return preFilters.stream().map(PreFilter::getCondition).collect(Collectors.joining(" AND ", "(", ")"));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        preFilteredRowsCounter.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        preFilteredRowsCounter.update(executionContext);
+    }
+
+    public long getPreFilteredRows() {
+        return preFilteredRowsCounter.getPreFilteredRows();
+    }
+
     @Override
     protected void openCursor(Connection connection) {
         try {
@@ -87,53 +184,66 @@ public class SubSnpCoreFieldsReader extends JdbcCursorItemReader<SubSnpCoreField
         super.openCursor(connection);
     }
 
-    private String buildSql(String assembly) throws Exception {
-        String tableName = "dbsnp_variant_load_" + hash(assembly);
+    private String buildSql(String assembly, boolean loadOrderRange, String preFiltersCondition) throws Exception {
+        String tableName = getTableName(assembly);
         logger.debug("querying table {} for assembly {}", tableName, assembly);
         String sql =
-                "SELECT " +
-                        SUBSNP_ID_COLUMN +
-                        "," + SUBSNP_ORIENTATION_COLUMN +
-                        "," + REFSNP_ID_COLUMN +
-                        "," + SNP_ORIENTATION_COLUMN +
-                        "," + CONTIG_NAME_COLUMN +
-                        "," + CONTIG_START_COLUMN +
-                        "," + CONTIG_END_COLUMN +
-                        "," + CONTIG_ORIENTATION_COLUMN +
-                        "," + LOC_TYPE_COLUMN +
-                        "," + CHROMOSOME_COLUMN +
-                        "," + CHROMOSOME_START_COLUMN +
-                        "," + CHROMOSOME_END_COLUMN +
-                        "," + REFERENCE_C +
-                        "," + REFERENCE_T +
-                        "," + ALTERNATE +
-                        "," + ALLELES +
-                        "," + HGVS_C_STRING +
-                        "," + HGVS_C_START +
-                        "," + HGVS_C_STOP +
-                        "," + HGVS_C_ORIENTATION +
-                        "," + HGVS_T_STRING +
-                        "," + HGVS_T_START +
-                        "," + HGVS_T_STOP +
-                        "," + HGVS_T_ORIENTATION +
-                        "," + GENOTYPES_COLUMN +
-                        "," + FREQUENCIES_COLUMN +
-                        "," + BATCH_COLUMN +
+                "SELECT " + getSelectedColumns() +
                         " FROM " + tableName +
-                        " WHERE batch_id = ? " +
+                        buildWhereClause(loadOrderRange) +
+                        (preFiltersCondition != null ? " AND " + preFiltersCondition : "") +
                         " ORDER BY " + LOAD_ORDER_COLUMN;
 
         return sql;
     }
 
-    String hash(String string) {
+    /**
+     * @return Comma-separated list of the columns read by {@link SubSnpCoreFieldsRowMapper}
+     */
+    static String getSelectedColumns() {
+        return SUBSNP_ID_COLUMN +
+                "," + SUBSNP_ORIENTATION_COLUMN +
+                "," + REFSNP_ID_COLUMN +
+                "," + SNP_ORIENTATION_COLUMN +
+                "," + CONTIG_NAME_COLUMN +
+                "," + CONTIG_START_COLUMN +
+                "," + CONTIG_END_COLUMN +
+                "," + CONTIG_ORIENTATION_COLUMN +
+                "," + LOC_TYPE_COLUMN +
+                "," + CHROMOSOME_COLUMN +
+                "," + CHROMOSOME_START_COLUMN +
+                "," + CHROMOSOME_END_COLUMN +
+                "," + REFERENCE_C +
+                "," + REFERENCE_T +
+                "," + ALTERNATE +
+                "," + ALLELES +
+                "," + HGVS_C_STRING +
+                "," + HGVS_C_START +
+                "," + HGVS_C_STOP +
+                "," + HGVS_C_ORIENTATION +
+                "," + HGVS_T_STRING +
+                "," + HGVS_T_START +
+                "," + HGVS_T_STOP +
+                "," + HGVS_T_ORIENTATION +
+                "," + GENOTYPES_COLUMN +
+                "," + FREQUENCIES_COLUMN +
+                "," + BATCH_COLUMN;
+    }
+
+    private static String buildWhereClause(boolean loadOrderRange) {
+        return " WHERE batch_id = ? " + (loadOrderRange ? " AND " + LOAD_ORDER_COLUMN + " BETWEEN ? AND ? " : "");
+    }
+
+    public static String getTableName(String assembly) {
+        return "dbsnp_variant_load_" + hash(assembly);
+    }
+
+    static String hash(String string) {
         return DigestUtils.md5DigestAsHex(string.getBytes());
     }
 
-    private PreparedStatementSetter buildPreparedStatementSetter(int batch) {
-        PreparedStatementSetter preparedStatementSetter = new ArgumentPreparedStatementSetter(
-                new Object[]{batch}
-        );
+    private PreparedStatementSetter buildPreparedStatementSetter() {
+        PreparedStatementSetter preparedStatementSetter = new ArgumentPreparedStatementSetter(arguments);
         return preparedStatementSetter;
     }
 }
@@ -87,60 +87,146 @@ public class SubSnpCoreFieldsRowMapper implements RowMapper<SubSnpCoreFields> {
 
     private ResultSet resultSet;
 
+    private ColumnIndices columnIndices;
+
     /**
      * Maps ResultSet to SubSnpCoreFields.
      *
-     * It makes getObject (instead of getInt or getString) for those that are nullable.
+     * The column indices are resolved only once for each ResultSet, and the nullable numeric columns are read with
+     * getLong and wasNull, so the values are only boxed when they are present.
      *
-     * The casts are safe because the DB types are integers. The types Long and BigDecimal are introduced by the query
-     * and it won't change the values more that +-1.
+     * The conversions are safe because the DB types are integers. The types Long and BigDecimal are introduced by the
+     * query and it won't change the values more that +-1.
      */
     @Override
     public SubSnpCoreFields mapRow(ResultSet resultSet, int rowNum) throws SQLException {
-        this.resultSet = resultSet;
+        if (this.resultSet != resultSet) {
+            this.resultSet = resultSet;
+            this.columnIndices = new ColumnIndices(resultSet);
+        }
+        ColumnIndices columns = columnIndices;
         return new SubSnpCoreFields(
-                resultSet.getLong(SUBSNP_ID_COLUMN),
-                Orientation.getOrientation(resultSet.getInt(SUBSNP_ORIENTATION_COLUMN)),
-                getAsLong(REFSNP_ID_COLUMN),
-                Orientation.getOrientation(resultSet.getInt(SNP_ORIENTATION_COLUMN)),
-                resultSet.getString(CONTIG_NAME_COLUMN),
-                resultSet.getLong(CONTIG_START_COLUMN),
-                resultSet.getLong(CONTIG_END_COLUMN),
-                Orientation.getOrientation(resultSet.getInt(CONTIG_ORIENTATION_COLUMN)),
-                LocusType.getLocusType(resultSet.getInt(LOC_TYPE_COLUMN)),
-                resultSet.getString(CHROMOSOME_COLUMN),
-                getAsLong(CHROMOSOME_START_COLUMN),
-                getAsLong(CHROMOSOME_END_COLUMN),
-                resultSet.getString(REFERENCE_C),
-                resultSet.getString(REFERENCE_T),
-                resultSet.getString(ALTERNATE),
-                resultSet.getString(ALLELES),
-                resultSet.getString(HGVS_C_STRING),
-                getAsLong(HGVS_C_START),
-                getAsLong(HGVS_C_STOP),
-                Orientation.getOrientation(resultSet.getInt(HGVS_C_ORIENTATION)),
-                resultSet.getString(HGVS_T_STRING),
-                getAsLong(HGVS_T_START),
-                getAsLong(HGVS_T_STOP),
-                Orientation.getOrientation(resultSet.getInt(HGVS_T_ORIENTATION)),
-                resultSet.getString(GENOTYPES_COLUMN),
-                resultSet.getString(FREQUENCIES_COLUMN),
-                resultSet.getString(BATCH_COLUMN));
+                resultSet.getLong(columns.subsnpId),
+                Orientation.getOrientation(resultSet.getInt(columns.subsnpOrientation)),
+                getAsLong(columns.refsnpId),
+                Orientation.getOrientation(resultSet.getInt(columns.snpOrientation)),
+                resultSet.getString(columns.contigName),
+                resultSet.getLong(columns.contigStart),
+                resultSet.getLong(columns.contigEnd),
+                Orientation.getOrientation(resultSet.getInt(columns.contigOrientation)),
+                LocusType.getLocusType(resultSet.getInt(columns.locType)),
+                resultSet.getString(columns.chromosome),
+                getAsLong(columns.chromosomeStart),
+                getAsLong(columns.chromosomeEnd),
+                resultSet.getString(columns.referenceC),
+                resultSet.getString(columns.referenceT),
+                resultSet.getString(columns.alternate),
+                resultSet.getString(columns.alleles),
+                resultSet.getString(columns.hgvsCString),
+                getAsLong(columns.hgvsCStart),
+                getAsLong(columns.hgvsCStop),
+                Orientation.getOrientation(resultSet.getInt(columns.hgvsCOrientation)),
+                resultSet.getString(columns.hgvsTString),
+                getAsLong(columns.hgvsTStart),
+                getAsLong(columns.hgvsTStop),
+                Orientation.getOrientation(resultSet.getInt(columns.hgvsTOrientation)),
+                resultSet.getString(columns.genotypes),
+                resultSet.getString(columns.frequencies),
+                resultSet.getString(columns.batch));
     }
 
-    private Long getAsLong(String column) throws SQLException {
-        Object object = resultSet.getObject(column);
-        if (object == null) {
-            return null;
-        } else {
-            if (object instanceof Number) {
-                return ((Number) object).longValue();
-            } else {
-                int columnIndex = resultSet.findColumn(column);
-                int columnType = resultSet.getMetaData().getColumnType(columnIndex);
-                throw new IllegalArgumentException("Can not convert column '" + column + "' of type " + columnType
-                                                           + " (see java.sql.Types) to Number.");
-            }
+    private Long getAsLong(int columnIndex) throws SQLException {
+        long value = resultSet.getLong(columnIndex);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Positions of the columns in a ResultSet, so they are not looked up by name for every row.
+     */
+    private static class ColumnIndices {
+
+        private final int subsnpId;
+
+        private final int subsnpOrientation;
+
+        private final int refsnpId;
+
+        private final int snpOrientation;
+
+        private final int contigName;
+
+        private final int contigStart;
+
+        private final int contigEnd;
+
+        private final int contigOrientation;
+
+        private final int locType;
+
+        private final int chromosome;
+
+        private final int chromosomeStart;
+
+        private final int chromosomeEnd;
+
+        private final int referenceC;
+
+        private final int referenceT;
+
+        private final int alternate;
+
+        private final int alleles;
+
+        private final int hgvsCString;
+
+        private final int hgvsCStart;
+
+        private final int hgvsCStop;
+
+        private final int hgvsCOrientation;
+
+        private final int hgvsTString;
+
+        private final int hgvsTStart;
+
+        private final int hgvsTStop;
+
+        private final int hgvsTOrientation;
+
+        private final int genotypes;
+
+        private final int frequencies;
+
+        private final int batch;
+
+        ColumnIndices(ResultSet resultSet) throws SQLException {
+            subsnpId = resultSet.findColumn(SUBSNP_ID_COLUMN);
+            subsnpOrientation = resultSet.findColumn(SUBSNP_ORIENTATION_COLUMN);
+            refsnpId = resultSet.findColumn(REFSNP_ID_COLUMN);
+            snpOrientation = resultSet.findColumn(SNP_ORIENTATION_COLUMN);
+            contigName = resultSet.findColumn(CONTIG_NAME_COLUMN);
+            contigStart = resultSet.findColumn(CONTIG_START_COLUMN);
+            contigEnd = resultSet.findColumn(CONTIG_END_COLUMN);
+            contigOrientation = resultSet.findColumn(CONTIG_ORIENTATION_COLUMN);
+            locType = resultSet.findColumn(LOC_TYPE_COLUMN);
+            chromosome = resultSet.findColumn(CHROMOSOME_COLUMN);
+            chromosomeStart = resultSet.findColumn(CHROMOSOME_START_COLUMN);
+            chromosomeEnd = resultSet.findColumn(CHROMOSOME_END_COLUMN);
+            referenceC = resultSet.findColumn(REFERENCE_C);
+            referenceT = resultSet.findColumn(REFERENCE_T);
+            alternate = resultSet.findColumn(ALTERNATE);
+            alleles = resultSet.findColumn(ALLELES);
+            hgvsCString = resultSet.findColumn(HGVS_C_STRING);
+            hgvsCStart = resultSet.findColumn(HGVS_C_START);
+            hgvsCStop = resultSet.findColumn(HGVS_C_STOP);
+            hgvsCOrientation = resultSet.findColumn(HGVS_C_ORIENTATION);
+            hgvsTString = resultSet.findColumn(HGVS_T_STRING);
+            hgvsTStart = resultSet.findColumn(HGVS_T_START);
+            hgvsTStop = resultSet.findColumn(HGVS_T_STOP);
+            hgvsTOrientation = resultSet.findColumn(HGVS_T_ORIENTATION);
+            genotypes = resultSet.findColumn(GENOTYPES_COLUMN);
+            frequencies = resultSet.findColumn(FREQUENCIES_COLUMN);
+            batch = resultSet.findColumn(BATCH_COLUMN);
         }
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
+
+import java.util.List;
+
+/**
+ * Counts the variants instead of writing them, to measure the reading and processing of a batch without touching the
+ * database. If a converter is provided, each variant is also converted to the {@link VariantMongo} document that
+ * {@link VariantUpsertMongoWriter} would send, and encoded to BSON, and the time spent and the size of the documents
+ * are recorded as the cost of encoding the variants in a real import.
+ */
+public class DiscardingVariantWriter implements ItemWriter<IVariant> {
+
+    public static final String VARIANTS_COUNTER = "dryRun.variants";
+
+    public static final String WRITES_COUNTER = "dryRun.writes";
+
+    public static final String BSON_BYTES_COUNTER = "dryRun.bsonBytes";
+
+    public static final String ENCODE_TIMER = "dryRun.encode";
+
+    private final ImportMetrics metrics;
+
+    private final MongoConverter converter;
+
+    private final DocumentCodec documentCodec;
+
+    /**
+     * @param converter Converter used to encode the variants, or null if they are only counted
+     */
+    public DiscardingVariantWriter(ImportMetrics metrics, MongoConverter converter) {
+        this.metrics = metrics;
+        this.converter = converter;
+        this.documentCodec = new DocumentCodec();
+    }
+
+    @Override
+    public void write(List<? extends IVariant> variants) {
+        metrics.increment(WRITES_COUNTER);
+        metrics.add(VARIANTS_COUNTER, variants.size());
+        if (converter == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (IVariant variant : variants) {
+            bytes += encode(variant);
+        }
+        metrics.recordTime(ENCODE_TIMER, System.nanoTime() - start);
+        metrics.add(BSON_BYTES_COUNTER, bytes);
+    }
+
+    private long encode(IVariant variant) {
+        Object document = converter.convertToMongoType(new VariantMongo(variant));
+        if (!(document instanceof Document)) {
+            throw new IllegalStateException("Variant " + variant + " was not converted to a BSON document");
+        }
+        return new RawBsonDocument((Document) document, documentCodec).getByteBuffer().remaining();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.IVariantSourceEntry;
+import uk.ac.ebi.eva.commons.core.models.VariantStatistics;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges the variants of a list that would be written to the same document, so it is upserted only once.
+ *
+ * Several subsnps of a dbSNP batch often describe the same variant, and each of them has a source entry for the same
+ * file and study. A variant can hold only one source entry per file and study, so two variants are merged only if their
+ * source entries are compatible: same alleles and format, and each of the samples data, attributes and statistics
+ * either equal or present in only one of them (e.g. a subsnp with genotypes and another one with frequencies).
+ * Variants that can't be merged are returned separately, as they were.
+ */
+public class DuplicateVariantMerger {
+
+    /**
+     * @return The merged variants, in the order of the first occurrence of each of them
+     */
+    public List<IVariant> merge(List<? extends IVariant> variants) {
+        Map<String, List<IVariant>> variantsById = new LinkedHashMap<>();
+        for (IVariant variant : variants) {
+            variantsById.computeIfAbsent(getId(variant), id -> new ArrayList<>()).add(variant);
+        }
+
+        List<IVariant> mergedVariants = new ArrayList<>(variants.size());
+        for (List<IVariant> sameVariants : variantsById.values()) {
+            if (sameVariants.size() == 1) {
+                mergedVariants.add(sameVariants.get(0));
+            } else {
+                mergedVariants.addAll(mergeSameVariants(sameVariants));
+            }
+        }
+        return mergedVariants;
+    }
+
+    private static String getId(IVariant variant) {
+        return variant.getChromosome() + "_" + variant.getStart() + "_" + variant.getReference() + "_" +
+                variant.getAlternate();
+    }
+
+    private List<IVariant> mergeSameVariants(List<IVariant> sameVariants) {
+        List<IVariant> mergedVariants = new ArrayList<>();
+        for (IVariant variant : sameVariants) {
+            boolean merged = false;
+            for (int i = 0; i < mergedVariants.size() && !merged; i++) {
+                IVariant mergedVariant = mergeVariants(mergedVariants.get(i), variant);
+                if (mergedVariant != null) {
+                    mergedVariants.set(i, mergedVariant);
+                    merged = true;
+                }
+            }
+            if (!merged) {
+                mergedVariants.add(variant);
+            }
+        }
+        return mergedVariants;
+    }
+
+    /**
+     * @return The merged variant, or null if the source entries are not compatible
+     */
+    private IVariant mergeVariants(IVariant first, IVariant second) {
+        Map<String, VariantSourceEntry> sourceEntries = new LinkedHashMap<>();
+        for (IVariantSourceEntry sourceEntry : first.getSourceEntries()) {
+            sourceEntries.put(getSourceEntryKey(sourceEntry), copy(sourceEntry));
+        }
+        for (IVariantSourceEntry sourceEntry : second.getSourceEntries()) {
+            String key = getSourceEntryKey(sourceEntry);
+            VariantSourceEntry existingEntry = sourceEntries.get(key);
+            if (existingEntry == null) {
+                sourceEntries.put(key, copy(sourceEntry));
+            } else {
+                VariantSourceEntry mergedEntry = mergeSourceEntries(existingEntry, sourceEntry);
+                if (mergedEntry == null) {
+                    return null;
+                }
+                sourceEntries.put(key, mergedEntry);
+            }
+        }
+
+        Variant merged = new Variant(first.getChromosome(), first.getStart(), first.getEnd(), first.getReference(),
+                                     first.getAlternate());
+        merged.setIds(union(first.getIds(), second.getIds()));
+        merged.setMainId(first.getMainId() != null ? first.getMainId() : second.getMainId());
+        merged.setDbsnpIds(union(first.getDbsnpIds(), second.getDbsnpIds()));
+        merged.addSourceEntries(sourceEntries.values());
+        return merged;
+    }
+
+    private static String getSourceEntryKey(IVariantSourceEntry sourceEntry) {
+        return sourceEntry.getStudyId() + "_" + sourceEntry.getFileId();
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = new LinkedHashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private static VariantSourceEntry copy(IVariantSourceEntry sourceEntry) {
+        return new VariantSourceEntry(sourceEntry.getFileId(), sourceEntry.getStudyId(),
+                                      sourceEntry.getSecondaryAlternates(), sourceEntry.getFormat(),
+                                      sourceEntry.getCohortStats(), sourceEntry.getAttributes(),
+                                      sourceEntry.getSamplesData());
+    }
+
+    private static VariantSourceEntry mergeSourceEntries(IVariantSourceEntry first, IVariantSourceEntry second) {
+        if (!Arrays.equals(first.getSecondaryAlternates(), second.getSecondaryAlternates())
+                || !Objects.equals(first.getFormat(), second.getFormat())) {
+            return null;
+        }
+
+        List<Map<String, String>> samplesData;
+        if (second.getSamplesData().isEmpty() || first.getSamplesData().equals(second.getSamplesData())) {
+            samplesData = first.getSamplesData();
+        } else if (first.getSamplesData().isEmpty()) {
+            samplesData = second.getSamplesData();
+        } else {
+            return null;
+        }
+
+        Map<String, String> attributes = mergeMaps(first.getAttributes(), second.getAttributes());
+        Map<String, VariantStatistics> cohortStats = mergeMaps(first.getCohortStats(), second.getCohortStats());
+        if (attributes == null || cohortStats == null) {
+            return null;
+        }
+        return new VariantSourceEntry(first.getFileId(), first.getStudyId(), first.getSecondaryAlternates(),
+                                      first.getFormat(), cohortStats, attributes, samplesData);
+    }
+
+    /**
+     * @return The union of both maps, or null if they have different values for the same key
+     */
+    private static <T> Map<String, T> mergeMaps(Map<String, T> first, Map<String, T> second) {
+        Map<String, T> merged = new HashMap<>(first);
+        for (Map.Entry<String, T> entry : second.entrySet()) {
+            T existingValue = merged.putIfAbsent(entry.getKey(), entry.getValue());
+            if (existingValue != null && !existingValue.equals(entry.getValue())) {
+                return null;
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the results of an AsyncItemProcessor like {@link AsyncItemWriter}, keeping the write and filter counts of the
+ * step as if the items had been processed synchronously.
+ *
+ * The chunk of an asynchronous step holds one future per item read, so the futures of filtered items (whose result is
+ * null) are counted as written by the step. After each committed chunk, those are moved from the write count to the
+ * filter count of the step execution, which is what deciders like SkipStepOnEmptyBatchDecider, the metrics summary and
+ * the aggregation of partitions read. The writer must be registered as a listener of the step.
+ */
+public class FilterCountingAsyncItemWriter<T> implements ItemStreamWriter<Future<T>>, ChunkListener {
+
+    private final AsyncItemWriter<T> asyncWriter;
+
+    private final ThreadLocal<Integer> filteredInChunk = ThreadLocal.withInitial(() -> 0);
+
+    public FilterCountingAsyncItemWriter(ItemWriter<T> delegate) {
+        asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(delegate);
+    }
+
+    @Override
+    public void write(List<? extends Future<T>> items) throws Exception {
+        asyncWriter.write(items);
+        // all the futures are done after being written
+        int filtered = 0;
+        for (Future<T> item : items) {
+            if (item.get() == null) {
+                filtered++;
+            }
+        }
+        filteredInChunk.set(filteredInChunk.get() + filtered);
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        filteredInChunk.remove();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        int filtered = filteredInChunk.get();
+        filteredInChunk.remove();
+        if (filtered > 0) {
+            StepExecution stepExecution = context.getStepContext().getStepExecution();
+            stepExecution.setWriteCount(stepExecution.getWriteCount() - filtered);
+            stepExecution.setFilterCount(stepExecution.getFilterCount() + filtered);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        filteredInChunk.remove();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        asyncWriter.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        asyncWriter.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        asyncWriter.close();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.springframework.batch.item.ItemWriter;
+
+import uk.ac.ebi.eva.commons.core.models.IVariantSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the variant sources built by a step until a later step of the same job execution writes them, so the samples
+ * of a batch can be read and assembled while the variants are imported, and written only if any variant was.
+ *
+ * The variant sources are kept in memory, so the step that builds them must be run again if the job is restarted.
+ */
+public class PendingVariantSources {
+
+    private final Map<Long, List<IVariantSource>> variantSources = new ConcurrentHashMap<>();
+
+    /**
+     * @return A writer that keeps the variant sources until {@link #write} or {@link #discard} are called with the
+     * same job execution ID
+     */
+    public ItemWriter<IVariantSource> getWriter(long jobExecutionId) {
+        return items -> variantSources.computeIfAbsent(jobExecutionId, id -> new ArrayList<>()).addAll(items);
+    }
+
+    /**
+     * Writes the variant sources kept for a job execution with the given writer, and forgets them
+     *
+     * @return Number of variant sources written
+     * @throws IllegalStateException if no variant source was kept for the job execution
+     */
+    public int write(long jobExecutionId, ItemWriter<IVariantSource> writer) throws Exception {
+        List<IVariantSource> pending = variantSources.remove(jobExecutionId);
+        if (pending == null) {
+            throw new IllegalStateException("No variant source was built in job execution " + jobExecutionId);
+        }
+        writer.write(pending);
+        return pending.size();
+    }
+
+    public void discard(long jobExecutionId) {
+        variantSources.remove(jobExecutionId);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.IVariantSourceEntry;
+import uk.ac.ebi.eva.commons.core.models.VariantStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the variants of a chunk with fewer and bounded Mongo bulk operations:
+ * <ul>
+ * <li>Variants with the same coordinates and alleles are merged before writing by a {@link DuplicateVariantMerger},
+ * so their document is upserted once per chunk.</li>
+ * <li>The merged variants are passed to the delegate writer in sub-lists whose estimated BSON size doesn't exceed
+ * maxBytesPerWrite, so chunks with many genotypes don't produce huge bulk operations. The delegate must write each
+ * sub-list when it receives it, like {@link VariantUpsertMongoWriter} does: writers that buffer the items until the
+ * chunk is committed (e.g. a {@link org.springframework.batch.item.data.MongoItemWriter}) join them again.</li>
+ * </ul>
+ * The time spent writing each chunk is logged.
+ */
+public class VariantBulkWriter implements ItemWriter<IVariant> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantBulkWriter.class);
+
+    private static final int VARIANT_OVERHEAD_BYTES = 256;
+
+    private static final int FIELD_OVERHEAD_BYTES = 8;
+
+    private static final int STATISTICS_BYTES = 256;
+
+    private final ItemWriter<IVariant> delegate;
+
+    private final DuplicateVariantMerger merger;
+
+    private final long maxBytesPerWrite;
+
+    public VariantBulkWriter(ItemWriter<IVariant> delegate, long maxBytesPerWrite) {
+        if (maxBytesPerWrite < 1) {
+            throw new IllegalArgumentException("The maximum size of a bulk write must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.merger = new DuplicateVariantMerger();
+        this.maxBytesPerWrite = maxBytesPerWrite;
+    }
+
+    @Override
+    public void write(List<? extends IVariant> variants) throws Exception {
+        long start = System.currentTimeMillis();
+        List<IVariant> mergedVariants = merger.merge(variants);
+
+        int bulkWrites = 0;
+        long totalBytes = 0;
+        List<IVariant> bulk = new ArrayList<>();
+        long bulkBytes = 0;
+        for (IVariant variant : mergedVariants) {
+            long variantBytes = estimateSize(variant);
+            if (!bulk.isEmpty() && bulkBytes + variantBytes > maxBytesPerWrite) {
+                delegate.write(bulk);
+                bulkWrites++;
+                bulk = new ArrayList<>();
+                bulkBytes = 0;
+            }
+            bulk.add(variant);
+            bulkBytes += variantBytes;
+            totalBytes += variantBytes;
+        }
+        if (!bulk.isEmpty()) {
+            delegate.write(bulk);
+            bulkWrites++;
+        }
+
+        logger.info("Written {} variants merged into {} documents in {} bulk writes (~{} bytes) in {} ms",
+                    variants.size(), mergedVariants.size(), bulkWrites, totalBytes,
+                    System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rough size of the BSON document of a variant, counting the strings it contains
+     */
+    public static long estimateSize(IVariant variant) {
+        long size = VARIANT_OVERHEAD_BYTES + variant.getReference().length() + variant.getAlternate().length();
+        for (String id : variant.getIds()) {
+            size += id.length() + FIELD_OVERHEAD_BYTES;
+        }
+        for (String id : variant.getDbsnpIds()) {
+            size += id.length() + FIELD_OVERHEAD_BYTES;
+        }
+        for (IVariantSourceEntry sourceEntry : variant.getSourceEntries()) {
+            size += sizeOf(sourceEntry.getAttributes());
+            for (Map<String, String> sampleData : sourceEntry.getSamplesData()) {
+                size += sizeOf(sampleData);
+            }
+            Map<String, VariantStatistics> cohortStats = sourceEntry.getCohortStats();
+            size += (long) cohortStats.size() * STATISTICS_BYTES;
+        }
+        return size;
+    }
+
+    private static long sizeOf(Map<String, String> map) {
+        long size = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            size += entry.getKey().length() + (entry.getValue() == null ? 0 : entry.getValue().length())
+                    + FIELD_OVERHEAD_BYTES;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Upserts each list of variants it receives with a single unordered bulkWrite on the variants collection, as soon as
+ * write is called, so a {@link VariantBulkWriter} in front of it controls the size of every bulk operation. The write
+ * concern is the one of the collection passed in.
+ *
+ * The documents are those of {@link VariantMongo}: the ids, files and statistics of a variant are added to the sets
+ * of an existing document, and the rest of the fields are only set when the document is inserted.
+ *
+ * Two workers of a partitioned step may upsert the same new variant at the same time, in which case the server inserts
+ * only one of them and fails the other with a duplicate key error. MongoDB 4.2 retries those upserts itself, but older
+ * servers don't, so the upserts that failed with a duplicate key are retried here, and they update the document
+ * inserted by the other worker.
+ */
+public class VariantUpsertMongoWriter implements ItemWriter<IVariant> {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantUpsertMongoWriter.class);
+
+    private static final String ID_FIELD = "_id";
+
+    static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
+    static final int MAX_DUPLICATE_KEY_RETRIES = 3;
+
+    private static final List<String> SET_FIELDS = Arrays.asList(VariantMongo.IDS_FIELD, VariantMongo.DBSNP_IDS_FIELD,
+                                                                 VariantMongo.FILES_FIELD, VariantMongo.STATS_FIELD);
+
+    private final MongoCollection<Document> collection;
+
+    private final MongoConverter converter;
+
+    public VariantUpsertMongoWriter(MongoCollection<Document> collection, MongoConverter converter) {
+        this.collection = collection;
+        this.converter = converter;
+    }
+
+    @Override
+    public void write(List<? extends IVariant> variants) {
+        if (variants.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> upserts = new ArrayList<>(variants.size());
+        UpdateOptions upsert = new UpdateOptions().upsert(true);
+        for (IVariant variant : variants) {
+            Document document = (Document) converter.convertToMongoType(new VariantMongo(variant));
+
+            // the chromosome and start are only needed as shard keys
+            Document filter = new Document(ID_FIELD, document.remove(ID_FIELD))
+                    .append(VariantMongo.CHROMOSOME_FIELD, document.get(VariantMongo.CHROMOSOME_FIELD))
+                    .append(VariantMongo.START_FIELD, document.get(VariantMongo.START_FIELD));
+            upserts.add(new UpdateOneModel<>(filter, buildUpdate(document), upsert));
+        }
+        bulkWrite(upserts);
+    }
+
+    private void bulkWrite(List<WriteModel<Document>> upserts) {
+        for (int retries = 0; ; retries++) {
+            try {
+                BulkWriteResult result = collection.bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+                logger.debug("Bulk write of {} variants: {} inserted, {} modified", upserts.size(),
+                             result.getUpserts().size(), result.getModifiedCount());
+                return;
+            } catch (MongoBulkWriteException e) {
+                if (retries == MAX_DUPLICATE_KEY_RETRIES || e.getWriteConcernError() != null) {
+                    throw e;
+                }
+                // the write is unordered, so all the other upserts were applied
+                List<WriteModel<Document>> duplicatedUpserts = new ArrayList<>();
+                for (BulkWriteError error : e.getWriteErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+                        throw e;
+                    }
+                    duplicatedUpserts.add(upserts.get(error.getIndex()));
+                }
+                logger.debug("Retrying {} upserts that failed with a duplicate key", duplicatedUpserts.size());
+                upserts = duplicatedUpserts;
+            }
+        }
+    }
+
+    private Document buildUpdate(Document document) {
+        Document addToSet = new Document();
+        for (String field : SET_FIELDS) {
+            Object values = document.remove(field);
+            if (values instanceof List && !((List) values).isEmpty()) {
+                addToSet.append(field, new Document("$each", values));
+            }
+        }
+        Document update = new Document("$setOnInsert", document);
+        if (!addToSet.isEmpty()) {
+            update.append("$addToSet", addToSet);
+        }
+        return update;
+    }
+}
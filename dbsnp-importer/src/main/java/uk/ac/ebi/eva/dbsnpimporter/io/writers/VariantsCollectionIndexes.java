@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.commons.mongodb.entities.subdocuments.VariantSourceEntryMongo;
+
+/**
+ * Creates the indexes of a variants collection that the EVA web services query, the same ones created by the
+ * VariantMongoWriter of eva-commons. The indexes are built in the background, and creating an index that already
+ * exists does nothing.
+ */
+public class VariantsCollectionIndexes {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantsCollectionIndexes.class);
+
+    private final MongoOperations mongoOperations;
+
+    private final String collection;
+
+    public VariantsCollectionIndexes(MongoOperations mongoOperations, String collection) {
+        this.mongoOperations = mongoOperations;
+        this.collection = collection;
+    }
+
+    public void ensureIndexes() {
+        logger.debug("Creating the indexes of collection {}", collection);
+        IndexOperations indexOperations = mongoOperations.indexOps(collection);
+        indexOperations.ensureIndex(new Index().on(VariantMongo.CHROMOSOME_FIELD, Sort.Direction.ASC)
+                                               .on(VariantMongo.START_FIELD, Sort.Direction.ASC)
+                                               .on(VariantMongo.END_FIELD, Sort.Direction.ASC)
+                                               .background());
+        indexOperations.ensureIndex(new Index().on(VariantMongo.IDS_FIELD, Sort.Direction.ASC).background());
+        indexOperations.ensureIndex(
+                new Index().on(VariantMongo.FILES_FIELD + "." + VariantSourceEntryMongo.STUDYID_FIELD,
+                               Sort.Direction.ASC)
+                           .on(VariantMongo.FILES_FIELD + "." + VariantSourceEntryMongo.FILEID_FIELD,
+                               Sort.Direction.ASC)
+                           .background());
+    }
+}
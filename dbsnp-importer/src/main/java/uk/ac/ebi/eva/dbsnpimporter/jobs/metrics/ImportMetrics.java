@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.metrics;
+
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the import, kept separately for each job execution so several batches can be imported at
+ * the same time. The job execution is taken from the step that is running in the current thread (Spring Batch also
+ * registers it in the threads of an AsyncItemProcessor), and measures taken outside a step are ignored.
+ *
+ * All the methods can be called concurrently.
+ */
+public class ImportMetrics {
+
+    private final ConcurrentMap<Long, JobMetrics> jobMetrics = new ConcurrentHashMap<>();
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long amount) {
+        JobMetrics metrics = getCurrentJobMetrics();
+        if (metrics != null) {
+            metrics.getCounter(counter).add(amount);
+        }
+    }
+
+    public void recordTime(String timer, long nanoseconds) {
+        JobMetrics metrics = getCurrentJobMetrics();
+        if (metrics != null) {
+            metrics.getTimer(timer).record(nanoseconds);
+        }
+    }
+
+    private JobMetrics getCurrentJobMetrics() {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        if (stepContext == null) {
+            return null;
+        }
+        return jobMetrics.computeIfAbsent(stepContext.getStepExecution().getJobExecutionId(), id -> new JobMetrics());
+    }
+
+    /**
+     * Returns and forgets the metrics of a job execution
+     *
+     * @return The metrics, empty if nothing was measured
+     */
+    public JobMetrics remove(long jobExecutionId) {
+        JobMetrics metrics = jobMetrics.remove(jobExecutionId);
+        return metrics != null ? metrics : new JobMetrics();
+    }
+
+    public static class JobMetrics {
+
+        private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+        private LongAdder getCounter(String counter) {
+            return counters.computeIfAbsent(counter, name -> new LongAdder());
+        }
+
+        private Timer getTimer(String timer) {
+            return timers.computeIfAbsent(timer, name -> new Timer());
+        }
+
+        public long getCount(String counter) {
+            LongAdder count = counters.get(counter);
+            return count != null ? count.sum() : 0;
+        }
+
+        /**
+         * @return Counters sorted by name
+         */
+        public Map<String, Long> getCounters() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            counters.forEach((name, count) -> snapshot.put(name, count.sum()));
+            return snapshot;
+        }
+
+        /**
+         * @return Timers sorted by name
+         */
+        public Map<String, Timer> getTimers() {
+            return new TreeMap<>(timers);
+        }
+    }
+
+    public static class Timer {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanoseconds = new LongAdder();
+
+        private void record(long nanoseconds) {
+            count.increment();
+            totalNanoseconds.add(nanoseconds);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMilliseconds() {
+            return totalNanoseconds.sum() / 1e6;
+        }
+
+        public double getMeanMilliseconds() {
+            long measures = count.sum();
+            return measures > 0 ? getTotalMilliseconds() / measures : 0;
+        }
+    }
+}
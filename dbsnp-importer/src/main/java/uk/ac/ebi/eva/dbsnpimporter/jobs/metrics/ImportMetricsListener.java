@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.listener.StepListenerSupport;
+import org.springframework.batch.core.scope.context.ChunkContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the time spent reading, processing and writing each chunk of a step, and at the end of the job logs the
+ * throughput of each step with the counters and timers collected in {@link ImportMetrics}, optionally writing them
+ * to a JSON file too. The times are measured per thread, so the listener can be shared by partitioned steps.
+ *
+ * When the items are processed by an AsyncItemProcessor the process timer only measures the submission of the items,
+ * and the time spent by each processor is measured by {@link MeasuredItemProcessor}.
+ */
+public class ImportMetricsListener extends StepListenerSupport<Object, Object> implements JobExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportMetricsListener.class);
+
+    public static final String CHUNK_TIMER = "chunk";
+
+    public static final String READ_TIMER = "read";
+
+    public static final String PROCESS_TIMER = "process";
+
+    public static final String WRITE_TIMER = "write";
+
+    public static final String METRICS_FILE_PREFIX = "metrics-";
+
+    public static final String METRICS_FILE_EXTENSION = ".json";
+
+    private final ImportMetrics metrics;
+
+    private final Path metricsDirectory;
+
+    private final ThreadLocal<Long> chunkStart = new ThreadLocal<>();
+
+    private final ThreadLocal<Long> readStart = new ThreadLocal<>();
+
+    private final ThreadLocal<Long> processStart = new ThreadLocal<>();
+
+    private final ThreadLocal<Long> writeStart = new ThreadLocal<>();
+
+    /**
+     * @param metricsDirectory Directory where a JSON summary of each job execution is written, or null to only log it
+     */
+    public ImportMetricsListener(ImportMetrics metrics, Path metricsDirectory) {
+        this.metrics = metrics;
+        this.metricsDirectory = metricsDirectory;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        recordTime(CHUNK_TIMER, chunkStart);
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        chunkStart.remove();
+    }
+
+    @Override
+    public void beforeRead() {
+        readStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterRead(Object item) {
+        recordTime(READ_TIMER, readStart);
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        readStart.remove();
+    }
+
+    @Override
+    public void beforeProcess(Object item) {
+        processStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterProcess(Object item, Object result) {
+        recordTime(PROCESS_TIMER, processStart);
+    }
+
+    @Override
+    public void onProcessError(Object item, Exception e) {
+        processStart.remove();
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        writeStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+        recordTime(WRITE_TIMER, writeStart);
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+        writeStart.remove();
+    }
+
+    private void recordTime(String timer, ThreadLocal<Long> start) {
+        Long startTime = start.get();
+        if (startTime != null) {
+            metrics.recordTime(timer, System.nanoTime() - startTime);
+            start.remove();
+        }
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        ImportMetrics.JobMetrics jobMetrics = metrics.remove(jobExecution.getId());
+        Map<String, Object> summary = buildSummary(jobExecution, jobMetrics);
+
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            logger.info("{}: {} items read in {} seconds, {} items per second", stepExecution.getStepName(),
+                        stepExecution.getReadCount(), String.format("%.1f", getSeconds(stepExecution)),
+                        String.format("%.1f", getItemsPerSecond(stepExecution)));
+        }
+        logger.info("Job execution {} counters: {}", jobExecution.getId(), jobMetrics.getCounters());
+        jobMetrics.getTimers().forEach((name, timer) -> logger.info(
+                "Job execution {} timer {}: {} measures, {} ms in total", jobExecution.getId(), name,
+                timer.getCount(), String.format("%.1f", timer.getTotalMilliseconds())));
+
+        if (metricsDirectory != null) {
+            writeSummary(jobExecution, summary);
+        }
+    }
+
+    private Map<String, Object> buildSummary(JobExecution jobExecution, ImportMetrics.JobMetrics jobMetrics) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("jobName", jobExecution.getJobInstance().getJobName());
+        summary.put("jobExecutionId", jobExecution.getId());
+        summary.put("jobParameters", jobExecution.getJobParameters().toProperties());
+        summary.put("status", jobExecution.getStatus().toString());
+        summary.put("seconds", getSeconds(jobExecution.getStartTime(), jobExecution.getEndTime()));
+
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            Map<String, Object> step = new LinkedHashMap<>();
+            step.put("name", stepExecution.getStepName());
+            step.put("status", stepExecution.getStatus().toString());
+            step.put("readCount", stepExecution.getReadCount());
+            step.put("filterCount", stepExecution.getFilterCount());
+            step.put("writeCount", stepExecution.getWriteCount());
+            step.put("seconds", getSeconds(stepExecution));
+            step.put("itemsPerSecond", getItemsPerSecond(stepExecution));
+            steps.add(step);
+        }
+        summary.put("steps", steps);
+        summary.put("counters", jobMetrics.getCounters());
+        summary.put("timers", jobMetrics.getTimers());
+        return summary;
+    }
+
+    private void writeSummary(JobExecution jobExecution, Map<String, Object> summary) {
+        Path metricsFile = metricsDirectory.resolve(METRICS_FILE_PREFIX + jobExecution.getId() +
+                                                            METRICS_FILE_EXTENSION);
+        try {
+            Files.createDirectories(metricsDirectory);
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(metricsFile.toFile(), summary);
+            logger.info("Metrics of job execution {} written to {}", jobExecution.getId(), metricsFile);
+        } catch (IOException e) {
+            // the import itself has finished, so the job is not failed because of the metrics
+            logger.error("Metrics of job execution " + jobExecution.getId() + " could not be written to " +
+                                 metricsFile, e);
+        }
+    }
+
+    private static double getItemsPerSecond(StepExecution stepExecution) {
+        double seconds = getSeconds(stepExecution);
+        return seconds > 0 ? stepExecution.getReadCount() / seconds : 0;
+    }
+
+    private static double getSeconds(StepExecution stepExecution) {
+        return getSeconds(stepExecution.getStartTime(), stepExecution.getEndTime());
+    }
+
+    private static double getSeconds(Date start, Date end) {
+        if (start == null) {
+            return 0;
+        }
+        long endTime = end != null ? end.getTime() : System.currentTimeMillis();
+        return (endTime - start.getTime()) / 1000.0;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.metrics;
+
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * Measures the time spent by a processor of the chain, and counts the items it filters out and the items it replaces
+ * with a different object (e.g. variants renormalized by {@link
+ * uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.RenormalizationProcessor})
+ *
+ * @param <I> Type of the items processed
+ * @param <O> Type of the items returned
+ */
+public class MeasuredItemProcessor<I, O> implements ItemProcessor<I, O> {
+
+    public static final String PROCESS_TIMER_PREFIX = "process.";
+
+    public static final String FILTERED_COUNTER_PREFIX = "filtered.";
+
+    public static final String MODIFIED_COUNTER_PREFIX = "modified.";
+
+    private final ItemProcessor<I, O> delegate;
+
+    private final ImportMetrics metrics;
+
+    private final String timerName;
+
+    private final String filteredCounterName;
+
+    private final String modifiedCounterName;
+
+    public MeasuredItemProcessor(ItemProcessor<I, O> delegate, ImportMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        String name = delegate.getClass().getSimpleName();
+        this.timerName = PROCESS_TIMER_PREFIX + name;
+        this.filteredCounterName = FILTERED_COUNTER_PREFIX + name;
+        this.modifiedCounterName = MODIFIED_COUNTER_PREFIX + name;
+    }
+
+    @Override
+    public O process(I item) throws Exception {
+        long start = System.nanoTime();
+        O processed = delegate.process(item);
+        metrics.recordTime(timerName, System.nanoTime() - start);
+        if (processed == null) {
+            metrics.increment(filteredCounterName);
+        } else if (processed != item && item.getClass().equals(processed.getClass())) {
+            metrics.increment(modifiedCounterName);
+        }
+        return processed;
+    }
+}
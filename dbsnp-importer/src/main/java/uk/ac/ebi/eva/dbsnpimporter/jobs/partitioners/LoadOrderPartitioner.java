@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.LOAD_ORDER_COLUMN;
+
+/**
+ * Splits the rows of a dbSNP batch in ranges of load_order of similar width, so each partition can be read by a
+ * different {@link SubSnpCoreFieldsReader}. The ranges are stored in the execution context of each partition with the
+ * keys {@link #MIN_LOAD_ORDER_KEY} and {@link #MAX_LOAD_ORDER_KEY}, so restarting a failed partition reads the same
+ * rows.
+ */
+public class LoadOrderPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadOrderPartitioner.class);
+
+    public static final String MIN_LOAD_ORDER_KEY = "minLoadOrder";
+
+    public static final String MAX_LOAD_ORDER_KEY = "maxLoadOrder";
+
+    public static final String PARTITION_PREFIX = "partition";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int batch;
+
+    private final String assembly;
+
+    public LoadOrderPartitioner(DataSource dataSource, int batch, String assembly) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.batch = batch;
+        this.assembly = assembly;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        if (gridSize < 1) {
+            throw new IllegalArgumentException("The number of partitions must be greater than zero");
+        }
+        String sql = "SELECT MIN(" + LOAD_ORDER_COLUMN + ") AS min_load_order, MAX(" + LOAD_ORDER_COLUMN + ") AS " +
+                "max_load_order FROM " + SubSnpCoreFieldsReader.getTableName(assembly) + " WHERE batch_id = ?";
+        long[] range = jdbcTemplate.queryForObject(sql, new Object[]{batch}, (resultSet, rowNumber) -> {
+            long min = resultSet.getLong("min_load_order");
+            return resultSet.wasNull() ? null : new long[]{min, resultSet.getLong("max_load_order")};
+        });
+
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        if (range == null) {
+            // empty batch: a single partition that will read nothing, so the step completes normally
+            partitions.put(PARTITION_PREFIX + 0, buildExecutionContext(0, 0));
+            return partitions;
+        }
+
+        long minLoadOrder = range[0];
+        long maxLoadOrder = range[1];
+        long partitionWidth = Math.max(1, (maxLoadOrder - minLoadOrder + gridSize) / gridSize);
+        long start = minLoadOrder;
+        for (int i = 0; start <= maxLoadOrder; i++) {
+            long end = Math.min(start + partitionWidth - 1, maxLoadOrder);
+            partitions.put(PARTITION_PREFIX + i, buildExecutionContext(start, end));
+            start = end + 1;
+        }
+        logger.info("Batch {} split in {} partitions of load_order between {} and {}", batch, partitions.size(),
+                    minLoadOrder, maxLoadOrder);
+        return partitions;
+    }
+
+    private ExecutionContext buildExecutionContext(long minLoadOrder, long maxLoadOrder) {
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.putLong(MIN_LOAD_ORDER_KEY, minLoadOrder);
+        executionContext.putLong(MAX_LOAD_ORDER_KEY, maxLoadOrder);
+        return executionContext;
+    }
+}
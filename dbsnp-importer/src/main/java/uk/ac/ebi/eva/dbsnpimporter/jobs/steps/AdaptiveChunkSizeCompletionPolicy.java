@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.steps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.VariantBulkWriter;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Completes chunks after a number of items that is adjusted after each chunk, so that chunks take about
+ * targetChunkMilliseconds to be read, processed and written, and the variants written in each chunk are estimated to
+ * take no more than targetChunkBytes. Batches with thousands of genotypes per variant end up with small chunks, and
+ * sites-only batches with large ones.
+ *
+ * After each complete chunk, the number of items that would have met both targets is estimated from the time and size
+ * per item of that chunk, and the chunk size moves halfway towards it, growing at most to double each time. The last
+ * chunk of a step, which is usually smaller, is not taken into account.
+ *
+ * The policy must be registered as a listener of the step. The chunk size is kept in the execution context of each
+ * step execution, so the workers of a partitioned step and the batches imported concurrently adjust their own size,
+ * and a restarted step resumes with the size it had reached. Outside of a step the initial chunk size is used and
+ * never adjusted. When the items written are not variants (e.g. the futures of an AsyncItemProcessor) only the time
+ * target is used.
+ */
+public class AdaptiveChunkSizeCompletionPolicy extends CompletionPolicySupport
+        implements ChunkListener, ItemWriteListener<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveChunkSizeCompletionPolicy.class);
+
+    private static final int MIN_CHUNK_SIZE = 1;
+
+    static final String CHUNK_SIZE_KEY = AdaptiveChunkSizeCompletionPolicy.class.getSimpleName() + ".chunkSize";
+
+    private final int maxChunkSize;
+
+    private final long targetChunkNanoseconds;
+
+    private final long targetChunkBytes;
+
+    private final LongSupplier nanoTime;
+
+    private final ThreadLocal<ChunkMeasures> currentChunk = new ThreadLocal<>();
+
+    private final int initialChunkSize;
+
+    public AdaptiveChunkSizeCompletionPolicy(int initialChunkSize, int maxChunkSize, long targetChunkMilliseconds,
+                                             long targetChunkBytes) {
+        this(initialChunkSize, maxChunkSize, targetChunkMilliseconds, targetChunkBytes, System::nanoTime);
+    }
+
+    AdaptiveChunkSizeCompletionPolicy(int initialChunkSize, int maxChunkSize, long targetChunkMilliseconds,
+                                      long targetChunkBytes, LongSupplier nanoTime) {
+        if (initialChunkSize < MIN_CHUNK_SIZE || maxChunkSize < initialChunkSize) {
+            throw new IllegalArgumentException("The initial chunk size must be between " + MIN_CHUNK_SIZE +
+                                                       " and the maximum chunk size");
+        }
+        if (targetChunkMilliseconds < 1 || targetChunkBytes < 1) {
+            throw new IllegalArgumentException("The target duration and size of a chunk must be greater than zero");
+        }
+        this.initialChunkSize = initialChunkSize;
+        this.maxChunkSize = maxChunkSize;
+        this.targetChunkNanoseconds = targetChunkMilliseconds * 1000000;
+        this.targetChunkBytes = targetChunkBytes;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Returns the size that the next chunk of the step execution will have
+     */
+    public int getChunkSize(StepExecution stepExecution) {
+        return stepExecution.getExecutionContext().getInt(CHUNK_SIZE_KEY, initialChunkSize);
+    }
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        StepExecution stepExecution = stepContext == null ? null : stepContext.getStepExecution();
+        int size = stepExecution == null ? initialChunkSize : getChunkSize(stepExecution);
+        ChunkSizeContext context = new ChunkSizeContext(parent, size);
+        ChunkMeasures measures = currentChunk.get();
+        if (measures != null) {
+            measures.context = context;
+            measures.stepExecution = stepExecution;
+        }
+        return context;
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((ChunkSizeContext) context).size;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        currentChunk.set(new ChunkMeasures(nanoTime.getAsLong()));
+    }
+
+    @Override
+    public void beforeWrite(List<?> items) {
+        ChunkMeasures measures = currentChunk.get();
+        if (measures == null || items.isEmpty() || !(items.get(0) instanceof IVariant)) {
+            return;
+        }
+        for (Object item : items) {
+            measures.bytes += VariantBulkWriter.estimateSize((IVariant) item);
+        }
+        measures.itemsWritten += items.size();
+    }
+
+    @Override
+    public void afterWrite(List<?> items) {
+    }
+
+    @Override
+    public void onWriteError(Exception exception, List<?> items) {
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkMeasures measures = currentChunk.get();
+        currentChunk.remove();
+        if (measures == null || measures.context == null || measures.stepExecution == null) {
+            return;
+        }
+        int itemsRead = measures.context.getStartedCount();
+        if (itemsRead < measures.context.size) {
+            return;
+        }
+        long nanoseconds = Math.max(1, nanoTime.getAsLong() - measures.startTime);
+        double targetItems = (double) targetChunkNanoseconds * itemsRead / nanoseconds;
+        if (measures.bytes > 0) {
+            targetItems = Math.min(targetItems, (double) targetChunkBytes * measures.itemsWritten / measures.bytes);
+        }
+        adjustChunkSize(measures.stepExecution, measures.context.size, targetItems);
+    }
+
+    private void adjustChunkSize(StepExecution stepExecution, int previousChunkSize, double targetItems) {
+        long newChunkSize = Math.round((previousChunkSize + Math.min(targetItems, 2.0 * previousChunkSize)) / 2);
+        newChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(maxChunkSize, newChunkSize));
+        if (newChunkSize != previousChunkSize) {
+            logger.debug("Chunk size of {} changed from {} to {}", stepExecution.getStepName(), previousChunkSize,
+                         newChunkSize);
+            stepExecution.getExecutionContext().putInt(CHUNK_SIZE_KEY, (int) newChunkSize);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        currentChunk.remove();
+    }
+
+    private static class ChunkSizeContext extends RepeatContextSupport {
+
+        private final int size;
+
+        ChunkSizeContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+
+    private static class ChunkMeasures {
+
+        private final long startTime;
+
+        private ChunkSizeContext context;
+
+        private StepExecution stepExecution;
+
+        private long bytes;
+
+        private long itemsWritten;
+
+        ChunkMeasures(long startTime) {
+            this.startTime = startTime;
+        }
+    }
+}
@@ -54,14 +54,7 @@ public class DbsnpBatchToVariantSourceProcessor implements ItemProcessor<DbsnpBa
 
     @Override
     public IVariantSource process(DbsnpBatch dbsnpBatch) throws Exception {
-        List<Sample> samples = dbsnpBatch.getSamples();
-        if (areSamplesFromMultipleBatches(samples)) {
-            throw new IllegalArgumentException("Samples must belong to a single batch");
-        }
-
-        if (isSampleDuplicated(samples)) {
-            throw new IllegalArgumentException("The batch contains duplicate samples");
-        }
+        Map<String, Integer> samplesPosition = getSamplesPosition(dbsnpBatch.getSamples());
 
         // Study ID, file ID, study name, file name
         String handle = dbsnpBatch.getHandle();
@@ -71,8 +64,6 @@ public class DbsnpBatchToVariantSourceProcessor implements ItemProcessor<DbsnpBa
         String fileId = batchName;
         String fileName = handle.toUpperCase() + DBSNP_BATCH_HANDLE_NAME_SEPARATOR + batchName;
 
-        Map<String, Integer> samplesPosition = getSamplesPosition(samples);
-
         Map<String, Object> metadata = getMetadata();
 
         // Build any kind of IVariantSource
@@ -80,38 +71,30 @@ public class DbsnpBatchToVariantSourceProcessor implements ItemProcessor<DbsnpBa
                                  new Date(), samplesPosition, metadata, null);
     }
 
-    private boolean areSamplesFromMultipleBatches(List<Sample> samples) {
-        String batchName = null;
-
-        for (Sample s : samples) {
-            if (batchName == null) {
-                batchName = s.getBatch();
-            } else {
-                if (!batchName.equals(s.getBatch())) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-    private boolean isSampleDuplicated(List<Sample> samples) {
-        Set<Sample> sampleSet = new HashSet<>(samples);
-        return sampleSet.size() < samples.size();
-    }
-
     /**
-     * Builds a mapping of samples to their position in a batch. The positions follow the order provided by the list.
+     * Builds a mapping of samples to their position in a batch, checking in the same pass that all the samples belong
+     * to a single batch and that none is duplicated. The positions follow the order provided by the list.
      *
      * @param samples Samples in a batch
      * @return Mapping from samples to positions
      */
     private Map<String, Integer> getSamplesPosition(List<Sample> samples) {
-        Map<String, Integer> samplePositions = new HashMap<>();
-        for (int i = 0; i < samples.size(); i++) {
-            Sample sample = samples.get(i);
-            samplePositions.put(sample.getName(), i);
+        Map<String, Integer> samplePositions = new HashMap<>((int) (samples.size() / 0.75f) + 1);
+        Set<Sample> uniqueSamples = new HashSet<>((int) (samples.size() / 0.75f) + 1);
+        String batchName = null;
+        int position = 0;
+        for (Sample sample : samples) {
+            if (batchName == null) {
+                batchName = sample.getBatch();
+            } else if (!batchName.equals(sample.getBatch())) {
+                throw new IllegalArgumentException("Samples must belong to a single batch");
+            }
+
+            if (!uniqueSamples.add(sample)) {
+                throw new IllegalArgumentException("The batch contains duplicate samples");
+            }
+            samplePositions.put(sample.getName(), position);
+            position++;
         }
 
         return samplePositions;
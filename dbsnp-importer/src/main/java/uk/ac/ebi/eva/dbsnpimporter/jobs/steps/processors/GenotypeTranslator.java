@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors;
+
+import uk.ac.ebi.eva.dbsnpimporter.models.Orientation;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates the comma-separated genotypes of a subsnp (e.g. "A/T,T/T") into the sample data of a variant, where each
+ * allele is replaced by its index: 0 for the reference, 1 for the alternate and 2 onwards for the secondary alternates.
+ * Alleles not found are translated as -1.
+ *
+ * A batch usually has a few distinct genotypes repeated for many samples, so the index of each allele and the sample
+ * data of each genotype are computed once per subsnp, and the same (immutable) sample data is shared by all the
+ * samples with the same genotype.
+ */
+class GenotypeTranslator {
+
+    static final String GENOTYPE_KEY = "GT";
+
+    private static final String VALID_GENOTYPE_CHARACTERS = ",./|ATCGN -";
+
+    private final String reference;
+
+    private final String alternate;
+
+    private final String[] secondaryAlternates;
+
+    private final Orientation orientation;
+
+    private final Map<String, String> alleleIndices;
+
+    private final Map<String, Map<String, String>> samplesDataByGenotype;
+
+    GenotypeTranslator(String reference, String alternate, String[] secondaryAlternates, Orientation orientation) {
+        this.reference = reference;
+        this.alternate = alternate;
+        this.secondaryAlternates = secondaryAlternates;
+        this.orientation = orientation;
+        this.alleleIndices = new HashMap<>();
+        this.samplesDataByGenotype = new HashMap<>();
+    }
+
+    /**
+     * @return False if the genotypes contain any character other than bases (A, C, G, T, N), allele and genotype
+     * separators, dashes, dots and spaces
+     */
+    static boolean areValid(String genotypes) {
+        for (int i = 0; i < genotypes.length(); i++) {
+            if (VALID_GENOTYPE_CHARACTERS.indexOf(genotypes.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<Map<String, String>> translate(String genotypes) {
+        List<Map<String, String>> samplesData = new ArrayList<>();
+        int genotypeStart = 0;
+        int genotypeEnd;
+        do {
+            genotypeEnd = genotypes.indexOf(',', genotypeStart);
+            if (genotypeEnd < 0) {
+                genotypeEnd = genotypes.length();
+            }
+            String genotype = genotypes.substring(genotypeStart, genotypeEnd);
+            samplesData.add(samplesDataByGenotype.computeIfAbsent(genotype, this::translateGenotype));
+            genotypeStart = genotypeEnd + 1;
+        } while (genotypeEnd < genotypes.length());
+        return samplesData;
+    }
+
+    private Map<String, String> translateGenotype(String genotype) {
+        char alleleDelimiter = genotype.indexOf('|') >= 0 ? '|' : '/';
+        StringBuilder genotypeCode = new StringBuilder();
+        int alleleStart = 0;
+        for (int i = 0; i <= genotype.length(); i++) {
+            if (i == genotype.length() || genotype.charAt(i) == '/' || genotype.charAt(i) == '|') {
+                if (alleleStart > 0) {
+                    genotypeCode.append(alleleDelimiter);
+                }
+                genotypeCode.append(alleleIndices.computeIfAbsent(genotype.substring(alleleStart, i),
+                                                                  this::getAlleleIndex));
+                alleleStart = i + 1;
+            }
+        }
+        return Collections.singletonMap(GENOTYPE_KEY, genotypeCode.toString());
+    }
+
+    private String getAlleleIndex(String allele) {
+        String normalizedAllele = SubSnpCoreFields.getNormalizedAllele(allele, orientation);
+        if (normalizedAllele.equals(reference)) {
+            return "0";
+        } else if (normalizedAllele.equals(alternate)) {
+            return "1";
+        } else {
+            int index = 2;
+            for (String secondaryAlternate : secondaryAlternates) {
+                if (normalizedAllele.equals(secondaryAlternate)) {
+                    return String.valueOf(index);
+                }
+                ++index;
+            }
+            return "-1";
+        }
+    }
+}
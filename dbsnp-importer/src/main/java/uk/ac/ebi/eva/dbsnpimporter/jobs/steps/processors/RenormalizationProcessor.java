@@ -98,15 +98,7 @@ public class RenormalizationProcessor implements ItemProcessor<IVariant, IVarian
 
     private char getContextBaseInAssembly(IVariant variant) {
         long contextPosition = variant.getStart() - 1;
-        String sequence = fastaSequenceReader.getSequence(variant.getChromosome(), contextPosition,
-                                                          contextPosition);
-        if (sequence == null || sequence.length() != 1) {
-            throw new RuntimeException(
-                    "Reference sequence could not be retrieved correctly for chromosome=\"" + variant.getChromosome()
-                            + "\", position=" + contextPosition);
-        }
-        char contextBaseInAssembly = sequence.charAt(0);
-        return contextBaseInAssembly;
+        return fastaSequenceReader.getBase(variant.getChromosome(), contextPosition);
     }
 
     /**
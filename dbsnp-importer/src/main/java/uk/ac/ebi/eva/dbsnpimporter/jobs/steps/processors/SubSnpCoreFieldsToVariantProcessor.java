@@ -23,16 +23,12 @@ import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
 import uk.ac.ebi.eva.commons.mongodb.entities.subdocuments.VariantStatisticsMongo;
 import uk.ac.ebi.eva.dbsnpimporter.exception.UndefinedHgvsAlleleException;
-import uk.ac.ebi.eva.dbsnpimporter.models.Orientation;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
 import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Maps {@link SubSnpCoreFields} to {@link uk.ac.ebi.eva.commons.core.models.IVariant},
@@ -43,11 +39,13 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
 
     public static final String DBSNP_BUILD_KEY = "dbsnp-build";
 
-    public static final String INVALID_GENOTYPE_REGEX = ".*[^,./|ATCGN -].*";
+    public static final String NO_GENOTYPES_OR_FREQUENCIES_COUNTER = "filtered.noGenotypesOrFrequencies";
 
-    private static final Pattern invalidGenotypePattern = Pattern.compile(INVALID_GENOTYPE_REGEX);
+    public static final String INVALID_GENOTYPES_COUNTER = "filtered.invalidGenotypes";
 
-    private static final Pattern genotypePattern = Pattern.compile("/|\\|");
+    public static final String UNDEFINED_ALLELE_COUNTER = "filtered.undefinedAllele";
+
+    public static final String INVALID_FREQUENCIES_COUNTER = "filtered.invalidFrequencies";
 
     private static final Logger logger = LoggerFactory.getLogger(SubSnpCoreFieldsToVariantProcessor.class);
 
@@ -55,8 +53,18 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
 
     private VariantStatisticsBuilder frequenciesBuilder;
 
+    private final ImportMetrics metrics;
+
     public SubSnpCoreFieldsToVariantProcessor(int dbsnpBuild) {
+        this(dbsnpBuild, null);
+    }
+
+    /**
+     * @param metrics Where the variants filtered out are counted by reason, or null if they are not counted
+     */
+    public SubSnpCoreFieldsToVariantProcessor(int dbsnpBuild, ImportMetrics metrics) {
         this.dbsnpBuild = String.valueOf(dbsnpBuild);
+        this.metrics = metrics;
         frequenciesBuilder = new VariantStatisticsBuilder();
     }
 
@@ -65,12 +73,14 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
         if (areGenotypesEmpty(subSnpCoreFields) && areFrequenciesEmpty(subSnpCoreFields)) {
             logger.debug("Variant filtered out because neither genotype(s) or frequencies are specified {}",
                          subSnpCoreFields);
+            countFiltered(NO_GENOTYPES_OR_FREQUENCIES_COUNTER);
             return null;
         }
 
         if (!areGenotypesEmpty(subSnpCoreFields) && areGenotypesInvalid(subSnpCoreFields)) {
             logger.debug("Variant filtered out because genotype(s) contained bases different from A,C,G,T,N: " +
                                  "genotypes are {} in {}", subSnpCoreFields.getRawGenotypesString(), subSnpCoreFields);
+            countFiltered(INVALID_GENOTYPES_COUNTER);
             return null;
         }
 
@@ -89,12 +99,14 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
         } catch (UndefinedHgvsAlleleException hgvsAlleleUndefined) {
             logger.debug("Variant filtered out because allele is not defined: {} ({})", subSnpCoreFields,
                          hgvsAlleleUndefined);
+            countFiltered(UNDEFINED_ALLELE_COUNTER);
             return null;
         }
         try {
             addFrequenciesToVariantSourceEntry(subSnpCoreFields, variant, variantSourceEntry);
         } catch (Exception e) {
             logger.warn("Variant filtered out because: {}. {}", e.getMessage(), subSnpCoreFields);
+            countFiltered(INVALID_FREQUENCIES_COUNTER);
             return null;
         }
 
@@ -103,6 +115,12 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
         return variant;
     }
 
+    private void countFiltered(String counter) {
+        if (metrics != null) {
+            metrics.increment(counter);
+        }
+    }
+
     private boolean areGenotypesEmpty(SubSnpCoreFields subSnpCoreFields) {
         String genotypesString = subSnpCoreFields.getRawGenotypesString();
         return genotypesString == null || genotypesString.trim().isEmpty();
@@ -114,8 +132,7 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
     }
 
     private boolean areGenotypesInvalid(SubSnpCoreFields subSnpCoreFields) {
-        String genotypesString = subSnpCoreFields.getRawGenotypesString();
-        return invalidGenotypePattern.matcher(genotypesString).matches();
+        return !GenotypeTranslator.areValid(subSnpCoreFields.getRawGenotypesString());
     }
 
     private void addGenotypesToVariantSourceEntry(SubSnpCoreFields subSnpCoreFields,
@@ -124,57 +141,15 @@ public class SubSnpCoreFieldsToVariantProcessor extends SubSnpCoreFieldsToEvaSub
             return;
         }
 
-        variantSourceEntry.setFormat("GT");
+        variantSourceEntry.setFormat(GenotypeTranslator.GENOTYPE_KEY);
         getSamplesData(subSnpCoreFields).forEach(variantSourceEntry::addSampleData);
     }
 
     private List<Map<String, String>> getSamplesData(SubSnpCoreFields subSnpCoreFields) {
-        return getSamplesDataFromGenotypes(subSnpCoreFields.getRawGenotypesString(),
-                                           subSnpCoreFields.getReferenceInForwardStrand(),
-                                           subSnpCoreFields.getAlternateInForwardStrand(),
-                                           subSnpCoreFields.getSecondaryAlternatesInForwardStrand(),
-                                           subSnpCoreFields.getAlleleOrientation());
-    }
-
-    private List<Map<String, String>> getSamplesDataFromGenotypes(String genotypes, String ref, String alt,
-                                                                  String[] secondaryAlternates,
-                                                                  Orientation orientation) {
-        return Arrays.stream(genotypes.split(",", -1))
-                     .map(genotype -> getForwardOrientedGenotypeCode(genotype, ref, alt, secondaryAlternates,
-                                                                     orientation))
-                     .map(this::getSampleDataFromGenotypeCode)
-                     .collect(Collectors.toList());
-    }
-
-    private String getForwardOrientedGenotypeCode(String genotype, String ref, String alt,
-                                                  String[] secondaryAlternates, Orientation orientation) {
-        String alleleDelimiter = genotype.contains("|") ? "|" : "/";
-        return Arrays.stream(genotypePattern.split(genotype, -1))
-                     .map(allele -> SubSnpCoreFields.getNormalizedAllele(allele, orientation))
-                     .map(allele -> getAlleleIndex(allele, ref, alt, secondaryAlternates))
-                     .map(String::valueOf)
-                     .collect(Collectors.joining(alleleDelimiter));
-    }
-
-    private int getAlleleIndex(String allele, String ref, String alt, String[] secondaryAlternates) {
-        if (allele.equals(ref)) {
-            return 0;
-        } else if (allele.equals(alt)) {
-            return 1;
-        } else {
-            int index = 2;
-            for (String secondaryAlternate : secondaryAlternates) {
-                if (allele.equals(secondaryAlternate)) {
-                    return index;
-                }
-                ++index;
-            }
-            return -1;
-        }
-    }
-
-    private Map<String, String> getSampleDataFromGenotypeCode(String genotypeCode) {
-        return Collections.singletonMap("GT", genotypeCode);
+        GenotypeTranslator genotypeTranslator = new GenotypeTranslator(
+                subSnpCoreFields.getReferenceInForwardStrand(), subSnpCoreFields.getAlternateInForwardStrand(),
+                subSnpCoreFields.getSecondaryAlternatesInForwardStrand(), subSnpCoreFields.getAlleleOrientation());
+        return genotypeTranslator.translate(subSnpCoreFields.getRawGenotypesString());
     }
 
     private void addFrequenciesToVariantSourceEntry(SubSnpCoreFields subSnpCoreFields, Variant variant,
@@ -15,32 +15,53 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import uk.ac.ebi.eva.commons.core.models.IVariant;
 import uk.ac.ebi.eva.commons.core.models.IVariantSourceEntry;
 import uk.ac.ebi.eva.commons.core.models.VariantStatistics;
-import uk.ac.ebi.eva.dbsnpimporter.models.AlleleFrequency;
 import uk.ac.ebi.eva.dbsnpimporter.models.Orientation;
-import uk.ac.ebi.eva.dbsnpimporter.models.PopulationFrequencies;
 import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the statistics of a variant from the frequencies column of dbSNP, which has a JSON array with an element like
+ * this one for each population:
+ * <pre>
+ * {"pop_id" : 1324, "pop_name" : "RBLS", "freq_info" : [{"allele" : "A", "cnt" : 2.0, "freq" : 0.5}, ...]}
+ * </pre>
+ *
+ * The JSON is read as a stream, keeping only the allele with the lowest frequency of each population, and the
+ * population names are shared among all the statistics built by the same builder.
+ */
 public class VariantStatisticsBuilder {
 
-    private final ObjectMapper objectMapper;
+    private static final String POPULATION_ID_FIELD = "pop_id";
+
+    private static final String POPULATION_NAME_FIELD = "pop_name";
+
+    private static final String ALLELE_FREQUENCIES_FIELD = "freq_info";
+
+    private static final String ALLELE_FIELD = "allele";
+
+    private static final String COUNT_FIELD = "cnt";
+
+    private static final String FREQUENCY_FIELD = "freq";
+
+    private final JsonFactory jsonFactory;
 
-    private final TypeReference<List<PopulationFrequencies>> typeReference;
+    private final Map<String, String> populationNames;
 
     public VariantStatisticsBuilder() {
-        objectMapper = new ObjectMapper();
-        typeReference = new TypeReference<List<PopulationFrequencies>>() { };
+        jsonFactory = new JsonFactory();
+        populationNames = new ConcurrentHashMap<>();
     }
 
     public Map<String, VariantStatistics> build(IVariant variant, String frequenciesInfo, Orientation orientation)
@@ -49,24 +70,97 @@ public class VariantStatisticsBuilder {
             return null;
         } else {
             Map<String, VariantStatistics> statistics = new HashMap<>();
-            List<PopulationFrequencies> frequencies = objectMapper.readValue(frequenciesInfo, typeReference);
+            try (JsonParser parser = jsonFactory.createParser(frequenciesInfo)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "The frequencies must be an array of populations");
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    addPopulationStatistics(parser, variant, orientation, statistics);
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new JsonParseException(parser, "The frequencies must be an array of populations");
+                }
+            }
+            return statistics;
+        }
+    }
+
+    private void addPopulationStatistics(JsonParser parser, IVariant variant, Orientation orientation,
+                                         Map<String, VariantStatistics> statistics) throws IOException {
+        String populationName = null;
+        MinorAlleleFrequency maf = new MinorAlleleFrequency();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case POPULATION_ID_FIELD:
+                    parser.skipChildren();
+                    break;
+                case POPULATION_NAME_FIELD:
+                    populationName = getPopulationName(parser.getValueAsString());
+                    break;
+                case ALLELE_FREQUENCIES_FIELD:
+                    readAlleleFrequencies(parser, maf);
+                    break;
+                default:
+                    throw new JsonParseException(parser, "Unrecognized field '" + field + "' in population");
+            }
+        }
 
-            for (PopulationFrequencies freq : frequencies) {
-                AlleleFrequency maf = freq.getAlleleFrequencies().stream().min(Comparator.naturalOrder()).get();
-                maf.setAllele(SubSnpCoreFields.getNormalizedAllele(maf.getAllele(), orientation));
+        if (!maf.found) {
+            throw new IllegalArgumentException("No allele frequencies for population " + populationName);
+        }
+        String mafAllele = SubSnpCoreFields.getNormalizedAllele(maf.allele, orientation);
+        if (!allelesMatch(variant, mafAllele)) {
+            throw new IllegalArgumentException("Variant and frequencies alleles do not match");
+        }
 
-                if (!allelesMatch(variant, maf.getAllele())) {
-                    throw new IllegalArgumentException("Variant and frequencies alleles do not match");
-                }
+        VariantStatistics stats = new VariantStatistics(variant.getReference(), variant.getAlternate(),
+                                                        variant.getType(), (float) maf.frequency, -1, mafAllele,
+                                                        null, 0, -1, -1, -1, -1, -1, -1);
+        statistics.put(populationName, stats);
+    }
 
-                VariantStatistics stats = new VariantStatistics(variant.getReference(), variant.getAlternate(),
-                                                                variant.getType(), (float) maf.getFrequency(), -1,
-                                                                maf.getAllele(), null, 0, -1, -1, -1, -1, -1, -1);
-                statistics.put(freq.getPopulationName(), stats);
+    /**
+     * Keeps in maf the first allele with the lowest frequency
+     */
+    private void readAlleleFrequencies(JsonParser parser, MinorAlleleFrequency maf) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "The allele frequencies must be an array");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String allele = null;
+            double frequency = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case ALLELE_FIELD:
+                        allele = parser.getValueAsString();
+                        break;
+                    case COUNT_FIELD:
+                        parser.skipChildren();
+                        break;
+                    case FREQUENCY_FIELD:
+                        frequency = parser.getValueAsDouble();
+                        break;
+                    default:
+                        throw new JsonParseException(parser, "Unrecognized field '" + field + "' in allele frequency");
+                }
+            }
+            if (!maf.found || frequency < maf.frequency) {
+                maf.found = true;
+                maf.allele = allele;
+                maf.frequency = frequency;
             }
+        }
+    }
 
-            return statistics;
+    private String getPopulationName(String populationName) {
+        if (populationName == null) {
+            return null;
         }
+        return populationNames.computeIfAbsent(populationName, name -> name);
     }
 
     private boolean allelesMatch(IVariant variant, String mafAllele) {
@@ -89,4 +183,12 @@ public class VariantStatisticsBuilder {
         return false;
     }
 
+    private static class MinorAlleleFrequency {
+
+        private boolean found;
+
+        private String allele;
+
+        private double frequency;
+    }
 }
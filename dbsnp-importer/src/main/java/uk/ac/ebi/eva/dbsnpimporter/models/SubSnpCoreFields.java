@@ -19,11 +19,8 @@ import uk.ac.ebi.eva.commons.core.models.Region;
 import uk.ac.ebi.eva.commons.core.models.VariantCoreFields;
 import uk.ac.ebi.eva.dbsnpimporter.exception.UndefinedHgvsAlleleException;
 
-import java.util.List;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.List;
 
 /**
  * Wrapper for an SS ID, associated RS ID if any, along with its contig and (optionally) chromosome coordinates.
@@ -76,6 +73,15 @@ public class SubSnpCoreFields {
 
     private String rawFrequenciesInfo;
 
+    // The alleles in forward strand only depend on fields set in the constructor, so they are computed only once
+    private String referenceInForwardStrand;
+
+    private String alternateInForwardStrand;
+
+    private String allelesInForwardStrand;
+
+    private String[] secondaryAlternatesInForwardStrand;
+
     /**
      * @param subSnpId          Unique SS ID identifier
      * @param subSnpOrientation Orientation of the ssid to the rsid (1 for forward, -1 for reverse)
@@ -265,35 +271,41 @@ public class SubSnpCoreFields {
     }
 
     public String getReferenceInForwardStrand() {
-        String allele;
-        Orientation orientation;
-
-        if (this.getHgvsCString() != null) {
-            allele = this.getHgvsCReference();
-            orientation = this.getHgvsCOrientation();
-        } else if (this.getHgvsTString() != null) {
-            allele = this.getHgvsTReference();
-            orientation = this.getHgvsTOrientation();
-        } else {
-            throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
-        }
+        if (referenceInForwardStrand == null) {
+            String allele;
+            Orientation orientation;
+
+            if (this.getHgvsCString() != null) {
+                allele = this.getHgvsCReference();
+                orientation = this.getHgvsCOrientation();
+            } else if (this.getHgvsTString() != null) {
+                allele = this.getHgvsTReference();
+                orientation = this.getHgvsTOrientation();
+            } else {
+                throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
+            }
 
-        return getNormalizedAllele(allele, orientation);
+            referenceInForwardStrand = getNormalizedAllele(allele, orientation);
+        }
+        return referenceInForwardStrand;
     }
 
     public String getAlternateInForwardStrand() {
-        String allele = this.getAlternate();
-        Orientation orientation;
+        if (alternateInForwardStrand == null) {
+            String allele = this.getAlternate();
+            Orientation orientation;
+
+            if (this.getHgvsCString() != null) {
+                orientation = this.getHgvsCOrientation();
+            } else if (this.getHgvsTString() != null) {
+                orientation = this.getHgvsTOrientation();
+            } else {
+                throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
+            }
 
-        if (this.getHgvsCString() != null) {
-            orientation = this.getHgvsCOrientation();
-        } else if (this.getHgvsTString() != null) {
-            orientation = this.getHgvsTOrientation();
-        } else {
-            throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
+            alternateInForwardStrand = getNormalizedAllele(allele, orientation);
         }
-
-        return getNormalizedAllele(allele, orientation);
+        return alternateInForwardStrand;
     }
 
     public static String getNormalizedAllele(String allele, Orientation orientation) {
@@ -337,13 +349,23 @@ public class SubSnpCoreFields {
      * - rs10721689 :  "alleles" are reverse when orientations are 1 -1 1, forward when 1 -1 -1
      */
     public String getAllelesInForwardStrand() {
-        return getForwardOrientedAlleles(isForwardOriented(), this.getAlleles());
+        if (allelesInForwardStrand == null) {
+            allelesInForwardStrand = getForwardOrientedAlleles(isForwardOriented(), this.getAlleles());
+        }
+        return allelesInForwardStrand;
     }
 
     private String getForwardOrientedAlleles(boolean forward, String alleles) {
         String forwardAlleles = forward ? alleles : calculateReverseComplement(alleles);
         String[] splitAlleles = forwardAlleles.split("/", -1);
-        return Stream.of(splitAlleles).map(SubSnpCoreFields::getTrimmedAllele).collect(Collectors.joining("/"));
+        StringBuilder trimmedAlleles = new StringBuilder(forwardAlleles.length());
+        for (int i = 0; i < splitAlleles.length; i++) {
+            if (i > 0) {
+                trimmedAlleles.append('/');
+            }
+            trimmedAlleles.append(getTrimmedAllele(splitAlleles[i]));
+        }
+        return trimmedAlleles.toString();
     }
 
     public Orientation getAlleleOrientation() {
@@ -356,52 +378,56 @@ public class SubSnpCoreFields {
                     ^ this.getContigOrientation().equals(Orientation.FORWARD);
     }
 
+    /**
+     * @return A copy of the alleles in forward strand that are neither the reference nor the alternate
+     */
     public String[] getSecondaryAlternatesInForwardStrand() {
-        String[] alleles = this.getAllelesInForwardStrand().split("/", -1);
-        List<String> secondaryAlternates = new ArrayList<>(Arrays.asList(alleles));
-        for (String allele : alleles) {
-            if (allele.equals(this.getReferenceInForwardStrand())
-                    || allele.equals(this.getAlternateInForwardStrand())) {
-                secondaryAlternates.remove(allele);
+        if (secondaryAlternatesInForwardStrand == null) {
+            String reference = this.getReferenceInForwardStrand();
+            String alternate = this.getAlternateInForwardStrand();
+            List<String> secondaryAlternates = new ArrayList<>();
+            for (String allele : this.getAllelesInForwardStrand().split("/", -1)) {
+                if (!allele.equals(reference) && !allele.equals(alternate)) {
+                    secondaryAlternates.add(allele);
+                }
             }
+            secondaryAlternatesInForwardStrand = secondaryAlternates.toArray(new String[0]);
         }
-        String[] secondaryAlternatesArray = new String[secondaryAlternates.size()];
-        return secondaryAlternates.toArray(secondaryAlternatesArray);
+        return secondaryAlternatesInForwardStrand.clone();
     }
 
     private static String calculateReverseComplement(String alleleInReverseStrand) {
-        StringBuilder alleleInForwardStrand = new StringBuilder(alleleInReverseStrand).reverse();
-        for (int i = 0; i < alleleInForwardStrand.length(); i++) {
-            switch (alleleInForwardStrand.charAt(i)) {
-                // Capitalization holds a special meaning for dbSNP so we need to preserve it.
-                // See https://www.ncbi.nlm.nih.gov/books/NBK44414/#_Reports_Lowercase_Small_Sequence_Letteri_
-                case 'A':
-                    alleleInForwardStrand.setCharAt(i, 'T');
-                    break;
-                case 'a':
-                    alleleInForwardStrand.setCharAt(i, 't');
-                    break;
-                case 'C':
-                    alleleInForwardStrand.setCharAt(i, 'G');
-                    break;
-                case 'c':
-                    alleleInForwardStrand.setCharAt(i, 'g');
-                    break;
-                case 'G':
-                    alleleInForwardStrand.setCharAt(i, 'C');
-                    break;
-                case 'g':
-                    alleleInForwardStrand.setCharAt(i, 'c');
-                    break;
-                case 'T':
-                    alleleInForwardStrand.setCharAt(i, 'A');
-                    break;
-                case 't':
-                    alleleInForwardStrand.setCharAt(i, 'a');
-                    break;
-            }
+        int length = alleleInReverseStrand.length();
+        char[] alleleInForwardStrand = new char[length];
+        for (int i = 0; i < length; i++) {
+            alleleInForwardStrand[length - 1 - i] = getComplement(alleleInReverseStrand.charAt(i));
+        }
+        return new String(alleleInForwardStrand);
+    }
+
+    private static char getComplement(char base) {
+        switch (base) {
+            // Capitalization holds a special meaning for dbSNP so we need to preserve it.
+            // See https://www.ncbi.nlm.nih.gov/books/NBK44414/#_Reports_Lowercase_Small_Sequence_Letteri_
+            case 'A':
+                return 'T';
+            case 'a':
+                return 't';
+            case 'C':
+                return 'G';
+            case 'c':
+                return 'g';
+            case 'G':
+                return 'C';
+            case 'g':
+                return 'c';
+            case 'T':
+                return 'A';
+            case 't':
+                return 'a';
+            default:
+                return base;
         }
-        return alleleInForwardStrand.toString();
     }
 
     /**
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.parameters;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Translates the batchIds parameter into the list of batches to import. The parameter can be a comma separated list of
+ * batch ids and ranges of batch ids (e.g. "11825,11828-11831"), or {@link #ALL_BATCHES} to import every batch of the
+ * assembly present in the dbsnp_variant_load table.
+ */
+public class BatchIdsResolver {
+
+    public static final String ALL_BATCHES = "all";
+
+    private final DataSource dataSource;
+
+    private final String assembly;
+
+    public BatchIdsResolver(DataSource dataSource, String assembly) {
+        this.dataSource = dataSource;
+        this.assembly = assembly;
+    }
+
+    public List<Integer> resolve(String batchIds) {
+        if (batchIds == null || batchIds.trim().isEmpty()) {
+            throw new IllegalArgumentException("The list of batch ids is empty");
+        }
+        if (ALL_BATCHES.equalsIgnoreCase(batchIds.trim())) {
+            return getAllBatches();
+        }
+
+        Set<Integer> batches = new LinkedHashSet<>();
+        for (String token : batchIds.split(",")) {
+            String batchOrRange = token.trim();
+            int separator = batchOrRange.indexOf('-', 1);
+            try {
+                if (separator == -1) {
+                    batches.add(Integer.parseInt(batchOrRange));
+                } else {
+                    int first = Integer.parseInt(batchOrRange.substring(0, separator).trim());
+                    int last = Integer.parseInt(batchOrRange.substring(separator + 1).trim());
+                    if (last < first) {
+                        throw new IllegalArgumentException("Invalid range of batch ids: " + batchOrRange);
+                    }
+                    for (int batch = first; batch <= last; batch++) {
+                        batches.add(batch);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid batch id or range of batch ids: " + batchOrRange, e);
+            }
+        }
+        return new ArrayList<>(batches);
+    }
+
+    private List<Integer> getAllBatches() {
+        String sql = "SELECT DISTINCT batch_id FROM " + SubSnpCoreFieldsReader.getTableName(assembly) +
+                " ORDER BY batch_id";
+        return new JdbcTemplate(dataSource).queryForList(sql, Integer.class);
+    }
+}
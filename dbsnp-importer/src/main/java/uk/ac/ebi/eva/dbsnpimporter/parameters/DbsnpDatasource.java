@@ -15,20 +15,23 @@
  */
 package uk.ac.ebi.eva.dbsnpimporter.parameters;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.data.mongodb.core.mapping.Field;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
 
 @ConfigurationProperties(prefix = "dbsnp.datasource")
-public class DbsnpDatasource implements InitializingBean {
+public class DbsnpDatasource implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(DbsnpDatasource.class);
 
+    private static final int DEFAULT_MAXIMUM_POOL_SIZE = 10;
+
     private String url;
 
     @Field("driver-class-name")
@@ -38,17 +41,43 @@ public class DbsnpDatasource implements InitializingBean {
 
     private String password;
 
+    /**
+     * Maximum number of connections to the dbSNP database. Each variants step (or partition) keeps one open while it
+     * runs, so this should not be lower than the number of batches or partitions imported concurrently.
+     */
+    private int maximumPoolSize = DEFAULT_MAXIMUM_POOL_SIZE;
+
+    private HikariDataSource dataSource;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         logger.debug("Properties were set to: {}", this);
     }
 
-    public DataSource getDatasource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(driverClassName);
-        dataSource.setUrl(url);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
+    /**
+     * Closes the connection pool, if it was created, when the application context is closed
+     */
+    @Override
+    public synchronized void destroy() {
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    /**
+     * Returns a connection pool that is shared by all the readers, so importing several batches in the same run does
+     * not open a new connection for every query
+     */
+    public synchronized DataSource getDatasource() {
+        if (dataSource == null) {
+            dataSource = new HikariDataSource();
+            dataSource.setDriverClassName(driverClassName);
+            dataSource.setJdbcUrl(url);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+        }
         return dataSource;
     }
 
@@ -84,6 +113,14 @@ public class DbsnpDatasource implements InitializingBean {
         this.password = password;
     }
 
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
     @Override
     public String toString() {
         return "DbsnpDatasource{" +
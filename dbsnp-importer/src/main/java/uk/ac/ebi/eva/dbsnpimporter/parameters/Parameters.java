@@ -21,6 +21,8 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import uk.ac.ebi.eva.dbsnpimporter.io.FastaSequenceReader;
+
 @ConfigurationProperties
 public class Parameters implements InitializingBean {
 
@@ -28,6 +30,12 @@ public class Parameters implements InitializingBean {
 
     public static final String JOB = "job";
 
+    public static final String BATCH_ID = "batchId";
+
+    public static final long DEFAULT_MONGO_BULK_MAX_BYTES = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 10000;
+
     @Field(JOB)
     private String job;
 
@@ -47,8 +55,44 @@ public class Parameters implements InitializingBean {
 
     private String contigMappingUrl;
 
+    private String contigMappingCacheDirectory;
+
     private String referenceFastaFile;
 
+    private int partitions;
+
+    private String batchIds;
+
+    private int batchParallelism;
+
+    private int processorThreads;
+
+    private int referenceCacheSize = FastaSequenceReader.DEFAULT_CACHE_SIZE_IN_MEGABYTES;
+
+    private boolean packedReference;
+
+    private long mongoBulkMaxBytes = DEFAULT_MONGO_BULK_MAX_BYTES;
+
+    private boolean unjournaledWrites;
+
+    private int prefetchSize;
+
+    private boolean preFilter;
+
+    private boolean keysetPaging;
+
+    private boolean concurrentSamplesStep;
+
+    private String metricsDirectory;
+
+    private long targetChunkMilliseconds;
+
+    private int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+
+    private boolean dryRun;
+
+    private boolean dryRunEncoding;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         logger.debug("Properties were set to: {}", this);
@@ -94,6 +138,14 @@ public class Parameters implements InitializingBean {
         this.batchId = batchId;
     }
 
+    /**
+     * Returns the batch imported by the current job: the batchId job parameter if present (it is set for each batch
+     * when importing several batches in one run), or the batchId property otherwise
+     */
+    public int resolveBatchId(Long batchIdJobParameter) {
+        return batchIdJobParameter != null ? batchIdJobParameter.intValue() : batchId;
+    }
+
     public String getVariantsCollection() {
         return variantsCollection;
     }
@@ -126,6 +178,18 @@ public class Parameters implements InitializingBean {
         this.contigMappingUrl = contigMappingUrl;
     }
 
+    /**
+     * @return Directory where the assembly report in contigMappingUrl and the contig mapping parsed from it are kept
+     * between imports, or null to download and parse the report in every import
+     */
+    public String getContigMappingCacheDirectory() {
+        return contigMappingCacheDirectory;
+    }
+
+    public void setContigMappingCacheDirectory(String contigMappingCacheDirectory) {
+        this.contigMappingCacheDirectory = contigMappingCacheDirectory;
+    }
+
     public String getReferenceFastaFile() {
         return referenceFastaFile;
     }
@@ -134,6 +198,190 @@ public class Parameters implements InitializingBean {
         this.referenceFastaFile = referenceFastaFile;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public String getBatchIds() {
+        return batchIds;
+    }
+
+    public void setBatchIds(String batchIds) {
+        this.batchIds = batchIds;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    public int getProcessorThreads() {
+        return processorThreads;
+    }
+
+    public void setProcessorThreads(int processorThreads) {
+        this.processorThreads = processorThreads;
+    }
+
+    /**
+     * @return Megabytes of the reference sequence kept in memory by the FASTA reader
+     */
+    public int getReferenceCacheSize() {
+        return referenceCacheSize;
+    }
+
+    public void setReferenceCacheSize(int referenceCacheSize) {
+        this.referenceCacheSize = referenceCacheSize;
+    }
+
+    /**
+     * @return Whether the whole reference sequence is held in memory, packed in 2 bits per base
+     */
+    public boolean isPackedReference() {
+        return packedReference;
+    }
+
+    public void setPackedReference(boolean packedReference) {
+        this.packedReference = packedReference;
+    }
+
+    /**
+     * @return Estimated maximum size of the variants sent to Mongo in a single bulk write
+     */
+    public long getMongoBulkMaxBytes() {
+        return mongoBulkMaxBytes;
+    }
+
+    public void setMongoBulkMaxBytes(long mongoBulkMaxBytes) {
+        this.mongoBulkMaxBytes = mongoBulkMaxBytes;
+    }
+
+    /**
+     * @return Whether variants are written with write concern w:1 and without waiting for the journal. Meant for bulk
+     * loads that can be repeated if the database fails
+     */
+    public boolean isUnjournaledWrites() {
+        return unjournaledWrites;
+    }
+
+    public void setUnjournaledWrites(boolean unjournaledWrites) {
+        this.unjournaledWrites = unjournaledWrites;
+    }
+
+    /**
+     * @return Number of variants read ahead in a separate thread while the previous ones are processed, 0 to read them
+     * in the same thread
+     */
+    public int getPrefetchSize() {
+        return prefetchSize;
+    }
+
+    public void setPrefetchSize(int prefetchSize) {
+        this.prefetchSize = prefetchSize;
+    }
+
+    /**
+     * @return Whether the rows that would be filtered out for missing coordinates, alleles, genotypes or frequencies
+     * are skipped by the database query instead
+     */
+    public boolean isPreFilter() {
+        return preFilter;
+    }
+
+    public void setPreFilter(boolean preFilter) {
+        this.preFilter = preFilter;
+    }
+
+    /**
+     * @return Whether variants are read in pages of pageSize rows sorted by load_order, instead of with a single
+     * cursor for the whole batch
+     */
+    public boolean isKeysetPaging() {
+        return keysetPaging;
+    }
+
+    public void setKeysetPaging(boolean keysetPaging) {
+        this.keysetPaging = keysetPaging;
+    }
+
+    /**
+     * @return Whether the samples of the batch are read while the variants are imported, instead of after them. They
+     * are still written only if any variant was imported
+     */
+    public boolean isConcurrentSamplesStep() {
+        return concurrentSamplesStep;
+    }
+
+    public void setConcurrentSamplesStep(boolean concurrentSamplesStep) {
+        this.concurrentSamplesStep = concurrentSamplesStep;
+    }
+
+    /**
+     * @return Directory where a JSON summary of the throughput, timings and filtered variants of each job execution
+     * is written, or null to only log it
+     */
+    public String getMetricsDirectory() {
+        return metricsDirectory;
+    }
+
+    public void setMetricsDirectory(String metricsDirectory) {
+        this.metricsDirectory = metricsDirectory;
+    }
+
+    /**
+     * @return Duration the chunks of the variants import are adjusted to, starting with chunkSize variants and
+     * without exceeding mongoBulkMaxBytes, or 0 to always use chunks of chunkSize variants
+     */
+    public long getTargetChunkMilliseconds() {
+        return targetChunkMilliseconds;
+    }
+
+    public void setTargetChunkMilliseconds(long targetChunkMilliseconds) {
+        this.targetChunkMilliseconds = targetChunkMilliseconds;
+    }
+
+    /**
+     * @return Maximum number of variants in a chunk when its size is adjusted to targetChunkMilliseconds
+     */
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    public void setMaxChunkSize(int maxChunkSize) {
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * @return Whether the variants and samples are read and processed but not written, to measure an import or
+     * validate a batch without modifying the database
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * @return Whether the variants discarded in a dry run are encoded to BSON first, to measure the encoding time and
+     * the size of the documents
+     */
+    public boolean isDryRunEncoding() {
+        return dryRunEncoding;
+    }
+
+    public void setDryRunEncoding(boolean dryRunEncoding) {
+        this.dryRunEncoding = dryRunEncoding;
+    }
+
     @Override
     public String toString() {
         return "Parameters{" +
@@ -146,7 +394,25 @@ public class Parameters implements InitializingBean {
                 ", filesCollection='" + filesCollection + '\'' +
                 ", chunkSize=" + chunkSize +
                 ", contigMappingUrl='" + contigMappingUrl + '\'' +
+                ", contigMappingCacheDirectory='" + contigMappingCacheDirectory + '\'' +
                 ", referenceFastaFile='" + referenceFastaFile + '\'' +
+                ", partitions=" + partitions +
+                ", batchIds='" + batchIds + '\'' +
+                ", batchParallelism=" + batchParallelism +
+                ", processorThreads=" + processorThreads +
+                ", referenceCacheSize=" + referenceCacheSize +
+                ", packedReference=" + packedReference +
+                ", mongoBulkMaxBytes=" + mongoBulkMaxBytes +
+                ", unjournaledWrites=" + unjournaledWrites +
+                ", prefetchSize=" + prefetchSize +
+                ", preFilter=" + preFilter +
+                ", keysetPaging=" + keysetPaging +
+                ", concurrentSamplesStep=" + concurrentSamplesStep +
+                ", metricsDirectory='" + metricsDirectory + '\'' +
+                ", targetChunkMilliseconds=" + targetChunkMilliseconds +
+                ", maxChunkSize=" + maxChunkSize +
+                ", dryRun=" + dryRun +
+                ", dryRunEncoding=" + dryRunEncoding +
                 '}';
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.configuration;
+
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.mongodb.configuration.EvaRepositoriesConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.configuration.mongo.MongoConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.AssemblyCheckFilterProcessor;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+import uk.ac.ebi.eva.dbsnpimporter.test.DbsnpTestDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.JobTestConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.MongoTestConfiguration;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(value = {"classpath:application.properties"}, properties = {"processor-threads=4"})
+@DirtiesContext
+@ContextConfiguration(classes = {ImportVariantsJobConfiguration.class, MongoConfiguration.class,
+        MongoTestConfiguration.class, JobTestConfiguration.class, EvaRepositoriesConfiguration.class})
+public class ImportVariantsAsyncProcessorStepConfigurationTest {
+
+    private static final String TEST_DB = "test-db";
+
+    @Autowired
+    private DbsnpTestDatasource dbsnpTestDatasource;
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private Parameters parameters;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    // the assembly checker is mocked to avoid adding a large FASTA file to the resources directory
+    @MockBean
+    private AssemblyCheckFilterProcessor assemblyCheckerMock;
+
+    @Rule
+    public MongoDbRule mongoDbRule = MongoDbRule.MongoDbRuleBuilder.newMongoDbRule().defaultSpringMongoDb(TEST_DB);
+
+    @Before
+    public void setUp() throws Exception {
+        // the assembly checker mock will filter out one variant
+        when(this.assemblyCheckerMock.process(anyObject())).thenAnswer(invocationOnMock -> {
+            SubSnpCoreFields inputVariant = invocationOnMock.getArgument(0);
+            if (inputVariant.getRsId() == 3136865) {
+                return null;
+            } else {
+                return inputVariant;
+            }
+        });
+
+        if (mongoOperations.collectionExists(parameters.getFilesCollection())) {
+            mongoOperations.dropCollection(parameters.getFilesCollection());
+        }
+        if (mongoOperations.collectionExists(parameters.getVariantsCollection())) {
+            mongoOperations.dropCollection(parameters.getVariantsCollection());
+        }
+    }
+
+    @Test
+    public void loadVariantsProcessedConcurrently() throws Exception {
+        assertEquals(0, mongoOperations.getCollection(parameters.getVariantsCollection()).count());
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchStep(ImportVariantsStepConfiguration.IMPORT_VARIANTS_STEP);
+        assertCompleted(jobExecution);
+
+        StepExecution stepExecution = jobExecution.getStepExecutions().iterator().next();
+        assertEquals(28, stepExecution.getReadCount());
+        // the variants filtered by the processors are not counted as written, as in the synchronous step
+        assertEquals(11, stepExecution.getWriteCount());
+        assertEquals(17, stepExecution.getFilterCount());
+
+        MongoCollection<Document> collection = mongoOperations.getCollection(parameters.getVariantsCollection());
+        int totalSubsnps = 0;
+        int totalSnps = 0;
+        int documentCount = 0;
+        for (Document document : collection.find()) {
+            List<String> ids = (List<String>) document.get("dbsnpIds");
+            totalSnps += ids.stream().filter(o -> o.startsWith("rs")).count();
+            totalSubsnps += ids.stream().filter(o -> o.startsWith("ss")).count();
+            documentCount++;
+        }
+
+        // same results as the step that processes the variants in the reader thread
+        assertEquals(8, documentCount);
+        assertEquals(8, totalSnps);
+        assertEquals(11, totalSubsnps);
+    }
+
+    private static void assertCompleted(JobExecution jobExecution) {
+        assertEquals(ExitStatus.COMPLETED, jobExecution.getExitStatus());
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+    }
+}
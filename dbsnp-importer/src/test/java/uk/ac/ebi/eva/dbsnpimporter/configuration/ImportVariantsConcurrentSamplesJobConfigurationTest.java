@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.configuration;
+
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.mongodb.configuration.EvaRepositoriesConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.configuration.mongo.MongoConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors.AssemblyCheckFilterProcessor;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+import uk.ac.ebi.eva.dbsnpimporter.test.DbsnpTestDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.JobTestConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.MongoTestConfiguration;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource(value = {"classpath:application.properties"}, properties = {"concurrentSamplesStep=true"})
+@ContextConfiguration(classes = {ImportVariantsJobConfiguration.class, MongoConfiguration.class,
+        MongoTestConfiguration.class, JobTestConfiguration.class, EvaRepositoriesConfiguration.class})
+public class ImportVariantsConcurrentSamplesJobConfigurationTest {
+
+    private static final int BATCH_ID = 11825;
+
+    private static final int NON_EXISTENT_BATCH_ID = 1;
+
+    private static final String TEST_DB = "test-db";
+
+    @Autowired
+    private DbsnpTestDatasource dbsnpTestDatasource;
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private Parameters parameters;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    // the assembly checker is mocked to avoid adding a large FASTA file to the resources directory
+    @MockBean
+    private AssemblyCheckFilterProcessor assemblyCheckerMock;
+
+    @Rule
+    public MongoDbRule mongoDbRule = MongoDbRule.MongoDbRuleBuilder.newMongoDbRule().defaultSpringMongoDb(TEST_DB);
+
+    @Before
+    public void setUp() throws Exception {
+        // the assembly checker mock will filter out one variant
+        when(this.assemblyCheckerMock.process(anyObject())).thenAnswer(invocationOnMock -> {
+            SubSnpCoreFields inputVariant = invocationOnMock.getArgument(0);
+            if (inputVariant.getRsId() == 3136865) {
+                return null;
+            } else {
+                return inputVariant;
+            }
+        });
+        if (mongoOperations.collectionExists(parameters.getFilesCollection())) {
+            mongoOperations.dropCollection(parameters.getFilesCollection());
+        }
+        if (mongoOperations.collectionExists(parameters.getVariantsCollection())) {
+            mongoOperations.dropCollection(parameters.getVariantsCollection());
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    public void loadVariantsAndFile() throws Exception {
+        parameters.setBatchId(BATCH_ID);
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        assertCompleted(jobExecution);
+        Set<String> stepNames = getStepNames(jobExecution);
+        assertTrue(stepNames.contains(ImportVariantsStepConfiguration.IMPORT_VARIANTS_STEP));
+        assertTrue(stepNames.contains(ImportSamplesStepConfiguration.ASSEMBLE_SAMPLES_STEP));
+        assertTrue(stepNames.contains(ImportSamplesStepConfiguration.WRITE_SAMPLES_STEP));
+
+        // same results as the sequential job
+        assertEquals(8, mongoOperations.getCollection(parameters.getVariantsCollection()).count());
+        assertEquals(1, mongoOperations.getCollection(parameters.getFilesCollection()).count());
+    }
+
+    @Test
+    @DirtiesContext
+    public void doNotLoadFileIfNoVariants() throws Exception {
+        parameters.setBatchId(NON_EXISTENT_BATCH_ID);
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        assertCompleted(jobExecution);
+        assertFalse(getStepNames(jobExecution).contains(ImportSamplesStepConfiguration.WRITE_SAMPLES_STEP));
+
+        assertEquals(0, mongoOperations.getCollection(parameters.getVariantsCollection()).count());
+        assertEquals(0, mongoOperations.getCollection(parameters.getFilesCollection()).count());
+    }
+
+    private static void assertCompleted(JobExecution jobExecution) {
+        assertEquals(ExitStatus.COMPLETED, jobExecution.getExitStatus());
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+    }
+
+    private static Set<String> getStepNames(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream().map(StepExecution::getStepName).collect(Collectors.toSet());
+    }
+}
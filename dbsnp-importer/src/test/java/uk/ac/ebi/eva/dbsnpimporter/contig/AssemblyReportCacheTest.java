@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.contig;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+public class AssemblyReportCacheTest {
+
+    private static final String GENBANK_CONTIG = "GL456213.1";
+
+    private static final String REFSEQ_CONTIG = "NT_166283.1";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path report;
+
+    private Path cacheDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        report = Files.copy(Paths.get("src/test/resources/AssemblyReport.txt"),
+                            temporaryFolder.getRoot().toPath().resolve("AssemblyReport.txt"));
+        cacheDirectory = temporaryFolder.getRoot().toPath().resolve("cache");
+    }
+
+    @Test
+    public void reportAndMappingAreCached() throws Exception {
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+
+        assertEquals(GENBANK_CONTIG, contigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+        assertEquals(1, listFiles(AssemblyReportCache.REPORT_EXTENSION).size());
+        assertEquals(1, listFiles(AssemblyReportCache.METADATA_EXTENSION).size());
+        assertEquals(1, listFiles(AssemblyReportCache.MAPPING_EXTENSION).size());
+    }
+
+    @Test
+    public void unchangedReportIsNotDownloadedAgain() throws Exception {
+        new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+        Path cachedReport = listFiles(AssemblyReportCache.REPORT_EXTENSION).get(0);
+        FileTime downloadTime = Files.getLastModifiedTime(cachedReport);
+        Files.setLastModifiedTime(cachedReport, FileTime.fromMillis(downloadTime.toMillis() - 10000));
+        FileTime previousTime = Files.getLastModifiedTime(cachedReport);
+
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+
+        assertEquals(GENBANK_CONTIG, contigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+        assertEquals(previousTime, Files.getLastModifiedTime(cachedReport));
+    }
+
+    @Test
+    public void modifiedReportIsDownloadedAgain() throws Exception {
+        new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+        String modifiedReport = new String(Files.readAllBytes(report)).replace(GENBANK_CONTIG, "GL000000.1");
+        Files.write(report, modifiedReport.getBytes());
+        Files.setLastModifiedTime(report, FileTime.fromMillis(Files.getLastModifiedTime(report).toMillis() + 10000));
+
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+
+        assertEquals("GL000000.1", contigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+        assertEquals(1, listFiles(AssemblyReportCache.REPORT_EXTENSION).size());
+        assertEquals(2, listFiles(AssemblyReportCache.MAPPING_EXTENSION).size());
+    }
+
+    @Test
+    public void cachedReportIsUsedIfTheReportIsNotAvailable() throws Exception {
+        String url = getUrl();
+        new AssemblyReportCache(cacheDirectory).getContigMapping(url);
+        Files.delete(report);
+
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory).getContigMapping(url);
+
+        assertEquals(GENBANK_CONTIG, contigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+    }
+
+    @Test
+    public void corruptedReportIsDownloadedAgain() throws Exception {
+        new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+        Path cachedReport = listFiles(AssemblyReportCache.REPORT_EXTENSION).get(0);
+        Files.write(cachedReport, "corrupted".getBytes());
+
+        ContigMapping contigMapping = new AssemblyReportCache(cacheDirectory).getContigMapping(getUrl());
+
+        assertEquals(GENBANK_CONTIG, contigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+        assertEquals(Files.size(report), Files.size(cachedReport));
+    }
+
+    @Test
+    public void failIfTheReportIsNotAvailableAndNotCached() throws Exception {
+        String url = getUrl();
+        Files.delete(report);
+
+        thrown.expect(IOException.class);
+        new AssemblyReportCache(cacheDirectory).getContigMapping(url);
+    }
+
+    private String getUrl() {
+        return report.toUri().toString();
+    }
+
+    private List<Path> listFiles(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(extension))
+                        .collect(Collectors.toList());
+        }
+    }
+}
@@ -20,8 +20,20 @@ import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 
@@ -45,6 +57,12 @@ public class ContigMappingTest {
 
     private static final String REFSEQ_CONTIG_WITHOUT_SYNONYM = "NT_without_synonym";
 
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void useMapContructor() throws Exception {
         HashMap<String, String> contigMap = new HashMap<>();
@@ -78,6 +96,72 @@ public class ContigMappingTest {
         assertEquals(REFSEQ_CONTIG_WITHOUT_SYNONYM, contigMapping.getGenbankOrDefault(REFSEQ_CONTIG_WITHOUT_SYNONYM));
     }
 
+    @Test
+    public void manyContigs() throws Exception {
+        HashMap<String, String> contigMap = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            contigMap.put("NT_" + i, "GL" + i);
+        }
+        ContigMapping contigMapping = new ContigMapping(contigMap);
+
+        assertEquals(1000, contigMapping.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("GL" + i, contigMapping.getGenbankOrDefault("NT_" + i));
+        }
+        assertEquals("NT_1000", contigMapping.getGenbankOrDefault("NT_1000"));
+    }
+
+    @Test
+    public void writeAndLoad() throws Exception {
+        String fakeFtpLocation = Thread.currentThread().getContextClassLoader().getResource("AssemblyReport.txt")
+                                       .toString();
+        ContigMapping contigMapping = new ContigMapping(fakeFtpLocation);
+        Path mappingPath = temporaryFolder.getRoot().toPath().resolve("contigs.bin");
+        contigMapping.write(mappingPath);
+
+        ContigMapping loadedContigMapping = ContigMapping.load(mappingPath);
+
+        assertEquals(contigMapping.size(), loadedContigMapping.size());
+        assertEquals(GENBANK_CONTIG, loadedContigMapping.getGenbankOrDefault(REFSEQ_CONTIG));
+        assertEquals(REFSEQ_CONTIG_WITHOUT_SYNONYM,
+                     loadedContigMapping.getGenbankOrDefault(REFSEQ_CONTIG_WITHOUT_SYNONYM));
+    }
+
+    @Test
+    public void writeTheSameMappingConcurrently() throws Exception {
+        String fakeFtpLocation = Thread.currentThread().getContextClassLoader().getResource("AssemblyReport.txt")
+                                       .toString();
+        ContigMapping contigMapping = new ContigMapping(fakeFtpLocation);
+        Path mappingPath = temporaryFolder.getRoot().toPath().resolve("contigs.bin");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writes.add(executorService.submit(() -> {
+                contigMapping.write(mappingPath);
+                return null;
+            }));
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        executorService.shutdown();
+
+        assertEquals(contigMapping.size(), ContigMapping.load(mappingPath).size());
+        try (Stream<Path> files = Files.list(temporaryFolder.getRoot().toPath())) {
+            assertEquals(Collections.singletonList(mappingPath), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void loadOtherFileFails() throws Exception {
+        Path mappingPath = temporaryFolder.newFile("contigs.bin").toPath();
+        Files.write(mappingPath, "not a contig mapping".getBytes());
+
+        thrown.expect(IOException.class);
+        ContigMapping.load(mappingPath);
+    }
+
     @Test
     @Ignore("This test does an external ftp request, which is too slow to be a comfortable test.")
     public void useFileConstructorAndActualFtp() throws Exception {
@@ -67,6 +67,35 @@ public class FastaSequenceReaderTest {
                      reader.getSequence("22", 59986, 60075));
     }
 
+    @Test
+    public void getSequenceSpanningSeveralCachedBlocks() throws Exception {
+        FastaSequenceReader uncachedReader = new FastaSequenceReader(
+                Paths.get("src/test/resources/Gallus_gallus-5.0.test.fa"), 0);
+        long blockEnd = FastaSequenceReader.BLOCK_SIZE;
+        assertEquals(uncachedReader.getSequence("22", blockEnd - 10, blockEnd + 10),
+                     reader.getSequence("22", blockEnd - 10, blockEnd + 10));
+        assertEquals(uncachedReader.getSequence("22", blockEnd, 3 * blockEnd + 1),
+                     reader.getSequence("22", blockEnd, 3 * blockEnd + 1));
+        // served from the cached blocks
+        assertEquals(uncachedReader.getSequence("22", blockEnd + 1, blockEnd + 1),
+                     reader.getSequence("22", blockEnd + 1, blockEnd + 1));
+        uncachedReader.close();
+    }
+
+    @Test
+    public void getLastNucleotideOfContigWithoutCache() throws Exception {
+        FastaSequenceReader uncachedReader = new FastaSequenceReader(
+                Paths.get("src/test/resources/Gallus_gallus-5.0.test.fa"), 0);
+        assertEquals("G", uncachedReader.getSequence("22", 4729743, 4729743));
+        uncachedReader.close();
+    }
+
+    @Test
+    public void negativeCacheSizeIsNotAllowed() throws Exception {
+        thrown.expect(IllegalArgumentException.class);
+        new FastaSequenceReader(Paths.get("src/test/resources/Gallus_gallus-5.0.test.fa"), -1);
+    }
+
     @Test
     public void endMustBeGreaterOrEqualsThanStart() throws Exception {
         thrown.expect(IllegalArgumentException.class);
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+public class PackedReferenceSequenceTest {
+
+    private static final String FIRST_SEQUENCE = "ACGTNNNNNacgtRACGTTTGCAnnnGGGG";
+
+    private static final String SECOND_SEQUENCE = "TTTTTTTTTTCCCCCCCCCCAAAAAAAAAAG";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path writeFasta() throws Exception {
+        Path fasta = temporaryFolder.getRoot().toPath().resolve("reference.fa");
+        Files.write(fasta, (">1\n" + FIRST_SEQUENCE.substring(0, 20) + "\n" + FIRST_SEQUENCE.substring(20) + "\n" +
+                ">2 second sequence\n" + SECOND_SEQUENCE + "\n").getBytes());
+        return fasta;
+    }
+
+    @Test
+    public void sequencesAreTheSameAsInTheFastaFile() throws Exception {
+        Path fasta = writeFasta();
+        FastaSequenceReader reader = new FastaSequenceReader(fasta, 0, true);
+        assertTrue(Files.exists(PackedReferenceSequence.getPackedPath(fasta)));
+
+        assertEquals(FIRST_SEQUENCE, reader.getSequence("1", 1, FIRST_SEQUENCE.length()));
+        assertEquals(SECOND_SEQUENCE, reader.getSequence("2", 1, SECOND_SEQUENCE.length()));
+        assertEquals("NNacgtR", reader.getSequence("1", 8, 14));
+        for (int i = 0; i < FIRST_SEQUENCE.length(); i++) {
+            assertEquals(FIRST_SEQUENCE.charAt(i), reader.getBase("1", i + 1));
+        }
+        reader.close();
+    }
+
+    @Test
+    public void packedFileIsReused() throws Exception {
+        Path fasta = writeFasta();
+        new FastaSequenceReader(fasta, 0, true).close();
+        Path packedPath = PackedReferenceSequence.getPackedPath(fasta);
+        long lastModified = Files.getLastModifiedTime(packedPath).toMillis();
+
+        FastaSequenceReader reader = new FastaSequenceReader(fasta, 0, true);
+        assertEquals(lastModified, Files.getLastModifiedTime(packedPath).toMillis());
+        assertEquals("G", reader.getSequence("2", SECOND_SEQUENCE.length(), SECOND_SEQUENCE.length()));
+        reader.close();
+    }
+
+    @Test
+    public void readTheFastaFileIfThePackedFileCannotBeWritten() throws Exception {
+        Path fasta = writeFasta();
+        // create the index and dictionary while the directory is writable
+        new FastaSequenceReader(fasta, 0, false).close();
+        File directory = temporaryFolder.getRoot();
+        assertTrue(directory.setWritable(false));
+        try {
+            assumeFalse("The directory is still writable (e.g. running as root)", Files.isWritable(directory.toPath()));
+
+            FastaSequenceReader reader = new FastaSequenceReader(fasta, 0, true);
+            assertFalse(Files.exists(PackedReferenceSequence.getPackedPath(fasta)));
+            assertEquals(SECOND_SEQUENCE, reader.getSequence("2", 1, SECOND_SEQUENCE.length()));
+            reader.close();
+        } finally {
+            directory.setWritable(true);
+        }
+    }
+
+    @Test
+    public void sameSequencesAsAssemblyFastaFile() throws Exception {
+        Path fasta = Files.copy(Paths.get("src/test/resources/Gallus_gallus-5.0.test.fa"),
+                                temporaryFolder.getRoot().toPath().resolve("Gallus_gallus-5.0.test.fa"));
+        FastaSequenceReader fileReader = new FastaSequenceReader(fasta, 0, false);
+        FastaSequenceReader packedReader = new FastaSequenceReader(fasta, 0, true);
+
+        assertEquals(fileReader.getSequence("22", 59986, 60075), packedReader.getSequence("22", 59986, 60075));
+        assertEquals(fileReader.getSequence("22", 1, 1000), packedReader.getSequence("22", 1, 1000));
+        assertEquals('G', packedReader.getBase("22", 4729743));
+        fileReader.close();
+        packedReader.close();
+    }
+
+    @Test
+    public void missingSequence() throws Exception {
+        PackedReferenceSequence packedReference = loadPackedReference();
+        assertFalse(packedReference.containsSequence("3"));
+        thrown.expect(IllegalArgumentException.class);
+        packedReference.getBase("3", 1);
+    }
+
+    @Test
+    public void coordinatesGreaterThanEndOfSequenceAreNotAllowed() throws Exception {
+        PackedReferenceSequence packedReference = loadPackedReference();
+        thrown.expect(IllegalArgumentException.class);
+        packedReference.getSequence("2", 1, SECOND_SEQUENCE.length() + 1);
+    }
+
+    private PackedReferenceSequence loadPackedReference() throws Exception {
+        Path fasta = writeFasta();
+        new FastaSequenceReader(fasta, 0, true).close();
+        return PackedReferenceSequence.load(PackedReferenceSequence.getPackedPath(fasta));
+    }
+}
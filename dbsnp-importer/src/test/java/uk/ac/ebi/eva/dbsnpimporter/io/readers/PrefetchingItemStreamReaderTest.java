@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PrefetchingItemStreamReaderTest {
+
+    private static final List<Integer> ITEMS = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    @Test
+    public void readAllItemsInOrder() throws Exception {
+        ListItemStreamReader delegate = new ListItemStreamReader(ITEMS, -1);
+        PrefetchingItemStreamReader<Integer> reader = new PrefetchingItemStreamReader<>(delegate, 3);
+        reader.open(new ExecutionContext());
+
+        assertEquals(ITEMS, readAll(reader));
+        assertNull(reader.read());
+
+        reader.close();
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void restartFromTheLastItemReturned() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        PrefetchingItemStreamReader<Integer> reader = new PrefetchingItemStreamReader<>(
+                new ListItemStreamReader(ITEMS, -1), 3);
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        PrefetchingItemStreamReader<Integer> restartedReader = new PrefetchingItemStreamReader<>(
+                new ListItemStreamReader(ITEMS, -1), 3);
+        restartedReader.open(executionContext);
+        assertEquals(ITEMS.subList(3, ITEMS.size()), readAll(restartedReader));
+        restartedReader.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void exceptionsAreThrownAfterTheItemsReadBefore() throws Exception {
+        PrefetchingItemStreamReader<Integer> reader = new PrefetchingItemStreamReader<>(
+                new ListItemStreamReader(ITEMS, 5), 3);
+        reader.open(new ExecutionContext());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ITEMS.get(i), reader.read());
+        }
+        try {
+            reader.read();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queueSizeMustBePositive() {
+        new PrefetchingItemStreamReader<>(new ListItemStreamReader(ITEMS, -1), 0);
+    }
+
+    private List<Integer> readAll(PrefetchingItemStreamReader<Integer> reader) throws Exception {
+        List<Integer> items = new ArrayList<>();
+        Integer item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static class ListItemStreamReader implements ItemStreamReader<Integer> {
+
+        private final List<Integer> items;
+
+        private final int failingIndex;
+
+        private int index;
+
+        private boolean closed;
+
+        ListItemStreamReader(List<Integer> items, int failingIndex) {
+            this.items = items;
+            this.failingIndex = failingIndex;
+        }
+
+        @Override
+        public Integer read() {
+            if (index == failingIndex) {
+                throw new IllegalStateException("Read failed");
+            }
+            return index < items.size() ? items.get(index++) : null;
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            index = 0;
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
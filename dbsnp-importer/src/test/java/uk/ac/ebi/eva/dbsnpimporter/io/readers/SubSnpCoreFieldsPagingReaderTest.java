@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader.PreFilter;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+import uk.ac.ebi.eva.dbsnpimporter.test.DbsnpTestDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.TestConfiguration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class SubSnpCoreFieldsPagingReaderTest extends ReaderTest {
+
+    private static final String CHICKEN_ASSEMBLY_5 = "Gallus_gallus-5.0";
+
+    private static final int BATCH_1 = 11825;
+
+    private static final int PAGE_SIZE = 5;
+
+    private DataSource dataSource;
+
+    @Autowired
+    private DbsnpTestDatasource dbsnpTestDatasource;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Before
+    public void setUp() {
+        dataSource = dbsnpTestDatasource.getDatasource();
+    }
+
+    @Test
+    public void readTheSameRowsAsTheCursorReader() throws Exception {
+        List<SubSnpCoreFields> expectedSnps = readWithCursor(null, null);
+
+        SubSnpCoreFieldsPagingReader reader = new SubSnpCoreFieldsPagingReader(BATCH_1, CHICKEN_ASSEMBLY_5,
+                                                                               dataSource, PAGE_SIZE);
+        List<SubSnpCoreFields> snps = openAndReadAll(reader, new ExecutionContext());
+
+        assertEquals(28, snps.size());
+        assertEquals(expectedSnps, snps);
+    }
+
+    @Test
+    public void readLoadOrderRange() throws Exception {
+        List<SubSnpCoreFields> expectedSnps = readWithCursor(19403L, 134207L);
+
+        SubSnpCoreFieldsPagingReader reader = new SubSnpCoreFieldsPagingReader(
+                BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, PAGE_SIZE, 19403L, 134207L, EnumSet.noneOf(PreFilter.class));
+        List<SubSnpCoreFields> snps = openAndReadAll(reader, new ExecutionContext());
+
+        assertEquals(6, snps.size());
+        assertEquals(expectedSnps, snps);
+    }
+
+    @Test
+    public void restartFromTheLastRowRead() throws Exception {
+        List<SubSnpCoreFields> expectedSnps = readWithCursor(null, null);
+
+        ExecutionContext executionContext = new ExecutionContext();
+        SubSnpCoreFieldsPagingReader reader = new SubSnpCoreFieldsPagingReader(BATCH_1, CHICKEN_ASSEMBLY_5,
+                                                                               dataSource, PAGE_SIZE);
+        reader.afterPropertiesSet();
+        reader.open(executionContext);
+        List<SubSnpCoreFields> snps = new ArrayList<>();
+        for (int i = 0; i < 2 * PAGE_SIZE + 2; i++) {
+            snps.add(reader.read());
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        SubSnpCoreFieldsPagingReader restartedReader = new SubSnpCoreFieldsPagingReader(BATCH_1, CHICKEN_ASSEMBLY_5,
+                                                                                        dataSource, PAGE_SIZE);
+        snps.addAll(openAndReadAll(restartedReader, executionContext));
+
+        assertEquals(expectedSnps, snps);
+    }
+
+    @Test
+    public void incompleteLoadOrderRangeThrowsException() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        new SubSnpCoreFieldsPagingReader(BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, PAGE_SIZE, 19403L, null,
+                                         EnumSet.noneOf(PreFilter.class));
+    }
+
+    private List<SubSnpCoreFields> openAndReadAll(SubSnpCoreFieldsPagingReader reader,
+                                                  ExecutionContext executionContext) throws Exception {
+        reader.afterPropertiesSet();
+        reader.open(executionContext);
+        try {
+            return readAll(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<SubSnpCoreFields> readWithCursor(Long minLoadOrder, Long maxLoadOrder) throws Exception {
+        SubSnpCoreFieldsReader reader = new SubSnpCoreFieldsReader(BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, 100,
+                                                                   minLoadOrder, maxLoadOrder);
+        reader.afterPropertiesSet();
+        reader.open(new ExecutionContext());
+        try {
+            return readAll(reader);
+        } finally {
+            reader.close();
+        }
+    }
+}
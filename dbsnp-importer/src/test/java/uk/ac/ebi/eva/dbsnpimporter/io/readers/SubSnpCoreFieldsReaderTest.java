@@ -35,8 +35,10 @@ import uk.ac.ebi.eva.dbsnpimporter.test.configuration.TestConfiguration;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -312,6 +314,21 @@ public class SubSnpCoreFieldsReaderTest extends ReaderTest {
         assertEquals(4, list.size());
     }
 
+    @Test
+    public void testQueryWithLoadOrderRange() throws Exception {
+        reader = new SubSnpCoreFieldsReader(BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, 100, 19403L, 134207L);
+        reader.afterPropertiesSet();
+        reader.open(new ExecutionContext());
+        List<SubSnpCoreFields> list = readAll(reader);
+        assertEquals(6, list.size());
+    }
+
+    @Test
+    public void testIncompleteLoadOrderRangeThrowsException() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        new SubSnpCoreFieldsReader(BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, 100, 19403L, null);
+    }
+
     @Test
     public void testQueryWithNonExistingBatch() throws Exception {
         int nonExistingBatch = 42;
@@ -319,4 +336,34 @@ public class SubSnpCoreFieldsReaderTest extends ReaderTest {
         List<SubSnpCoreFields> list = readAll(reader);
         assertEquals(0, list.size());
     }
+
+    @Test
+    public void testQueryWithPreFilters() throws Exception {
+        reader = buildReader(BATCH_1, CHICKEN_ASSEMBLY_5, 100);
+        List<SubSnpCoreFields> allSnps = readAll(reader);
+        reader.close();
+        List<SubSnpCoreFields> expectedSnps = allSnps.stream()
+                                                     .filter(snp -> snp.getVariantCoordinates() != null)
+                                                     .filter(snp -> snp.getHgvsCString() != null
+                                                             || snp.getHgvsTString() != null)
+                                                     .filter(snp -> !isEmpty(snp.getRawGenotypesString())
+                                                             || !isEmpty(snp.getRawFrequenciesInfo()))
+                                                     .collect(Collectors.toList());
+
+        reader = new SubSnpCoreFieldsReader(BATCH_1, CHICKEN_ASSEMBLY_5, dataSource, 100, null, null,
+                                            EnumSet.allOf(SubSnpCoreFieldsReader.PreFilter.class));
+        reader.afterPropertiesSet();
+        ExecutionContext executionContext = new ExecutionContext();
+        reader.open(executionContext);
+        List<SubSnpCoreFields> preFilteredSnps = readAll(reader);
+        reader.update(executionContext);
+
+        assertEquals(expectedSnps, preFilteredSnps);
+        assertEquals(allSnps.size() - expectedSnps.size(),
+                     executionContext.getLong(SubSnpCoreFieldsReader.PRE_FILTERED_ROWS_KEY));
+    }
+
+    private boolean isEmpty(String string) {
+        return string == null || string.trim().isEmpty();
+    }
 }
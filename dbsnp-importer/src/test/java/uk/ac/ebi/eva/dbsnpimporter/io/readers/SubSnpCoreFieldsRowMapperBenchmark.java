@@ -0,0 +1,235 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.RowMapper;
+
+import uk.ac.ebi.eva.dbsnpimporter.models.LocusType;
+import uk.ac.ebi.eva.dbsnpimporter.models.Orientation;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.*;
+
+/**
+ * Compares {@link SubSnpCoreFieldsRowMapper} with the previous mapper, which looked up every column by name and read
+ * the nullable numbers with getObject, over a synthetic result set.
+ *
+ * The result set is kept in memory so that only the mapping is measured. Like the JDBC drivers, it resolves the
+ * column names case-insensitively, and some of the nullable columns are null.
+ *
+ * Run with the main method, from an IDE or with the test classpath, after compiling the test classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubSnpCoreFieldsRowMapperBenchmark {
+
+    private static final List<String> COLUMNS = Arrays.asList(
+            SUBSNP_ID_COLUMN, SUBSNP_ORIENTATION_COLUMN, REFSNP_ID_COLUMN, SNP_ORIENTATION_COLUMN, CONTIG_NAME_COLUMN,
+            CONTIG_START_COLUMN, CONTIG_END_COLUMN, CONTIG_ORIENTATION_COLUMN, LOC_TYPE_COLUMN, CHROMOSOME_COLUMN,
+            CHROMOSOME_START_COLUMN, CHROMOSOME_END_COLUMN, REFERENCE_C, REFERENCE_T, ALTERNATE, ALLELES,
+            HGVS_C_STRING, HGVS_C_START, HGVS_C_STOP, HGVS_C_ORIENTATION, HGVS_T_STRING, HGVS_T_START, HGVS_T_STOP,
+            HGVS_T_ORIENTATION, GENOTYPES_COLUMN, FREQUENCIES_COLUMN, BATCH_COLUMN);
+
+    @Param({"1000"})
+    public int rowCount;
+
+    private Object[][] rows;
+
+    @Setup
+    public void setUp() {
+        rows = new Object[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = createRow(i);
+        }
+    }
+
+    /**
+     * Every fourth row has no RS ID, every fifth is not mapped to a chromosome, and every third has no HGVS_C.
+     */
+    private static Object[] createRow(int i) {
+        boolean mappedToChromosome = i % 5 != 0;
+        boolean hasHgvsC = mappedToChromosome && i % 3 != 0;
+        long contigStart = 1000L + i;
+        Long chromosomeStart = mappedToChromosome ? 91223961L + i : null;
+        int orientation = i % 2 == 0 ? 1 : -1;
+        return new Object[]{
+                26201546L + i, orientation, i % 4 == 0 ? null : 13677177L + i, 1, "NT_455866.1",
+                contigStart, contigStart, orientation, 2, mappedToChromosome ? "4" : null,
+                chromosomeStart, chromosomeStart, "T", "T", "A", "T/A",
+                hasHgvsC ? "NC_006091.4:g." + chromosomeStart + "T>A" : null, hasHgvsC ? chromosomeStart : null,
+                hasHgvsC ? chromosomeStart : null, 1, "NT_455866.1:g." + contigStart + "T>A", contigStart,
+                contigStart, 1, "T/A,A/A,T/T", null, "BATCH_" + (i % 10)};
+    }
+
+    @Benchmark
+    public void lookupColumnsByName(Blackhole blackhole) throws SQLException {
+        mapRows(new NameLookupRowMapper(), blackhole);
+    }
+
+    @Benchmark
+    public void resolveColumnIndicesOnce(Blackhole blackhole) throws SQLException {
+        mapRows(new SubSnpCoreFieldsRowMapper(), blackhole);
+    }
+
+    private void mapRows(RowMapper<SubSnpCoreFields> rowMapper, Blackhole blackhole) throws SQLException {
+        ResultSet resultSet = createResultSet(rows);
+        int rowNum = 0;
+        while (resultSet.next()) {
+            blackhole.consume(rowMapper.mapRow(resultSet, rowNum++));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SubSnpCoreFieldsRowMapperBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+
+    /**
+     * Creates a forward-only result set over the rows, which supports the accessors used by the mappers.
+     */
+    private static ResultSet createResultSet(Object[][] rows) {
+        Map<String, Integer> columnIndices = new HashMap<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columnIndices.put(COLUMNS.get(i).toLowerCase(Locale.ROOT), i + 1);
+        }
+        int[] currentRow = {-1};
+        boolean[] lastValueWasNull = {false};
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                                                  (proxy, method, arguments) -> {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "next":
+                    return ++currentRow[0] < rows.length;
+                case "wasNull":
+                    return lastValueWasNull[0];
+                case "findColumn":
+                    return findColumn(columnIndices, (String) arguments[0]);
+                case "getObject":
+                case "getLong":
+                case "getInt":
+                case "getString":
+                    int columnIndex = arguments[0] instanceof String ?
+                            findColumn(columnIndices, (String) arguments[0]) : (Integer) arguments[0];
+                    Object value = rows[currentRow[0]][columnIndex - 1];
+                    lastValueWasNull[0] = value == null;
+                    if (methodName.equals("getLong")) {
+                        return value == null ? 0L : ((Number) value).longValue();
+                    } else if (methodName.equals("getInt")) {
+                        return value == null ? 0 : ((Number) value).intValue();
+                    }
+                    return value;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == arguments[0];
+                case "toString":
+                    return "SyntheticResultSet";
+                default:
+                    throw new UnsupportedOperationException(methodName);
+            }
+        });
+    }
+
+    private static int findColumn(Map<String, Integer> columnIndices, String column) throws SQLException {
+        Integer columnIndex = columnIndices.get(column.toLowerCase(Locale.ROOT));
+        if (columnIndex == null) {
+            throw new SQLException("Column " + column + " not found");
+        }
+        return columnIndex;
+    }
+
+    /**
+     * The mapper as it was before the column indices were resolved once per result set.
+     */
+    private static class NameLookupRowMapper implements RowMapper<SubSnpCoreFields> {
+
+        private ResultSet resultSet;
+
+        @Override
+        public SubSnpCoreFields mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+            this.resultSet = resultSet;
+            return new SubSnpCoreFields(
+                    resultSet.getLong(SUBSNP_ID_COLUMN),
+                    Orientation.getOrientation(resultSet.getInt(SUBSNP_ORIENTATION_COLUMN)),
+                    getAsLong(REFSNP_ID_COLUMN),
+                    Orientation.getOrientation(resultSet.getInt(SNP_ORIENTATION_COLUMN)),
+                    resultSet.getString(CONTIG_NAME_COLUMN),
+                    resultSet.getLong(CONTIG_START_COLUMN),
+                    resultSet.getLong(CONTIG_END_COLUMN),
+                    Orientation.getOrientation(resultSet.getInt(CONTIG_ORIENTATION_COLUMN)),
+                    LocusType.getLocusType(resultSet.getInt(LOC_TYPE_COLUMN)),
+                    resultSet.getString(CHROMOSOME_COLUMN),
+                    getAsLong(CHROMOSOME_START_COLUMN),
+                    getAsLong(CHROMOSOME_END_COLUMN),
+                    resultSet.getString(REFERENCE_C),
+                    resultSet.getString(REFERENCE_T),
+                    resultSet.getString(ALTERNATE),
+                    resultSet.getString(ALLELES),
+                    resultSet.getString(HGVS_C_STRING),
+                    getAsLong(HGVS_C_START),
+                    getAsLong(HGVS_C_STOP),
+                    Orientation.getOrientation(resultSet.getInt(HGVS_C_ORIENTATION)),
+                    resultSet.getString(HGVS_T_STRING),
+                    getAsLong(HGVS_T_START),
+                    getAsLong(HGVS_T_STOP),
+                    Orientation.getOrientation(resultSet.getInt(HGVS_T_ORIENTATION)),
+                    resultSet.getString(GENOTYPES_COLUMN),
+                    resultSet.getString(FREQUENCIES_COLUMN),
+                    resultSet.getString(BATCH_COLUMN));
+        }
+
+        private Long getAsLong(String column) throws SQLException {
+            Object object = resultSet.getObject(column);
+            if (object == null) {
+                return null;
+            } else if (object instanceof Number) {
+                return ((Number) object).longValue();
+            } else {
+                throw new IllegalArgumentException("Can not convert column '" + column + "' to Number.");
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.readers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsRowMapper.*;
+
+public class SubSnpCoreFieldsRowMapperTest {
+
+    private static final List<String> COLUMNS = Arrays.asList(
+            SUBSNP_ID_COLUMN, SUBSNP_ORIENTATION_COLUMN, REFSNP_ID_COLUMN, SNP_ORIENTATION_COLUMN, CONTIG_NAME_COLUMN,
+            CONTIG_START_COLUMN, CONTIG_END_COLUMN, CONTIG_ORIENTATION_COLUMN, LOC_TYPE_COLUMN, CHROMOSOME_COLUMN,
+            CHROMOSOME_START_COLUMN, CHROMOSOME_END_COLUMN, REFERENCE_C, REFERENCE_T, ALTERNATE, ALLELES,
+            HGVS_C_STRING, HGVS_C_START, HGVS_C_STOP, HGVS_C_ORIENTATION, HGVS_T_STRING, HGVS_T_START, HGVS_T_STOP,
+            HGVS_T_ORIENTATION, GENOTYPES_COLUMN, FREQUENCIES_COLUMN, BATCH_COLUMN);
+
+    private Map<String, Object> row;
+
+    private boolean lastValueWasNull;
+
+    private ResultSet resultSet;
+
+    @Before
+    public void setUp() throws SQLException {
+        row = new HashMap<>();
+        resultSet = mock(ResultSet.class);
+        when(resultSet.findColumn(anyString())).thenAnswer(
+                invocation -> COLUMNS.indexOf(invocation.<String>getArgument(0)) + 1);
+        when(resultSet.getLong(anyInt())).thenAnswer(invocation -> {
+            Number value = (Number) getValue(invocation.getArgument(0));
+            return value == null ? 0L : value.longValue();
+        });
+        when(resultSet.getInt(anyInt())).thenAnswer(invocation -> {
+            Number value = (Number) getValue(invocation.getArgument(0));
+            return value == null ? 0 : value.intValue();
+        });
+        when(resultSet.getString(anyInt())).thenAnswer(invocation -> (String) getValue(invocation.getArgument(0)));
+        when(resultSet.wasNull()).thenAnswer(invocation -> lastValueWasNull);
+    }
+
+    private Object getValue(int columnIndex) {
+        Object value = row.get(COLUMNS.get(columnIndex - 1));
+        lastValueWasNull = value == null;
+        return value;
+    }
+
+    private void setRow(long ssId, Long rsId, Long chromosomeStart) {
+        row.clear();
+        row.put(SUBSNP_ID_COLUMN, ssId);
+        row.put(SUBSNP_ORIENTATION_COLUMN, 1);
+        row.put(REFSNP_ID_COLUMN, rsId);
+        row.put(SNP_ORIENTATION_COLUMN, 1);
+        row.put(CONTIG_NAME_COLUMN, "NT_1");
+        row.put(CONTIG_START_COLUMN, 10L);
+        row.put(CONTIG_END_COLUMN, 10L);
+        row.put(CONTIG_ORIENTATION_COLUMN, -1);
+        row.put(LOC_TYPE_COLUMN, 2);
+        row.put(CHROMOSOME_COLUMN, "1");
+        row.put(CHROMOSOME_START_COLUMN, chromosomeStart);
+        row.put(CHROMOSOME_END_COLUMN, chromosomeStart);
+        row.put(ALTERNATE, "T");
+        row.put(ALLELES, "A/T");
+        row.put(HGVS_C_ORIENTATION, 1);
+        row.put(HGVS_T_ORIENTATION, 1);
+        row.put(BATCH_COLUMN, "BATCH");
+    }
+
+    @Test
+    public void mapRowsWithAndWithoutNullValues() throws SQLException {
+        SubSnpCoreFieldsRowMapper rowMapper = new SubSnpCoreFieldsRowMapper();
+
+        setRow(1L, 100L, 1000L);
+        SubSnpCoreFields first = rowMapper.mapRow(resultSet, 0);
+        setRow(2L, null, null);
+        SubSnpCoreFields second = rowMapper.mapRow(resultSet, 1);
+
+        assertEquals(1L, first.getSsId());
+        assertEquals(Long.valueOf(100), first.getRsId());
+        assertEquals(new Region("1", 1000L, 1000L), first.getChromosomeRegion());
+        assertEquals("BATCH", first.getBatch());
+        assertNull(first.getHgvsCStart());
+
+        assertEquals(2L, second.getSsId());
+        assertNull(second.getRsId());
+        assertEquals(new Region("1"), second.getChromosomeRegion());
+    }
+
+    @Test
+    public void columnsAreResolvedOncePerResultSet() throws SQLException {
+        SubSnpCoreFieldsRowMapper rowMapper = new SubSnpCoreFieldsRowMapper();
+
+        setRow(1L, 100L, 1000L);
+        for (int i = 0; i < 10; i++) {
+            rowMapper.mapRow(resultSet, i);
+        }
+
+        verify(resultSet, times(COLUMNS.size())).findColumn(anyString());
+    }
+}
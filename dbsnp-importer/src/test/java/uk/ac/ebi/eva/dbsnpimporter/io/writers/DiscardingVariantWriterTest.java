@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.dbsnpimporter.jobs.metrics.ImportMetrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DiscardingVariantWriterTest {
+
+    private static final long JOB_EXECUTION_ID = 1L;
+
+    private static final List<IVariant> VARIANTS = Arrays.asList(new Variant("1", 100, 100, "A", "T"),
+                                                                  new Variant("1", 200, 200, "C", "G"));
+
+    private ImportMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new ImportMetrics();
+        StepSynchronizationManager.register(new JobExecution(JOB_EXECUTION_ID).createStepExecution("step"));
+    }
+
+    @After
+    public void tearDown() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void countVariants() {
+        DiscardingVariantWriter writer = new DiscardingVariantWriter(metrics, null);
+
+        writer.write(VARIANTS);
+        writer.write(VARIANTS.subList(0, 1));
+
+        ImportMetrics.JobMetrics jobMetrics = metrics.remove(JOB_EXECUTION_ID);
+        assertEquals(2, jobMetrics.getCount(DiscardingVariantWriter.WRITES_COUNTER));
+        assertEquals(3, jobMetrics.getCount(DiscardingVariantWriter.VARIANTS_COUNTER));
+        assertEquals(0, jobMetrics.getCount(DiscardingVariantWriter.BSON_BYTES_COUNTER));
+        assertFalse(jobMetrics.getTimers().containsKey(DiscardingVariantWriter.ENCODE_TIMER));
+    }
+
+    @Test
+    public void measureTheEncodingOfVariants() {
+        Document document = new Document("chr", "1").append("start", 100);
+        long documentBytes = new RawBsonDocument(document, new DocumentCodec()).getByteBuffer().remaining();
+        MongoConverter converter = mock(MongoConverter.class);
+        when(converter.convertToMongoType(any(VariantMongo.class))).thenReturn(document);
+        DiscardingVariantWriter writer = new DiscardingVariantWriter(metrics, converter);
+
+        writer.write(VARIANTS);
+
+        verify(converter, times(2)).convertToMongoType(any(VariantMongo.class));
+        ImportMetrics.JobMetrics jobMetrics = metrics.remove(JOB_EXECUTION_ID);
+        assertEquals(2, jobMetrics.getCount(DiscardingVariantWriter.VARIANTS_COUNTER));
+        assertEquals(2 * documentBytes, jobMetrics.getCount(DiscardingVariantWriter.BSON_BYTES_COUNTER));
+        assertTrue(jobMetrics.getTimers().containsKey(DiscardingVariantWriter.ENCODE_TIMER));
+        assertEquals(1, jobMetrics.getTimers().get(DiscardingVariantWriter.ENCODE_TIMER).getCount());
+    }
+}
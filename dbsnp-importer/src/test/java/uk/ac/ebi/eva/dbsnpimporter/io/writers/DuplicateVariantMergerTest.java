@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.IVariantSourceEntry;
+import uk.ac.ebi.eva.commons.core.models.VariantStatistics;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DuplicateVariantMergerTest {
+
+    private static final String BATCH = "11825";
+
+    private static final String OTHER_BATCH = "11828";
+
+    private static final List<Map<String, String>> GENOTYPES = Arrays.asList(Collections.singletonMap("GT", "0/1"),
+                                                                             Collections.singletonMap("GT", "1/1"));
+
+    private static final Map<String, VariantStatistics> STATISTICS = Collections.singletonMap(
+            "POP", new VariantStatistics("A", "T", VariantType.SNV, 0.25f, -1, "T", null, 0, -1, -1, -1, -1, -1, -1));
+
+    private DuplicateVariantMerger merger;
+
+    @Before
+    public void setUp() {
+        merger = new DuplicateVariantMerger();
+    }
+
+    @Test
+    public void variantsWithGenotypesAndFrequenciesAreMergedInOneSourceEntry() {
+        List<IVariant> merged = merger.merge(Arrays.asList(
+                buildVariant(100, "ss1", buildSourceEntry(BATCH, GENOTYPES, Collections.emptyMap())),
+                buildVariant(100, "ss2", buildSourceEntry(BATCH, Collections.emptyList(), STATISTICS))));
+
+        assertEquals(1, merged.size());
+        IVariant variant = merged.get(0);
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss1", "ss2")), variant.getDbsnpIds());
+        assertEquals("rs1", variant.getMainId());
+        assertEquals(1, variant.getSourceEntries().size());
+        IVariantSourceEntry sourceEntry = variant.getSourceEntries().iterator().next();
+        assertEquals(GENOTYPES, sourceEntry.getSamplesData());
+        assertEquals(STATISTICS.keySet(), sourceEntry.getCohortStats().keySet());
+    }
+
+    @Test
+    public void sourceEntriesOfDifferentFilesAreKept() {
+        List<IVariant> merged = merger.merge(Arrays.asList(
+                buildVariant(100, "ss1", buildSourceEntry(BATCH, GENOTYPES, Collections.emptyMap())),
+                buildVariant(100, "ss2", buildSourceEntry(OTHER_BATCH, GENOTYPES, Collections.emptyMap()))));
+
+        assertEquals(1, merged.size());
+        assertEquals(2, merged.get(0).getSourceEntries().size());
+    }
+
+    @Test
+    public void variantsWithDifferentGenotypesAreNotMerged() {
+        List<Map<String, String>> otherGenotypes = Arrays.asList(Collections.singletonMap("GT", "0/0"),
+                                                                 Collections.singletonMap("GT", "1/1"));
+        IVariant first = buildVariant(100, "ss1", buildSourceEntry(BATCH, GENOTYPES, Collections.emptyMap()));
+        IVariant second = buildVariant(100, "ss2", buildSourceEntry(BATCH, otherGenotypes, Collections.emptyMap()));
+
+        List<IVariant> merged = merger.merge(Arrays.asList(first, second));
+
+        assertEquals(2, merged.size());
+        assertSame(first, merged.get(0));
+        assertSame(second, merged.get(1));
+    }
+
+    @Test
+    public void onlyCompatibleVariantsAreMerged() {
+        List<Map<String, String>> otherGenotypes = Arrays.asList(Collections.singletonMap("GT", "0/0"),
+                                                                 Collections.singletonMap("GT", "1/1"));
+        List<IVariant> merged = merger.merge(Arrays.asList(
+                buildVariant(100, "ss1", buildSourceEntry(BATCH, GENOTYPES, Collections.emptyMap())),
+                buildVariant(200, "ss2", buildSourceEntry(BATCH, GENOTYPES, Collections.emptyMap())),
+                buildVariant(100, "ss3", buildSourceEntry(BATCH, otherGenotypes, Collections.emptyMap())),
+                buildVariant(100, "ss4", buildSourceEntry(BATCH, Collections.emptyList(), STATISTICS))));
+
+        assertEquals(3, merged.size());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss1", "ss4")), merged.get(0).getDbsnpIds());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss3")), merged.get(1).getDbsnpIds());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss2")), merged.get(2).getDbsnpIds());
+    }
+
+    private VariantSourceEntry buildSourceEntry(String batch, List<Map<String, String>> samplesData,
+                                                Map<String, VariantStatistics> statistics) {
+        return new VariantSourceEntry(batch, batch, new String[0], null, statistics, Collections.emptyMap(),
+                                      samplesData);
+    }
+
+    private Variant buildVariant(long start, String ssId, VariantSourceEntry sourceEntry) {
+        Variant variant = new Variant("1", start, start, "A", "T");
+        variant.setMainId("rs1");
+        variant.setIds(Collections.singleton("rs1"));
+        variant.addDbsnpId("rs1");
+        variant.addDbsnpId(ssId);
+        variant.addSourceEntry(sourceEntry);
+        return variant;
+    }
+}
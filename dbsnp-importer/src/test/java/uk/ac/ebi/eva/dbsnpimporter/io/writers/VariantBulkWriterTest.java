@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class VariantBulkWriterTest {
+
+    private static final String BATCH = "11825";
+
+    @Test
+    public void duplicatedVariantsAreMerged() throws Exception {
+        List<List<IVariant>> writes = new ArrayList<>();
+        VariantBulkWriter writer = new VariantBulkWriter(items -> writes.add(new ArrayList<>(items)), Long.MAX_VALUE);
+
+        writer.write(Arrays.asList(buildVariant(100, "ss1", "0/1"), buildVariant(200, "ss2", "0/1"),
+                                   buildVariant(100, "ss3", "0/1")));
+
+        assertEquals(1, writes.size());
+        assertEquals(2, writes.get(0).size());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss1", "ss3")), writes.get(0).get(0).getDbsnpIds());
+        assertEquals(Collections.singleton("rs1"), writes.get(0).get(0).getIds());
+        assertEquals(1, writes.get(0).get(0).getSourceEntries().size());
+    }
+
+    @Test
+    public void variantsWithDifferentSourceEntriesAreNotMerged() throws Exception {
+        List<List<IVariant>> writes = new ArrayList<>();
+        VariantBulkWriter writer = new VariantBulkWriter(items -> writes.add(new ArrayList<>(items)), Long.MAX_VALUE);
+
+        writer.write(Arrays.asList(buildVariant(100, "ss1", "0/1"), buildVariant(100, "ss2", "1/1")));
+
+        assertEquals(1, writes.size());
+        assertEquals(2, writes.get(0).size());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss1")), writes.get(0).get(0).getDbsnpIds());
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss2")), writes.get(0).get(1).getDbsnpIds());
+    }
+
+    @Test
+    public void bulkWritesAreLimitedBySize() throws Exception {
+        List<IVariant> variants = Arrays.asList(buildVariant(100, "ss1", "0/1"), buildVariant(200, "ss2", "0/1"),
+                                                buildVariant(300, "ss3", "0/1"));
+        long variantSize = VariantBulkWriter.estimateSize(variants.get(0));
+
+        List<List<IVariant>> writes = new ArrayList<>();
+        VariantBulkWriter writer = new VariantBulkWriter(items -> writes.add(new ArrayList<>(items)),
+                                                         2 * variantSize);
+        writer.write(variants);
+
+        assertEquals(2, writes.size());
+        assertEquals(2, writes.get(0).size());
+        assertEquals(1, writes.get(1).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maximumSizeMustBePositive() {
+        new VariantBulkWriter(items -> {
+        }, 0);
+    }
+
+    private Variant buildVariant(long start, String ssId, String genotype) {
+        Variant variant = new Variant("1", start, start, "A", "T");
+        variant.setMainId("rs1");
+        variant.setIds(Collections.singleton("rs1"));
+        variant.addDbsnpId("rs1");
+        variant.addDbsnpId(ssId);
+        List<Map<String, String>> samplesData = Collections.singletonList(Collections.singletonMap("GT", genotype));
+        variant.addSourceEntry(new VariantSourceEntry(BATCH, BATCH, new String[0], null, Collections.emptyMap(),
+                                                      Collections.emptyMap(), samplesData));
+        return variant;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.io.writers;
+
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.VariantSourceEntry;
+import uk.ac.ebi.eva.commons.mongodb.configuration.EvaRepositoriesConfiguration;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.commons.mongodb.repositories.VariantRepository;
+import uk.ac.ebi.eva.dbsnpimporter.configuration.mongo.MongoConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.parameters.Parameters;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.MongoTestConfiguration;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.TestConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class, MongoConfiguration.class, MongoTestConfiguration.class,
+        EvaRepositoriesConfiguration.class})
+public class VariantUpsertMongoWriterTest {
+
+    private static final String TEST_DB = "test-db";
+
+    private static final String BATCH = "11825";
+
+    private static final String OTHER_BATCH = "11826";
+
+    @Autowired
+    private Parameters parameters;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private MongoConverter mongoConverter;
+
+    @Autowired
+    private VariantRepository variantRepository;
+
+    @Rule
+    public MongoDbRule mongoDbRule = MongoDbRule.MongoDbRuleBuilder.newMongoDbRule().defaultSpringMongoDb(TEST_DB);
+
+    private MongoCollection<Document> collection;
+
+    @Before
+    public void setUp() {
+        if (mongoOperations.collectionExists(parameters.getVariantsCollection())) {
+            mongoOperations.dropCollection(parameters.getVariantsCollection());
+        }
+        collection = mongoOperations.getCollection(parameters.getVariantsCollection())
+                                    .withWriteConcern(WriteConcern.W1.withJournal(false));
+    }
+
+    @Test
+    public void eachSubListIsWrittenInItsOwnBulkWrite() throws Exception {
+        List<IVariant> variants = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            variants.add(buildVariant(100 * i, "ss" + i, BATCH, "0/1"));
+        }
+        long variantSize = VariantBulkWriter.estimateSize(variants.get(0));
+        VariantUpsertMongoWriter upsertWriter = new VariantUpsertMongoWriter(collection, mongoConverter);
+        List<Long> documentsAfterEachWrite = new ArrayList<>();
+        VariantBulkWriter writer = new VariantBulkWriter(items -> {
+            upsertWriter.write(items);
+            documentsAfterEachWrite.add(collection.count());
+        }, 2 * variantSize);
+
+        writer.write(variants);
+
+        // the documents are in the database as soon as each bulk write is issued
+        assertEquals(Arrays.asList(2L, 4L, 5L), documentsAfterEachWrite);
+    }
+
+    @Test
+    public void variantsAreMergedWithTheExistingDocuments() throws Exception {
+        VariantUpsertMongoWriter writer = new VariantUpsertMongoWriter(collection, mongoConverter);
+
+        writer.write(Collections.singletonList(buildVariant(100, "ss1", BATCH, "0/1")));
+        writer.write(Arrays.asList(buildVariant(100, "ss2", OTHER_BATCH, "1/1"),
+                                   buildVariant(200, "ss3", OTHER_BATCH, "0/0")));
+
+        assertEquals(2, collection.count());
+        List<VariantMongo> variants = variantRepository.findByChromosomeAndStartAndReference("1", 100, "A");
+        assertEquals(1, variants.size());
+        assertEquals(2, variants.get(0).getSourceEntries().size());
+
+        Document document = collection.find(new Document(VariantMongo.START_FIELD, 100L)).first();
+        assertEquals(new HashSet<>(Arrays.asList("rs1", "ss1", "ss2")),
+                     new HashSet<>(document.get(VariantMongo.DBSNP_IDS_FIELD, List.class)));
+        assertEquals(Collections.singletonList("rs1"), document.get(VariantMongo.IDS_FIELD, List.class));
+    }
+
+    @Test
+    public void writingTheSameVariantTwiceDoesNotDuplicateItsFiles() throws Exception {
+        VariantUpsertMongoWriter writer = new VariantUpsertMongoWriter(collection, mongoConverter);
+
+        writer.write(Collections.singletonList(buildVariant(100, "ss1", BATCH, "0/1")));
+        writer.write(Collections.singletonList(buildVariant(100, "ss1", BATCH, "0/1")));
+
+        List<VariantMongo> variants = variantRepository.findByChromosomeAndStartAndReference("1", 100, "A");
+        assertEquals(1, variants.size());
+        assertEquals(1, variants.get(0).getSourceEntries().size());
+    }
+
+    @Test
+    public void upsertsFailingWithADuplicateKeyAreRetried() throws Exception {
+        @SuppressWarnings("unchecked")
+        MongoCollection<Document> mockCollection = mock(MongoCollection.class);
+        BulkWriteError duplicateKeyError = new BulkWriteError(VariantUpsertMongoWriter.DUPLICATE_KEY_ERROR_CODE,
+                                                              "E11000 duplicate key error", new BsonDocument(), 1);
+        when(mockCollection.bulkWrite(any(), any(BulkWriteOptions.class)))
+                .thenThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                                                       Collections.singletonList(duplicateKeyError), null,
+                                                       new ServerAddress()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList()));
+        VariantUpsertMongoWriter writer = new VariantUpsertMongoWriter(mockCollection, mongoConverter);
+
+        writer.write(Arrays.asList(buildVariant(100, "ss1", BATCH, "0/1"), buildVariant(200, "ss2", BATCH, "0/1")));
+
+        ArgumentCaptor<List<WriteModel<Document>>> upserts = ArgumentCaptor.forClass((Class) List.class);
+        verify(mockCollection, times(2)).bulkWrite(upserts.capture(), any(BulkWriteOptions.class));
+        assertEquals(2, upserts.getAllValues().get(0).size());
+        assertEquals(Collections.singletonList(upserts.getAllValues().get(0).get(1)), upserts.getAllValues().get(1));
+    }
+
+    @Test(expected = MongoBulkWriteException.class)
+    public void otherWriteErrorsAreNotRetried() throws Exception {
+        @SuppressWarnings("unchecked")
+        MongoCollection<Document> mockCollection = mock(MongoCollection.class);
+        BulkWriteError otherError = new BulkWriteError(2, "bad value", new BsonDocument(), 0);
+        when(mockCollection.bulkWrite(any(), any(BulkWriteOptions.class)))
+                .thenThrow(new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                                                       Collections.singletonList(otherError), null,
+                                                       new ServerAddress()));
+        VariantUpsertMongoWriter writer = new VariantUpsertMongoWriter(mockCollection, mongoConverter);
+
+        writer.write(Collections.singletonList(buildVariant(100, "ss1", BATCH, "0/1")));
+    }
+
+    private Variant buildVariant(long start, String ssId, String batch, String genotype) {
+        Variant variant = new Variant("1", start, start, "A", "T");
+        variant.setMainId("rs1");
+        variant.setIds(Collections.singleton("rs1"));
+        variant.addDbsnpId("rs1");
+        variant.addDbsnpId(ssId);
+        List<Map<String, String>> samplesData = Collections.singletonList(Collections.singletonMap("GT", genotype));
+        variant.addSourceEntry(new VariantSourceEntry(batch, batch, new String[0], null, Collections.emptyMap(),
+                                                      Collections.emptyMap(), samplesData));
+        return variant;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ImportMetricsListenerTest {
+
+    private static final long JOB_EXECUTION_ID = 3L;
+
+    private static final String STEP_NAME = "IMPORT_STEP";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeSummaryAtTheEndOfTheJob() throws Exception {
+        ImportMetrics metrics = new ImportMetrics();
+        Path metricsDirectory = temporaryFolder.getRoot().toPath().resolve("metrics");
+        ImportMetricsListener listener = new ImportMetricsListener(metrics, metricsDirectory);
+
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "job"), JOB_EXECUTION_ID,
+                                                     new JobParameters(), null);
+        jobExecution.setStartTime(new Date());
+        StepExecution stepExecution = jobExecution.createStepExecution(STEP_NAME);
+        stepExecution.setReadCount(10);
+        stepExecution.setWriteCount(8);
+        stepExecution.setStartTime(new Date(System.currentTimeMillis() - 2000));
+        stepExecution.setEndTime(new Date());
+
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            listener.beforeWrite(Collections.emptyList());
+            listener.afterWrite(Collections.emptyList());
+            metrics.increment("filtered.invalidGenotypes");
+            metrics.increment("filtered.invalidGenotypes");
+        } finally {
+            StepSynchronizationManager.close();
+        }
+        listener.afterJob(jobExecution);
+
+        Path metricsFile = metricsDirectory.resolve(ImportMetricsListener.METRICS_FILE_PREFIX + JOB_EXECUTION_ID +
+                                                            ImportMetricsListener.METRICS_FILE_EXTENSION);
+        assertTrue(Files.exists(metricsFile));
+        JsonNode summary = new ObjectMapper().readTree(metricsFile.toFile());
+        assertEquals("job", summary.get("jobName").asText());
+        assertEquals(2, summary.get("counters").get("filtered.invalidGenotypes").asLong());
+        assertEquals(1, summary.get("timers").get(ImportMetricsListener.WRITE_TIMER).get("count").asLong());
+
+        JsonNode step = summary.get("steps").get(0);
+        assertEquals(STEP_NAME, step.get("name").asText());
+        assertEquals(10, step.get("readCount").asLong());
+        assertEquals(8, step.get("writeCount").asLong());
+        assertEquals(5.0, step.get("itemsPerSecond").asDouble(), 1.0);
+    }
+}
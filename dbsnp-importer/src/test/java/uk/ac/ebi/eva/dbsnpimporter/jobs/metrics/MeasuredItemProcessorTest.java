@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+
+import static org.junit.Assert.assertEquals;
+
+public class MeasuredItemProcessorTest {
+
+    private static final long JOB_EXECUTION_ID = 1L;
+
+    private ImportMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new ImportMetrics();
+        StepExecution stepExecution = new JobExecution(JOB_EXECUTION_ID).createStepExecution("step");
+        StepSynchronizationManager.register(stepExecution);
+    }
+
+    @After
+    public void tearDown() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void countFilteredAndModifiedItems() throws Exception {
+        MeasuredItemProcessor<String, String> processor = new MeasuredItemProcessor<>(new EvenLengthProcessor(),
+                                                                                      metrics);
+        assertEquals("AB", processor.process("AB"));
+        assertEquals(null, processor.process("abc"));
+        assertEquals("ABCD", processor.process("ABCD"));
+        assertEquals("EFGH", processor.process("efgh"));
+
+        ImportMetrics.JobMetrics jobMetrics = metrics.remove(JOB_EXECUTION_ID);
+        String name = EvenLengthProcessor.class.getSimpleName();
+        assertEquals(1, jobMetrics.getCount(MeasuredItemProcessor.FILTERED_COUNTER_PREFIX + name));
+        assertEquals(1, jobMetrics.getCount(MeasuredItemProcessor.MODIFIED_COUNTER_PREFIX + name));
+        assertEquals(4, jobMetrics.getTimers().get(MeasuredItemProcessor.PROCESS_TIMER_PREFIX + name).getCount());
+    }
+
+    @Test
+    public void metricsAreKeptByJobExecution() throws Exception {
+        metrics.increment("counter");
+        StepSynchronizationManager.register(new JobExecution(JOB_EXECUTION_ID + 1).createStepExecution("step"));
+        try {
+            metrics.increment("counter");
+            metrics.increment("counter");
+        } finally {
+            StepSynchronizationManager.close();
+        }
+
+        assertEquals(1, metrics.remove(JOB_EXECUTION_ID).getCount("counter"));
+        assertEquals(2, metrics.remove(JOB_EXECUTION_ID + 1).getCount("counter"));
+        assertEquals(0, metrics.remove(JOB_EXECUTION_ID).getCount("counter"));
+    }
+
+    @Test
+    public void measuresOutsideAStepAreIgnored() {
+        StepSynchronizationManager.close();
+        try {
+            metrics.increment("counter");
+        } finally {
+            StepSynchronizationManager.register(new JobExecution(JOB_EXECUTION_ID).createStepExecution("step"));
+        }
+
+        assertEquals(0, metrics.remove(JOB_EXECUTION_ID).getCount("counter"));
+    }
+
+    /**
+     * Filters out strings with an odd length, and returns the rest in upper case
+     */
+    private static class EvenLengthProcessor implements ItemProcessor<String, String> {
+
+        @Override
+        public String process(String item) {
+            if (item.length() % 2 != 0) {
+                return null;
+            }
+            String upperCase = item.toUpperCase();
+            return upperCase.equals(item) ? item : upperCase;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.dbsnpimporter.io.readers.SubSnpCoreFieldsReader;
+import uk.ac.ebi.eva.dbsnpimporter.models.SubSnpCoreFields;
+import uk.ac.ebi.eva.dbsnpimporter.test.DbsnpTestDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.TestConfiguration;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners.LoadOrderPartitioner.MAX_LOAD_ORDER_KEY;
+import static uk.ac.ebi.eva.dbsnpimporter.jobs.partitioners.LoadOrderPartitioner.MIN_LOAD_ORDER_KEY;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class LoadOrderPartitionerTest {
+
+    private static final String CHICKEN_ASSEMBLY_5 = "Gallus_gallus-5.0";
+
+    private static final int BATCH = 11825;
+
+    private static final int ROWS_IN_BATCH = 28;
+
+    @Autowired
+    private DbsnpTestDatasource dbsnpTestDatasource;
+
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() {
+        dataSource = dbsnpTestDatasource.getDatasource();
+    }
+
+    @Test
+    public void partitionsCoverTheWholeBatch() throws Exception {
+        LoadOrderPartitioner partitioner = new LoadOrderPartitioner(dataSource, BATCH, CHICKEN_ASSEMBLY_5);
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+        assertEquals(4, partitions.size());
+
+        Set<Long> subsnpsRead = new HashSet<>();
+        int rowsRead = 0;
+        for (ExecutionContext partition : partitions.values()) {
+            SubSnpCoreFieldsReader reader = new SubSnpCoreFieldsReader(BATCH, CHICKEN_ASSEMBLY_5, dataSource, 100,
+                                                                       partition.getLong(MIN_LOAD_ORDER_KEY),
+                                                                       partition.getLong(MAX_LOAD_ORDER_KEY));
+            reader.afterPropertiesSet();
+            reader.open(new ExecutionContext());
+            SubSnpCoreFields subSnpCoreFields;
+            while ((subSnpCoreFields = reader.read()) != null) {
+                subsnpsRead.add(subSnpCoreFields.getSsId());
+                rowsRead++;
+            }
+            reader.close();
+        }
+        assertEquals(ROWS_IN_BATCH, rowsRead);
+        assertTrue(subsnpsRead.size() > 1);
+    }
+
+    @Test
+    public void rangesDoNotOverlap() {
+        LoadOrderPartitioner partitioner = new LoadOrderPartitioner(dataSource, BATCH, CHICKEN_ASSEMBLY_5);
+        Map<String, ExecutionContext> partitions = partitioner.partition(3);
+
+        long previousMax = -1;
+        for (int i = 0; i < partitions.size(); i++) {
+            ExecutionContext partition = partitions.get(LoadOrderPartitioner.PARTITION_PREFIX + i);
+            assertTrue(partition.getLong(MIN_LOAD_ORDER_KEY) > previousMax);
+            assertTrue(partition.getLong(MIN_LOAD_ORDER_KEY) <= partition.getLong(MAX_LOAD_ORDER_KEY));
+            previousMax = partition.getLong(MAX_LOAD_ORDER_KEY);
+        }
+    }
+
+    @Test
+    public void emptyBatchHasOnePartition() {
+        int nonExistingBatch = 42;
+        LoadOrderPartitioner partitioner = new LoadOrderPartitioner(dataSource, nonExistingBatch, CHICKEN_ASSEMBLY_5);
+        assertEquals(1, partitioner.partition(4).size());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.steps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+
+import uk.ac.ebi.eva.commons.core.models.IVariant;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.dbsnpimporter.io.writers.VariantBulkWriter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveChunkSizeCompletionPolicyTest {
+
+    private static final long MILLISECOND = 1000000;
+
+    private static final long UNLIMITED_BYTES = Long.MAX_VALUE;
+
+    private long now;
+
+    private StepExecution stepExecution;
+
+    @Before
+    public void setUp() {
+        stepExecution = new JobExecution(1L).createStepExecution("step");
+        StepSynchronizationManager.register(stepExecution);
+    }
+
+    @After
+    public void tearDown() {
+        StepSynchronizationManager.close();
+    }
+
+    @Test
+    public void completeAfterTheCurrentChunkSize() {
+        AdaptiveChunkSizeCompletionPolicy policy = new AdaptiveChunkSizeCompletionPolicy(3, 10, 100,
+                                                                                          UNLIMITED_BYTES);
+        RepeatContextSupport context = (RepeatContextSupport) policy.start(null);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(policy.isComplete(context));
+            context.increment();
+        }
+        assertTrue(policy.isComplete(context));
+    }
+
+    @Test
+    public void growFastChunksUpToTheMaximum() {
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(10, 100, 1000, UNLIMITED_BYTES);
+
+        runChunk(policy, 10, 1, Collections.emptyList());
+        assertEquals(15, policy.getChunkSize(stepExecution));
+        runChunk(policy, 15, 1, Collections.emptyList());
+        assertEquals(23, policy.getChunkSize(stepExecution));
+        for (int i = 0; i < 10; i++) {
+            runChunk(policy, policy.getChunkSize(stepExecution), 1, Collections.emptyList());
+        }
+        assertEquals(100, policy.getChunkSize(stepExecution));
+    }
+
+    @Test
+    public void shrinkSlowChunks() {
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(100, 1000, 100, UNLIMITED_BYTES);
+
+        runChunk(policy, 100, 10, Collections.emptyList());
+        assertEquals(55, policy.getChunkSize(stepExecution));
+        for (int i = 0; i < 10; i++) {
+            runChunk(policy, policy.getChunkSize(stepExecution), 10, Collections.emptyList());
+        }
+        assertTrue(policy.getChunkSize(stepExecution) <= 11);
+    }
+
+    @Test
+    public void neverShrinkBelowOneItem() {
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(2, 10, 1, UNLIMITED_BYTES);
+
+        for (int i = 0; i < 5; i++) {
+            runChunk(policy, policy.getChunkSize(stepExecution), 1000, Collections.emptyList());
+        }
+        assertEquals(1, policy.getChunkSize(stepExecution));
+    }
+
+    @Test
+    public void limitTheSizeOfTheVariantsWritten() {
+        List<IVariant> variants = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            variants.add(new Variant("1", 1000 + i, 1000 + i, "A", "T"));
+        }
+        long variantsBytes = 0;
+        for (IVariant variant : variants) {
+            variantsBytes += VariantBulkWriter.estimateSize(variant);
+        }
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(10, 100, 1000, variantsBytes / 2);
+
+        runChunk(policy, 10, 1, variants);
+        assertEquals(8, policy.getChunkSize(stepExecution));
+    }
+
+    @Test
+    public void ignoreTheLastIncompleteChunk() {
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(10, 100, 1000, UNLIMITED_BYTES);
+
+        runChunk(policy, 3, 1000, Collections.emptyList());
+        assertEquals(10, policy.getChunkSize(stepExecution));
+    }
+
+    @Test
+    public void keepTheChunkSizeOfEachStepExecution() {
+        AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(10, 100, 1000, UNLIMITED_BYTES);
+        runChunk(policy, 10, 1, Collections.emptyList());
+
+        StepExecution otherStepExecution = new JobExecution(2L).createStepExecution("step");
+        StepSynchronizationManager.register(otherStepExecution);
+        try {
+            runChunk(policy, 10, 1000, Collections.emptyList());
+        } finally {
+            StepSynchronizationManager.close();
+        }
+
+        assertEquals(15, policy.getChunkSize(stepExecution));
+        assertEquals(6, policy.getChunkSize(otherStepExecution));
+        assertEquals(15, stepExecution.getExecutionContext().getInt(AdaptiveChunkSizeCompletionPolicy.CHUNK_SIZE_KEY));
+    }
+
+    @Test
+    public void useTheInitialChunkSizeOutsideOfAStep() {
+        StepSynchronizationManager.close();
+        try {
+            AdaptiveChunkSizeCompletionPolicy policy = buildPolicy(10, 100, 1000, UNLIMITED_BYTES);
+            runChunk(policy, 10, 1, Collections.emptyList());
+
+            RepeatContextSupport context = (RepeatContextSupport) policy.start(null);
+            for (int i = 0; i < 10; i++) {
+                context.increment();
+            }
+            assertTrue(policy.isComplete(context));
+        } finally {
+            StepSynchronizationManager.register(stepExecution);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialChunkSizeMustNotExceedTheMaximum() {
+        new AdaptiveChunkSizeCompletionPolicy(20, 10, 100, UNLIMITED_BYTES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void targetDurationMustBePositive() {
+        new AdaptiveChunkSizeCompletionPolicy(10, 100, 0, UNLIMITED_BYTES);
+    }
+
+    private AdaptiveChunkSizeCompletionPolicy buildPolicy(int initialChunkSize, int maxChunkSize,
+                                                          long targetChunkMilliseconds, long targetChunkBytes) {
+        return new AdaptiveChunkSizeCompletionPolicy(initialChunkSize, maxChunkSize, targetChunkMilliseconds,
+                                                     targetChunkBytes, () -> now);
+    }
+
+    /**
+     * Reads up to itemsToRead items in a chunk, each of them taking millisecondsPerItem, and writes the given items
+     */
+    private void runChunk(AdaptiveChunkSizeCompletionPolicy policy, int itemsToRead, long millisecondsPerItem,
+                          List<?> itemsWritten) {
+        policy.beforeChunk(null);
+        RepeatContext context = policy.start(null);
+        for (int i = 0; i < itemsToRead && !policy.isComplete(context); i++) {
+            ((RepeatContextSupport) context).increment();
+            now += millisecondsPerItem * MILLISECOND;
+        }
+        if (!itemsWritten.isEmpty()) {
+            policy.beforeWrite(itemsWritten);
+            policy.afterWrite(itemsWritten);
+        }
+        policy.afterChunk(null);
+    }
+}
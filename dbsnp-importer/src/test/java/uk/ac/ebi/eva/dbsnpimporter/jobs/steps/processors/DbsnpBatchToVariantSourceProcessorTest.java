@@ -82,6 +82,22 @@ public class DbsnpBatchToVariantSourceProcessorTest {
         processor.process(dbsnpBatch);
     }
 
+    @Test
+    public void samplesWithTheSameNameAreNotDuplicates() throws Exception {
+        List<Sample> samples = new LinkedList<>();
+        samples.add(new Sample(DBSNP_BATCH_NAME, "sample1", Sex.MALE, null, null, null));
+        samples.add(new Sample(DBSNP_BATCH_NAME, "sample2", Sex.MALE, null, null, null));
+        samples.add(new Sample(DBSNP_BATCH_NAME, "sample1", Sex.FEMALE, null, null, null));
+        DbsnpBatch dbsnpBatch = new DbsnpBatch(DBSNP_BATCH_ID, DBSNP_BATCH_HANDLE, DBSNP_BATCH_NAME, samples);
+
+        IVariantSource variantSource = processor.process(dbsnpBatch);
+
+        Map<String, Integer> expectedSamplesPosition = new HashMap<>();
+        expectedSamplesPosition.put("sample1", 2);
+        expectedSamplesPosition.put("sample2", 1);
+        assertEquals(expectedSamplesPosition, variantSource.getSamplesPosition());
+    }
+
     @Test
     public void testProcess() throws Exception {
         Sample father = new Sample(DBSNP_BATCH_NAME, "father", Sex.MALE, null, null, null);
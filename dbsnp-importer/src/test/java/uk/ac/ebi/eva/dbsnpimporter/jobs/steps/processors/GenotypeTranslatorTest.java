@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.jobs.steps.processors;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.dbsnpimporter.models.Orientation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GenotypeTranslatorTest {
+
+    @Test
+    public void translateForwardGenotypes() {
+        GenotypeTranslator translator = new GenotypeTranslator("A", "T", new String[]{"G"}, Orientation.FORWARD);
+
+        assertEquals(Arrays.asList("0/1", "1|1", "0/2", "-1/0", "1"),
+                     getGenotypeCodes(translator.translate("A/T,T|T,A/G,C/A,T")));
+    }
+
+    @Test
+    public void translateReverseGenotypes() {
+        GenotypeTranslator translator = new GenotypeTranslator("A", "", new String[0], Orientation.REVERSE);
+
+        assertEquals(Arrays.asList("0/0", "0/1", "1/1"), getGenotypeCodes(translator.translate("T/T,T/-,-/-")));
+    }
+
+    @Test
+    public void emptyGenotypesAreKept() {
+        GenotypeTranslator translator = new GenotypeTranslator("A", "T", new String[0], Orientation.FORWARD);
+
+        assertEquals(Arrays.asList("0/1", "-1", "-1/-1"), getGenotypeCodes(translator.translate("A/T,,/")));
+    }
+
+    @Test
+    public void repeatedGenotypesShareTheSampleData() {
+        GenotypeTranslator translator = new GenotypeTranslator("A", "T", new String[0], Orientation.FORWARD);
+
+        List<Map<String, String>> samplesData = translator.translate("A/T,T/T,A/T");
+
+        assertSame(samplesData.get(0), samplesData.get(2));
+    }
+
+    @Test
+    public void validateGenotypeCharacters() {
+        assertTrue(GenotypeTranslator.areValid("A/T,T|T,./.,N/-, C/G"));
+        assertFalse(GenotypeTranslator.areValid("A/T,R/T"));
+        assertFalse(GenotypeTranslator.areValid("a/t"));
+    }
+
+    private List<String> getGenotypeCodes(List<Map<String, String>> samplesData) {
+        return samplesData.stream()
+                          .map(sampleData -> sampleData.get(GenotypeTranslator.GENOTYPE_KEY))
+                          .collect(Collectors.toList());
+    }
+}
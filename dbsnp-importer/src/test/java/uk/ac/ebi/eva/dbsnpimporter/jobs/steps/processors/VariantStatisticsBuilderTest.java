@@ -32,6 +32,7 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class VariantStatisticsBuilderTest {
 
@@ -170,4 +171,24 @@ public class VariantStatisticsBuilderTest {
         assertEquals(0.5, statisticsPop1.getMaf(), 0.01);
         assertEquals("CTGT", statisticsPop1.getMafAllele());
     }
+
+    @Test
+    public void failWithoutAlleleFrequencies() throws IOException {
+        IVariant variant = new Variant("1", 1000, 1000, "A", "T");
+        String populationWithoutFrequencies = "[{\"pop_id\" : 1324, \"pop_name\" : \"POP1\", \"freq_info\" : []}]";
+
+        thrown.expect(IllegalArgumentException.class);
+        new VariantStatisticsBuilder().build(variant, populationWithoutFrequencies, Orientation.FORWARD);
+    }
+
+    @Test
+    public void populationNamesAreShared() throws IOException {
+        IVariant variant = new Variant("1", 1000, 1003, "ACAG", "");
+        VariantStatisticsBuilder builder = new VariantStatisticsBuilder();
+
+        String firstName = builder.build(variant, "[" + pop1 + "]", Orientation.FORWARD).keySet().iterator().next();
+        String secondName = builder.build(variant, "[" + pop1 + "]", Orientation.FORWARD).keySet().iterator().next();
+
+        assertSame(firstName, secondName);
+    }
 }
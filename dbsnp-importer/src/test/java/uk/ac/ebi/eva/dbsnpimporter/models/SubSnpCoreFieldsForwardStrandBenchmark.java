@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import uk.ac.ebi.eva.dbsnpimporter.exception.UndefinedHgvsAlleleException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the derivation of the alleles in forward strand for some dbSNP rows, requesting them as many times as the
+ * processors of the variants import do for each row.
+ *
+ * The derivation cached in {@link SubSnpCoreFields} is compared with a copy of the previous implementation, which
+ * computed the alleles again on every call. The rows are created in every invocation, so that nothing is cached
+ * between invocations, and the cost of creating them is measured on its own as a baseline.
+ *
+ * Run with the main method, from an IDE or with the test classpath, after compiling the test classes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubSnpCoreFieldsForwardStrandBenchmark {
+
+    @Benchmark
+    public void createRowsOnly(Blackhole blackhole) {
+        for (SubSnpCoreFields subSnpCoreFields : createRows()) {
+            blackhole.consume(subSnpCoreFields);
+        }
+    }
+
+    @Benchmark
+    public void cachedAlleles(Blackhole blackhole) {
+        for (SubSnpCoreFields subSnpCoreFields : createRows()) {
+            // UnambiguousAllelesFilterProcessor
+            blackhole.consume(subSnpCoreFields.getReferenceInForwardStrand());
+            blackhole.consume(subSnpCoreFields.getAlternateInForwardStrand());
+            // MatchingAllelesFilterProcessor
+            blackhole.consume(subSnpCoreFields.getAllelesInForwardStrand().split("/", -1));
+            blackhole.consume(subSnpCoreFields.getReferenceInForwardStrand());
+            blackhole.consume(subSnpCoreFields.getAlternateInForwardStrand());
+            // AssemblyCheckFilterProcessor
+            blackhole.consume(subSnpCoreFields.getReferenceInForwardStrand());
+            // SubSnpCoreFieldsToVariantProcessor
+            blackhole.consume(subSnpCoreFields.getSecondaryAlternatesInForwardStrand());
+            blackhole.consume(subSnpCoreFields.getReferenceInForwardStrand());
+            blackhole.consume(subSnpCoreFields.getAlternateInForwardStrand());
+            blackhole.consume(subSnpCoreFields.getSecondaryAlternatesInForwardStrand());
+        }
+    }
+
+    @Benchmark
+    public void recomputedAlleles(Blackhole blackhole) {
+        for (SubSnpCoreFields subSnpCoreFields : createRows()) {
+            blackhole.consume(RecomputedAlleles.getReferenceInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getAlternateInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getAllelesInForwardStrand(subSnpCoreFields).split("/", -1));
+            blackhole.consume(RecomputedAlleles.getReferenceInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getAlternateInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getReferenceInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getSecondaryAlternatesInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getReferenceInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getAlternateInForwardStrand(subSnpCoreFields));
+            blackhole.consume(RecomputedAlleles.getSecondaryAlternatesInForwardStrand(subSnpCoreFields));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SubSnpCoreFieldsForwardStrandBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+
+    /**
+     * A SNP and an insertion in forward strand, an insertion and a multiallelic SNP in reverse strand, and a deletion
+     * only mapped to a contig.
+     */
+    private static SubSnpCoreFields[] createRows() {
+        return new SubSnpCoreFields[]{
+                new SubSnpCoreFields(26201546, Orientation.FORWARD, 13677177L, Orientation.FORWARD, "NT_455866.1",
+                                     1766472L, 1766472L, Orientation.FORWARD, LocusType.SNP, "4", 91223961L,
+                                     91223961L, "T", "T", "A", "T/A", "NC_006091.4:g.91223961T>A", 91223961L,
+                                     91223961L, Orientation.FORWARD, "NT_455866.1:g.1766472T>A", 1766472L, 1766472L,
+                                     Orientation.FORWARD, "T/A,A/A,T/T", null, "batch"),
+                new SubSnpCoreFields(26201546, Orientation.FORWARD, 13677177L, Orientation.FORWARD, "NT_455866.1",
+                                     1766472L, 1766472L, Orientation.FORWARD, LocusType.INSERTION, "4", 91223961L,
+                                     91223961L, "T", "T", "TAGA", "T/TAGA", "NC_006091.4:g.91223962insAGA",
+                                     91223961L, 91223961L, Orientation.FORWARD, "NT_455866.1:g.1766473insAGA",
+                                     1766472L, 1766472L, Orientation.FORWARD, "T/TAGA,TAGA/TAGA", null, "batch"),
+                new SubSnpCoreFields(2018365557, Orientation.FORWARD, 1060492716L, Orientation.FORWARD,
+                                     "NT_456010.1", 107452L, 107453L, Orientation.REVERSE, LocusType.INSERTION, "25",
+                                     89000L, 89001L, "-", "-", "G", "-/G", "NC_006112.3:g.88998_88999insC", 88997L,
+                                     88998L, Orientation.REVERSE, "NT_456010.1:g.107453_107454insG", 107452L,
+                                     107453L, Orientation.FORWARD, "-/G,G/G", null, "batch"),
+                new SubSnpCoreFields(739617577, Orientation.FORWARD, 739617577L, Orientation.FORWARD, "NT_455837.1",
+                                     11724980L, 11724980L, Orientation.REVERSE, LocusType.SNP, "3", 47119827L,
+                                     47119827L, "C", "C", "G", "G/A/C", "NC_006090.4:g.47119827C>G", 47119827L,
+                                     47119827L, Orientation.FORWARD, "NT_455837.1:g.11724980C>G", 11724980L,
+                                     11724980L, Orientation.FORWARD, "C/G,G/G,C/T", null, "batch"),
+                new SubSnpCoreFields(1982511850, Orientation.REVERSE, 1060492716L, Orientation.FORWARD,
+                                     "NT_456074.1", 1936L, 1937L, Orientation.FORWARD, LocusType.DELETION, null, null,
+                                     null, null, "AG", "-", "AG/-", null, null, null, Orientation.FORWARD,
+                                     "NT_456074.1:g.1936_1937delAG", 1936L, 1937L, Orientation.FORWARD, null, null,
+                                     "batch")};
+    }
+
+    /**
+     * The derivation of the alleles in forward strand before it was cached.
+     */
+    private static class RecomputedAlleles {
+
+        static String getReferenceInForwardStrand(SubSnpCoreFields subSnpCoreFields) {
+            if (subSnpCoreFields.getHgvsCString() != null) {
+                return getNormalizedAllele(subSnpCoreFields.getHgvsCReference(),
+                                           subSnpCoreFields.getHgvsCOrientation());
+            } else if (subSnpCoreFields.getHgvsTString() != null) {
+                return getNormalizedAllele(subSnpCoreFields.getHgvsTReference(),
+                                           subSnpCoreFields.getHgvsTOrientation());
+            } else {
+                throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
+            }
+        }
+
+        static String getAlternateInForwardStrand(SubSnpCoreFields subSnpCoreFields) {
+            if (subSnpCoreFields.getHgvsCString() != null) {
+                return getNormalizedAllele(subSnpCoreFields.getAlternate(), subSnpCoreFields.getHgvsCOrientation());
+            } else if (subSnpCoreFields.getHgvsTString() != null) {
+                return getNormalizedAllele(subSnpCoreFields.getAlternate(), subSnpCoreFields.getHgvsTOrientation());
+            } else {
+                throw new UndefinedHgvsAlleleException("Neither the HGVS_C nor HGVS_T strings are defined");
+            }
+        }
+
+        static String getAllelesInForwardStrand(SubSnpCoreFields subSnpCoreFields) {
+            String alleles = subSnpCoreFields.getAlleles();
+            String forwardAlleles = subSnpCoreFields.isForwardOriented() ? alleles : calculateReverseComplement(
+                    alleles);
+            String[] splitAlleles = forwardAlleles.split("/", -1);
+            return Stream.of(splitAlleles).map(RecomputedAlleles::getTrimmedAllele).collect(Collectors.joining("/"));
+        }
+
+        static String[] getSecondaryAlternatesInForwardStrand(SubSnpCoreFields subSnpCoreFields) {
+            String[] alleles = getAllelesInForwardStrand(subSnpCoreFields).split("/", -1);
+            List<String> secondaryAlternates = new ArrayList<>(Arrays.asList(alleles));
+            for (String allele : alleles) {
+                if (allele.equals(getReferenceInForwardStrand(subSnpCoreFields))
+                        || allele.equals(getAlternateInForwardStrand(subSnpCoreFields))) {
+                    secondaryAlternates.remove(allele);
+                }
+            }
+            String[] secondaryAlternatesArray = new String[secondaryAlternates.size()];
+            return secondaryAlternates.toArray(secondaryAlternatesArray);
+        }
+
+        private static String getNormalizedAllele(String allele, Orientation orientation) {
+            return getTrimmedAllele(orientation.equals(Orientation.FORWARD) ?
+                                            allele : calculateReverseComplement(allele));
+        }
+
+        private static String getTrimmedAllele(String allele) {
+            if (allele == null) {
+                return "";
+            }
+            allele = allele.trim();
+            if (allele.equals("-")) {
+                return "";
+            }
+            return allele;
+        }
+
+        private static String calculateReverseComplement(String alleleInReverseStrand) {
+            StringBuilder alleleInForwardStrand = new StringBuilder(alleleInReverseStrand).reverse();
+            for (int i = 0; i < alleleInForwardStrand.length(); i++) {
+                switch (alleleInForwardStrand.charAt(i)) {
+                    case 'A':
+                        alleleInForwardStrand.setCharAt(i, 'T');
+                        break;
+                    case 'a':
+                        alleleInForwardStrand.setCharAt(i, 't');
+                        break;
+                    case 'C':
+                        alleleInForwardStrand.setCharAt(i, 'G');
+                        break;
+                    case 'c':
+                        alleleInForwardStrand.setCharAt(i, 'g');
+                        break;
+                    case 'G':
+                        alleleInForwardStrand.setCharAt(i, 'C');
+                        break;
+                    case 'g':
+                        alleleInForwardStrand.setCharAt(i, 'c');
+                        break;
+                    case 'T':
+                        alleleInForwardStrand.setCharAt(i, 'A');
+                        break;
+                    case 't':
+                        alleleInForwardStrand.setCharAt(i, 'a');
+                        break;
+                }
+            }
+            return alleleInForwardStrand.toString();
+        }
+    }
+}
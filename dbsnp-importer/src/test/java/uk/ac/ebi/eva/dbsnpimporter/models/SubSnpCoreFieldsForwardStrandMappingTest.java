@@ -443,6 +443,15 @@ public class SubSnpCoreFieldsForwardStrandMappingTest {
                                                            Orientation.FORWARD).getSecondaryAlternatesInForwardStrand());
     }
 
+    @Test
+    public void secondaryAlternatesCanNotBeModified() throws Exception {
+        SubSnpCoreFields subSnpCoreFields = buildSubSnpCoreFieldsWithAlleles("T", "A", "T/A/C", Orientation.FORWARD,
+                                                                             Orientation.FORWARD, Orientation.FORWARD);
+        subSnpCoreFields.getSecondaryAlternatesInForwardStrand()[0] = "G";
+
+        assertArrayEquals(new String[]{"C"}, subSnpCoreFields.getSecondaryAlternatesInForwardStrand());
+    }
+
     private SubSnpCoreFields buildSubSnpCoreFieldsWithAlleles(String reference, String alternate, String alleles,
                                                               Orientation subsnpOrientation,
                                                               Orientation snpOrientation,
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.dbsnpimporter.parameters;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.dbsnpimporter.test.DbsnpTestDatasource;
+import uk.ac.ebi.eva.dbsnpimporter.test.configuration.TestConfiguration;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource({"classpath:application.properties"})
+@ContextConfiguration(classes = {TestConfiguration.class})
+public class BatchIdsResolverTest {
+
+    private static final String CHICKEN_ASSEMBLY_5 = "Gallus_gallus-5.0";
+
+    @Autowired
+    private DbsnpTestDatasource dbsnpTestDatasource;
+
+    private BatchIdsResolver resolver;
+
+    @Before
+    public void setUp() {
+        resolver = new BatchIdsResolver(dbsnpTestDatasource.getDatasource(), CHICKEN_ASSEMBLY_5);
+    }
+
+    @Test
+    public void listOfBatchesAndRanges() {
+        assertEquals(Arrays.asList(11825, 11828, 11829, 11830), resolver.resolve("11825, 11828-11830"));
+    }
+
+    @Test
+    public void repeatedBatchesAreImportedOnce() {
+        assertEquals(Arrays.asList(11828, 11829, 11825), resolver.resolve("11828-11829,11825,11829"));
+    }
+
+    @Test
+    public void allBatches() {
+        assertEquals(Arrays.asList(11825, 11828, 11831), resolver.resolve(BatchIdsResolver.ALL_BATCHES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBatchId() {
+        resolver.resolve("11825,batch");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRange() {
+        resolver.resolve("11830-11825");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyList() {
+        resolver.resolve(" ");
+    }
+}
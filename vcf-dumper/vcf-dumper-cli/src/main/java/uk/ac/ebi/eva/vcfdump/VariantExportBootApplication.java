@@ -27,6 +27,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 
+import java.io.File;
 import java.util.Properties;
 
 /**
@@ -34,7 +35,8 @@ import java.util.Properties;
  * the EVA database.
  * <p>
  * Mandatory arguments are: species, database name, studies and files
- * Optional arguments are: output directory
+ * Optional arguments are: output directory, output format, sites-only, samples and, for incremental exports,
+ * since or previous-manifest
  */
 @SpringBootApplication
 public class VariantExportBootApplication implements CommandLineRunner {
@@ -76,7 +78,17 @@ public class VariantExportBootApplication implements CommandLineRunner {
         Properties evaProperties = new Properties();
         evaProperties.load(VariantExportBootApplication.class.getResourceAsStream("/eva.properties"));
 
+        QueryParams queryParams = new QueryParams();
+        queryParams.setSitesOnly(command.sitesOnly);
+        queryParams.setSamples(command.samples);
+        queryParams.setOutputFormat(command.format);
+
         try {
+            if (command.previousManifest != null) {
+                queryParams.setLoadedSince(ExportManifest.read(new File(command.previousManifest)).getExportDate());
+            } else {
+                queryParams.setLoadedSince(command.since);
+            }
             new VariantExporterController(
                     command.database,
                     variantSourceService,
@@ -85,7 +97,7 @@ public class VariantExportBootApplication implements CommandLineRunner {
                     command.files,
                     command.outdir,
                     evaProperties,
-                    new QueryParams()).run();
+                    queryParams).run();
         } catch (Exception e) {
             logger.error("Unsuccessful VCF export: {}", e.getMessage());
             logger.debug("Exception details: ", e);
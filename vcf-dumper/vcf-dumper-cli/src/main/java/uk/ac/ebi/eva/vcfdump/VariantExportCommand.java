@@ -15,11 +15,19 @@
  */
 package uk.ac.ebi.eva.vcfdump;
 
+import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.IValueValidator;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 
+import uk.ac.ebi.eva.vcfdump.writers.OutputFormat;
+
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
 
 public class VariantExportCommand {
@@ -39,6 +47,52 @@ public class VariantExportCommand {
     @Parameter(names = "--files", required = true, description = "Comma-separated list of files to query")
     List<String> files;
 
+    @Parameter(names = "--sites-only", description = "Export only variant sites, without sample columns")
+    boolean sitesOnly = false;
+
+    @Parameter(names = "--samples", description = "Comma-separated list of samples to export (all by default)")
+    List<String> samples;
+
+    @Parameter(names = "--since", description = "Incremental export: only export files loaded after this date " +
+            "(ISO-8601, e.g. 2020-01-31 or 2020-01-31T10:15:30Z)", converter = DateConverter.class)
+    Date since;
+
+    @Parameter(names = "--previous-manifest", description = "Incremental export: only export files loaded after " +
+            "the export described by this manifest", validateValueWith = PathValidator.class)
+    String previousManifest;
+
+    @Parameter(names = "--format", description = "Output format: VCF (default), BCF or ARROW",
+            converter = OutputFormatConverter.class)
+    OutputFormat format = OutputFormat.VCF;
+
+
+    public static class DateConverter implements IStringConverter<Date> {
+
+        @Override
+        public Date convert(String value) {
+            try {
+                if (value.contains("T")) {
+                    return Date.from(Instant.parse(value));
+                } else {
+                    return Date.from(LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant());
+                }
+            } catch (DateTimeParseException e) {
+                throw new ParameterException("Invalid date '" + value + "': " + e.getMessage());
+            }
+        }
+    }
+
+    public static class OutputFormatConverter implements IStringConverter<OutputFormat> {
+
+        @Override
+        public OutputFormat convert(String value) {
+            try {
+                return OutputFormat.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new ParameterException(e.getMessage());
+            }
+        }
+    }
 
     public static class PathValidator implements IValueValidator {
 
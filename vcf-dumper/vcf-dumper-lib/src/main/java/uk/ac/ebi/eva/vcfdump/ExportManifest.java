@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.vcfdump;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Describes the content of an exported VCF, so incremental exports can be chained: the export date of a manifest can
+ * be used as the lower bound of the load date of the files included in the next export, and the list of files allows
+ * consumers to know which genotypes each delta contributes.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExportManifest {
+
+    public static final String MANIFEST_EXTENSION = ".manifest.json";
+
+    private String dbName;
+
+    private String outputFileName;
+
+    /**
+     * Moment when the export started. Files loaded later will be included in the next incremental export.
+     */
+    private Date exportDate;
+
+    /**
+     * Lower bound (exclusive) of the load date of the exported files, or null if this is a full export
+     */
+    private Date loadedSince;
+
+    private List<String> studies;
+
+    private List<ExportedFile> files;
+
+    private int exportedVariants;
+
+    public ExportManifest() {
+        files = new ArrayList<>();
+    }
+
+    public ExportManifest(String dbName, String outputFileName, Date exportDate, Date loadedSince,
+                          List<String> studies, List<VariantSource> sources, int exportedVariants) {
+        this();
+        this.dbName = dbName;
+        this.outputFileName = outputFileName;
+        this.exportDate = exportDate;
+        this.loadedSince = loadedSince;
+        this.studies = studies;
+        for (VariantSource source : sources) {
+            files.add(new ExportedFile(source.getStudyId(), source.getFileId(), source.getDate()));
+        }
+        this.exportedVariants = exportedVariants;
+    }
+
+    public static ExportManifest read(File manifestFile) throws IOException {
+        return new ObjectMapper().readValue(manifestFile, ExportManifest.class);
+    }
+
+    public void write(File manifestFile) throws IOException {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(manifestFile, this);
+    }
+
+    public String getDbName() {
+        return dbName;
+    }
+
+    public void setDbName(String dbName) {
+        this.dbName = dbName;
+    }
+
+    public String getOutputFileName() {
+        return outputFileName;
+    }
+
+    public void setOutputFileName(String outputFileName) {
+        this.outputFileName = outputFileName;
+    }
+
+    public Date getExportDate() {
+        return exportDate;
+    }
+
+    public void setExportDate(Date exportDate) {
+        this.exportDate = exportDate;
+    }
+
+    public Date getLoadedSince() {
+        return loadedSince;
+    }
+
+    public void setLoadedSince(Date loadedSince) {
+        this.loadedSince = loadedSince;
+    }
+
+    public List<String> getStudies() {
+        return studies;
+    }
+
+    public void setStudies(List<String> studies) {
+        this.studies = studies;
+    }
+
+    public List<ExportedFile> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<ExportedFile> files) {
+        this.files = files;
+    }
+
+    public int getExportedVariants() {
+        return exportedVariants;
+    }
+
+    public void setExportedVariants(int exportedVariants) {
+        this.exportedVariants = exportedVariants;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ExportedFile {
+
+        private String studyId;
+
+        private String fileId;
+
+        private Date loadDate;
+
+        public ExportedFile() {
+        }
+
+        public ExportedFile(String studyId, String fileId, Date loadDate) {
+            this.studyId = studyId;
+            this.fileId = fileId;
+            this.loadDate = loadDate;
+        }
+
+        public String getStudyId() {
+            return studyId;
+        }
+
+        public void setStudyId(String studyId) {
+            this.studyId = studyId;
+        }
+
+        public String getFileId() {
+            return fileId;
+        }
+
+        public void setFileId(String fileId) {
+            this.fileId = fileId;
+        }
+
+        public Date getLoadDate() {
+            return loadDate;
+        }
+
+        public void setLoadDate(Date loadDate) {
+            this.loadDate = loadDate;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package uk.ac.ebi.eva.vcfdump;
 
+import uk.ac.ebi.eva.vcfdump.writers.OutputFormat;
+
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 public class QueryParams {
@@ -18,6 +21,10 @@ public class QueryParams {
     private String missingAlleles;
     private String missingGenotypes;
     List<String> exclusions;
+    private boolean sitesOnly;
+    private List<String> samples;
+    private Date loadedSince;
+    private OutputFormat outputFormat = OutputFormat.VCF;
 
     public String getRegion() {
         return region;
@@ -122,4 +129,36 @@ public class QueryParams {
     public void setExclusions(List<String> exclusions) {
         this.exclusions = exclusions;
     }
+
+    public boolean isSitesOnly() {
+        return sitesOnly;
+    }
+
+    public void setSitesOnly(boolean sitesOnly) {
+        this.sitesOnly = sitesOnly;
+    }
+
+    public List<String> getSamples() {
+        return samples;
+    }
+
+    public void setSamples(List<String> samples) {
+        this.samples = samples;
+    }
+
+    public Date getLoadedSince() {
+        return loadedSince;
+    }
+
+    public void setLoadedSince(Date loadedSince) {
+        this.loadedSince = loadedSince;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
 }
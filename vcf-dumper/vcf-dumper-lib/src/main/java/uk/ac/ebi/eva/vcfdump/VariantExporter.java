@@ -46,6 +46,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,6 +64,12 @@ public class VariantExporter {
     private static final Logger logger = LoggerFactory.getLogger(VariantExporter.class);
     public static final String HEADER = "header";
 
+    /**
+     * Path in the variants collection of the genotypes of every file. Excluding it from the query projection avoids
+     * transferring the samples data when it is not going to be exported.
+     */
+    public static final String SAMPLES_DATA_FIELD = "files.samp";
+
     /**
      * Read only. Keeps track of the total failed variants across several dumps. To accumulate, use the same instance of
      * VariantExporter to dump several VCFs. If you just want to count on one dump, use a `new VariantExporter` each time.
@@ -74,24 +82,76 @@ public class VariantExporter {
 
     private boolean excludeAnnotations;
 
+    private boolean sitesOnly;
+
+    /**
+     * Samples requested by the user, or null if all of them should be exported
+     */
+    private Set<String> samples;
+
+    private Date loadedSince;
+
+    /**
+     * Ids of the files selected in an incremental export. Variants not present in any of them are not exported.
+     */
+    private Set<String> incrementalFileIds;
+
     public VariantExporter(boolean excludeAnnotations) {
+        this(excludeAnnotations, false);
+    }
+
+    /**
+     * @param sitesOnly if true, the samples data won't be retrieved from the database and the exported VCF won't have
+     *                  sample columns
+     */
+    public VariantExporter(boolean excludeAnnotations, boolean sitesOnly) {
+        this(excludeAnnotations, sitesOnly, null);
+    }
+
+    /**
+     * @param samples names of the samples to export. If null or empty, all the samples of the selected files will be
+     *                exported
+     */
+    public VariantExporter(boolean excludeAnnotations, boolean sitesOnly, List<String> samples) {
+        this(excludeAnnotations, sitesOnly, samples, null);
+    }
+
+    /**
+     * @param loadedSince if not null, only the files loaded after this date, and the variants present in them, will be
+     *                    exported
+     */
+    public VariantExporter(boolean excludeAnnotations, boolean sitesOnly, List<String> samples, Date loadedSince) {
         this.excludeAnnotations = excludeAnnotations;
+        this.sitesOnly = sitesOnly;
+        if (samples != null && !samples.isEmpty()) {
+            this.samples = new HashSet<>(samples);
+        }
+        this.loadedSince = loadedSince;
         outputSampleNames = new HashSet<>();
     }
 
     public List<VariantContext> export(VariantWithSamplesAndAnnotationsService variantService, List<VariantRepositoryFilter> filters, Region region) {
+        return export(variantService, filters, Collections.singletonList(region));
+    }
+
+    /**
+     * Exports the variants in several regions using a single query, so batches of small regions don't need a round
+     * trip each. The variants are returned sorted by start position; the regions should not overlap and be in the
+     * same chromosome
+     */
+    public List<VariantContext> export(VariantWithSamplesAndAnnotationsService variantService,
+                                       List<VariantRepositoryFilter> filters, List<Region> regions) {
         List<VariantContext> variantsToExport = new ArrayList<>();
         failedVariants = 0;
-        List<Region> regions = Collections.singletonList(region);
         try {
-            Long variantsInRegion = variantService.countByRegionsAndComplexFilters(regions, filters);
-            int pageSize = castSafely(Math.max(1, variantsInRegion));
+            Long variantsInRegions = variantService.countByRegionsAndComplexFilters(regions, filters);
+            int pageSize = castSafely(Math.max(1, variantsInRegions));
             PageRequest pageable = new PageRequest(0, pageSize);
             List<VariantWithSamplesAndAnnotation> variants = variantService.findByRegionsAndComplexFilters(
-                    regions, filters, null, Collections.emptyList(), pageable);
+                    regions, filters, null, getExcludedFields(), pageable);
 
             for (VariantWithSamplesAndAnnotation variant : variants) {
-                if (region.contains(variant.getChromosome(), variant.getStart())) {
+                if (isInRegions(variant, regions) && isInExportedFiles(variant)) {
                     try {
                         VariantContext variantContext = variantToVariantContextConverter.transform(variant);
                         variantsToExport.add(variantContext);
@@ -104,15 +164,33 @@ public class VariantExporter {
                 }
             }
         } catch (AnnotationMetadataNotFoundException e) {
-            logger.warn("Annotation metadata not found, no variants will be exported for the region: " + region, e);
+            logger.warn("Annotation metadata not found, no variants will be exported for the regions: " + regions, e);
         } catch (Exception e) {
-            logger.error("Could not export region '" + region + "'. ", e);
+            logger.error("Could not export regions '" + regions + "'. ", e);
             throw e;
         }
 
+        variantsToExport.sort(Comparator.comparingInt(VariantContext::getStart));
         return variantsToExport;
     }
 
+    private boolean isInRegions(VariantWithSamplesAndAnnotation variant, List<Region> regions) {
+        return regions.stream().anyMatch(region -> region.contains(variant.getChromosome(), variant.getStart()));
+    }
+
+    private boolean isInExportedFiles(VariantWithSamplesAndAnnotation variant) {
+        return incrementalFileIds == null
+                || variant.getSourceEntries().stream().anyMatch(entry -> incrementalFileIds.contains(entry.getFileId()));
+    }
+
+    private List<String> getExcludedFields() {
+        if (sitesOnly) {
+            return Collections.singletonList(SAMPLES_DATA_FIELD);
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
     private int castSafely(Long inputNumber) {
         Integer result = inputNumber.intValue();
         if (result.longValue() != inputNumber) {
@@ -139,12 +217,19 @@ public class VariantExporter {
             sourcesList = sourcesListBySid;
         }
         checkIfThereAreSourceForEveryStudy(studyIds, sourcesList);
+        if (samples != null) {
+            sourcesList = getSourcesContainingSelectedSamples(sourcesList);
+        }
+        if (loadedSince != null) {
+            sourcesList = getSourcesLoadedSince(sourcesList);
+        }
 
         // check if there are conflicts in sample names and create new ones if needed
         Map<String, Map<String, String>> studiesSampleNamesMapping = createNonConflictingSampleNames(sourcesList);
         variantToVariantContextConverter = new VariantToVariantContextConverter(sourcesList,
                                                                                 studiesSampleNamesMapping,
-                                                                                excludeAnnotations);
+                                                                                excludeAnnotations, sitesOnly,
+                                                                                samples);
 
         return sourcesList;
     }
@@ -160,12 +245,49 @@ public class VariantExporter {
         }
     }
 
+    private List<VariantSource> getSourcesLoadedSince(List<VariantSource> sourcesList) {
+        List<VariantSource> sourcesLoadedSince =
+                sourcesList.stream()
+                           .filter(source -> source.getDate() != null && source.getDate().after(loadedSince))
+                           .collect(Collectors.toList());
+        incrementalFileIds = sourcesLoadedSince.stream().map(VariantSource::getFileId).collect(Collectors.toSet());
+        logger.info("{} out of {} files loaded since {}", sourcesLoadedSince.size(), sourcesList.size(), loadedSince);
+        return sourcesLoadedSince;
+    }
+
+    private List<VariantSource> getSourcesContainingSelectedSamples(List<VariantSource> sourcesList)
+            throws IllegalArgumentException {
+        List<String> missingSamples =
+                samples.stream()
+                       .filter(sample -> sourcesList.stream()
+                                                    .noneMatch(source -> source.getSamplesPosition()
+                                                                               .containsKey(sample)))
+                       .collect(Collectors.toList());
+        if (!missingSamples.isEmpty()) {
+            throw new IllegalArgumentException("Sample(s) " + String.join(", ", missingSamples) + " not found");
+        }
+
+        // files without any of the requested samples don't need to be queried nor converted
+        return sourcesList.stream()
+                          .filter(source -> !getSelectedSampleNames(source).isEmpty())
+                          .collect(Collectors.toList());
+    }
+
+    private Set<String> getSelectedSampleNames(VariantSource source) {
+        Set<String> sampleNames = source.getSamplesPosition().keySet();
+        if (samples == null) {
+            return sampleNames;
+        } else {
+            return sampleNames.stream().filter(samples::contains).collect(Collectors.toSet());
+        }
+    }
+
     public Map<String, Map<String, String>> createNonConflictingSampleNames(Collection<VariantSource> sources) {
         Map<String, Map<String, String>> filesSampleNamesMapping = null;
 
         // create a list containing the sample names of every input study
         // if a sample name is in more than one study, it will be several times in the list)
-        List<String> originalSampleNames = sources.stream().map(VariantSource::getSamplesPosition).flatMap(l -> l.keySet().stream())
+        List<String> originalSampleNames = sources.stream().map(this::getSelectedSampleNames).flatMap(Set::stream)
                                                   .collect(Collectors.toList());
         boolean someSampleNameInMoreThanOneStudy = false;
         if (sources.size() > 1) {
@@ -192,7 +314,7 @@ public class VariantExporter {
         for (VariantSource source : sources) {
             // create a map from original to "conflict free" sample name (prefixing with study id)
             Map<String, String> fileSampleNamesMapping = new HashMap<>();
-            source.getSamplesPosition().keySet().stream()
+            getSelectedSampleNames(source).stream()
                   .forEach(name -> fileSampleNamesMapping.put(name, source.getFileId() + "_" + name));
 
             // add "conflict free" names to output sample names set
@@ -249,13 +371,19 @@ public class VariantExporter {
         Set<VCFHeaderLine> mergedHeaderLines = VCFUtils.smartMergeHeaders(headers.values(), true);
         Set<VCFHeaderLine> headerLines = overwriteHeaderLines(mergedHeaderLines);
 
-        return new VCFHeader(headerLines, outputSampleNames);
+        if (sitesOnly) {
+            return new VCFHeader(headerLines);
+        } else {
+            return new VCFHeader(headerLines, outputSampleNames);
+        }
     }
 
     private Set<VCFHeaderLine> overwriteHeaderLines(Set<VCFHeaderLine> headerLines) {
         // GT line
         removeHeaderLine(headerLines, "FORMAT", GENOTYPE_KEY);
-        headerLines.add(new VCFFormatHeaderLine(GENOTYPE_KEY, 1, VCFHeaderLineType.String, "Genotype"));
+        if (!sitesOnly) {
+            headerLines.add(new VCFFormatHeaderLine(GENOTYPE_KEY, 1, VCFHeaderLineType.String, "Genotype"));
+        }
 
         // CSQ line
         removeHeaderLine(headerLines, "INFO", ANNOTATION_KEY);
@@ -16,10 +16,10 @@
 package uk.ac.ebi.eva.vcfdump;
 
 import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
-import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFContigHeaderLine;
 import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,9 +31,12 @@ import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.vcfdump.evawsclient.EvaWsClient;
 import uk.ac.ebi.eva.vcfdump.regionutils.RegionFactory;
+import uk.ac.ebi.eva.vcfdump.writers.OutputFormat;
+import uk.ac.ebi.eva.vcfdump.writers.VariantContextWriterFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -41,9 +44,12 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 public class VariantExporterController {
@@ -84,6 +90,14 @@ public class VariantExporterController {
 
     private String outputFileName;
 
+    private List<VariantSource> exportedSources;
+
+    private Date exportDate;
+
+    private Path manifestFilePath;
+
+    private Set<String> exportedChromosomes;
+
     // Constructor used in WS
     public VariantExporterController(String dbName,
                                      VariantSourceService variantSourceService,
@@ -94,7 +108,8 @@ public class VariantExporterController {
         this(dbName, variantSourceService, variantService, studies, Collections.emptyList(), evaProperties, queryParameters, WINDOW_SIZE);
         this.outputStream = outputStream;
         String now = LocalDateTime.now().format(DateTimeFormatter.BASIC_ISO_DATE);
-        outputFileName = dbName.replace("eva_", "") + "_exported_" + now + ".vcf";
+        outputFileName = dbName.replace("eva_", "") + "_exported_" + now
+                + queryParameters.getOutputFormat().getStreamExtension();
 
     }
 
@@ -131,7 +146,9 @@ public class VariantExporterController {
         query.setStudies(studies);
         evaWsClient = getChromosomeWsClient(dbName, evaProperties);
         regionFactory = new RegionFactory(windowSize, variantService);
-        exporter = new VariantExporter(isAnnotationExcluded(queryParameters.getExclusions()));
+        exporter = new VariantExporter(isAnnotationExcluded(queryParameters.getExclusions()),
+                                       queryParameters.isSitesOnly(), queryParameters.getSamples(),
+                                       queryParameters.getLoadedSince());
         failedVariants = 0;
         totalExportedVariants = 0;
     }
@@ -155,6 +172,9 @@ public class VariantExporterController {
                 && (queryParameters.getExclusions().size() > 1
                 || !queryParameters.getExclusions().get(0).equals(ANNOTATION_EXCLUSION))) {
             throw new IllegalArgumentException("Parameter 'exclusions' only allows '" + ANNOTATION_EXCLUSION + "'");
+        } else if (queryParameters.isSitesOnly() && queryParameters.getSamples() != null
+                && !queryParameters.getSamples().isEmpty()) {
+            throw new IllegalArgumentException("Parameters 'samples' and 'sites-only' are mutually exclusive");
         }
     }
 
@@ -172,11 +192,28 @@ public class VariantExporterController {
     }
 
     public void run() {
+        exportDate = new Date();
         VCFHeader header = getOutputVcfHeader();
         VariantContextWriter writer = getWriter();
         writer.writeHeader(header);
         exportVariants(writer);
         writer.close();
+        if (outputDir != null) {
+            writeManifest();
+        }
+    }
+
+    private void writeManifest() {
+        manifestFilePath = Paths.get(outputFilePath.toString() + ExportManifest.MANIFEST_EXTENSION);
+        ExportManifest manifest = new ExportManifest(dbName, outputFilePath.getFileName().toString(), exportDate,
+                                                     query.getLoadedSince(), studies, exportedSources,
+                                                     totalExportedVariants);
+        try {
+            manifest.write(manifestFilePath.toFile());
+            logger.info("Export manifest written to {}", manifestFilePath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write export manifest " + manifestFilePath, e);
+        }
     }
 
     public void exportHeader() {
@@ -196,12 +233,15 @@ public class VariantExporterController {
     }
 
     private void exportVariants(VariantContextWriter writer) {
+        if (query.getLoadedSince() != null && exportedSources.isEmpty()) {
+            logger.info("No files loaded since {}, no variants will be exported", query.getLoadedSince());
+            return;
+        }
         // get all chromosomes in the query or organism, and export the variants for each chromosome
         List<VariantRepositoryFilter> filters = new FilterBuilder()
                 .getVariantEntityRepositoryFilters(query.getMaf(), query.getPolyphenScore(),
                         query.getSiftScore(), query.getStudies(), query.getConsequenceType());
-        Set<String> chromosomes = getChromosomes(query.getRegionsAsList());
-        for (String chromosome : chromosomes) {
+        for (String chromosome : getExportedChromosomes()) {
             exportChromosomeVariants(writer, chromosome, filters);
         }
         logger.info("VCF export summary");
@@ -214,9 +254,17 @@ public class VariantExporterController {
         // get VCF header(s) and write them to output file(s)
         logger.info("Generating VCF header ...");
         List<VariantSource> sources = exporter.getSources(variantSourceService, studies, files);
+        exportedSources = sources;
+        if ((query.getSamples() != null && !query.getSamples().isEmpty()) || query.getLoadedSince() != null) {
+            // only the studies containing the requested samples or the recently loaded files need to be queried
+            query.setStudies(sources.stream().map(VariantSource::getStudyId).distinct().collect(Collectors.toList()));
+        }
         VCFHeader header = null;
         try {
             header = exporter.getMergedVcfHeader(sources);
+            if (query.getOutputFormat() == OutputFormat.BCF) {
+                header = addMissingContigLines(header);
+            }
             logger.debug("Generated header with {} samples", header.getNGenotypeSamples());
         } catch (IOException e) {
             logger.error("Error getting VCF header: {}", e.getMessage());
@@ -224,16 +272,32 @@ public class VariantExporterController {
         return header;
     }
 
+    /**
+     * BCF encodes the chromosome of each variant as an index in the contig lines of the header, so all the exported
+     * chromosomes must be declared in it, even if they were not in the header of the original files
+     */
+    private VCFHeader addMissingContigLines(VCFHeader header) {
+        Set<String> headerContigs = header.getContigLines().stream().map(VCFContigHeaderLine::getID)
+                                          .collect(Collectors.toSet());
+        Set<VCFHeaderLine> headerLines = new LinkedHashSet<>(header.getMetaDataInInputOrder());
+        int contigIndex = headerContigs.size();
+        for (String chromosome : new TreeSet<>(getExportedChromosomes())) {
+            if (!headerContigs.contains(chromosome)) {
+                headerLines.add(new VCFContigHeaderLine(Collections.singletonMap("ID", chromosome), contigIndex++));
+            }
+        }
+        return new VCFHeader(headerLines, header.getGenotypeSamples());
+    }
+
     private void exportChromosomeVariants(VariantContextWriter writer, String chromosome, List<VariantRepositoryFilter> filters) {
         logger.info("Exporting variants for chromosome {} ...", chromosome);
         List<Region> allRegionsInChromosome = regionFactory.getRegionsForChromosome(chromosome, query);
 
-        for (Region region : allRegionsInChromosome) {
-            List<VariantContext> exportedVariants = exporter.export(variantService, filters, region);
-            Collections.sort(exportedVariants, (v1, v2) -> v1.getStart() - v2.getStart());
+        for (List<Region> regionBatch : regionFactory.groupRegionsInBatches(allRegionsInChromosome)) {
+            List<VariantContext> exportedVariants = exporter.export(variantService, filters, regionBatch);
             failedVariants += exporter.getFailedVariants();
             exportedVariants.forEach(writer::add);
-            logger.debug("{} variants exported from region {}", exportedVariants.size(), region);
+            logger.debug("{} variants exported from regions {}", exportedVariants.size(), regionBatch);
             totalExportedVariants += exportedVariants.size();
         }
     }
@@ -241,26 +305,22 @@ public class VariantExporterController {
     private VariantContextWriter getWriter() {
         VariantContextWriter writer;
         if (outputDir != null) {
-            writer = buildVcfFileWriter();
+            String now = LocalDateTime.now().format(DateTimeFormatter.BASIC_ISO_DATE);
+            String fileName = dbName + "_exported_" + now + query.getOutputFormat().getFileExtension();
+            outputFilePath = Paths.get(outputDir).resolve(fileName);
+            writer = VariantContextWriterFactory.getWriter(query.getOutputFormat(), outputFilePath.toFile());
         } else {
-            writer = buildVcfOutputStreamWriter();
+            writer = VariantContextWriterFactory.getWriter(query.getOutputFormat(), outputStream);
         }
 
         return writer;
     }
 
-    private VariantContextWriter buildVcfFileWriter() {
-        String now = LocalDateTime.now().format(DateTimeFormatter.BASIC_ISO_DATE);
-        String fileName = dbName + "_exported_" + now + ".vcf.gz";
-        outputFilePath = Paths.get(outputDir).resolve(fileName);
-
-        VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
-        return builder.setOutputFile(outputFilePath.toFile()).unsetOption(Options.INDEX_ON_THE_FLY).build();
-    }
-
-    private VariantContextWriter buildVcfOutputStreamWriter() {
-        VariantContextWriterBuilder builder = new VariantContextWriterBuilder();
-        return builder.setOutputVCFStream(outputStream).unsetOption(Options.INDEX_ON_THE_FLY).build();
+    private Set<String> getExportedChromosomes() {
+        if (exportedChromosomes == null) {
+            exportedChromosomes = getChromosomes(query.getRegionsAsList());
+        }
+        return exportedChromosomes;
     }
 
     private Set<String> getChromosomes(List<String> regions) {
@@ -291,6 +351,10 @@ public class VariantExporterController {
         return failedVariants;
     }
 
+    public String getManifestFilePath() {
+        return manifestFilePath.toString();
+    }
+
     public String getOutputFileName() {
         return outputFileName;
     }
@@ -33,6 +33,7 @@ import uk.ac.ebi.eva.commons.core.models.ws.VariantSourceEntryWithSampleNames;
 import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,12 @@ public class VariantToVariantContextConverter {
 
     private Set<String> studies;
 
+    /**
+     * Ids of the exported files, by study. Only the genotypes from these files are exported, even if a variant is
+     * present in other files of the same studies
+     */
+    private Map<String, Set<String>> studiesFileIds;
+
     private Map<String, Map<String, String>> filesSampleNamesEquivalences;
 
     private static final int NO_CALL_ALLELE_INDEX = 2;
@@ -61,13 +68,42 @@ public class VariantToVariantContextConverter {
 
     private boolean excludeAnnotations;
 
+    private boolean sitesOnly;
+
+    private Set<String> samples;
+
     public VariantToVariantContextConverter(List<VariantSource> sources,
                                             Map<String, Map<String, String>> filesSampleNamesEquivalences,
                                             boolean excludeAnnotations) {
+        this(sources, filesSampleNamesEquivalences, excludeAnnotations, false);
+    }
+
+    /**
+     * @param sitesOnly if true, no genotypes will be added to the variant contexts, regardless of the samples data
+     *                  present in the variants
+     */
+    public VariantToVariantContextConverter(List<VariantSource> sources,
+                                            Map<String, Map<String, String>> filesSampleNamesEquivalences,
+                                            boolean excludeAnnotations, boolean sitesOnly) {
+        this(sources, filesSampleNamesEquivalences, excludeAnnotations, sitesOnly, null);
+    }
+
+    /**
+     * @param samples original names of the samples whose genotypes will be added to the variant contexts. If null, the
+     *                genotypes of all the samples will be added
+     */
+    public VariantToVariantContextConverter(List<VariantSource> sources,
+                                            Map<String, Map<String, String>> filesSampleNamesEquivalences,
+                                            boolean excludeAnnotations, boolean sitesOnly, Set<String> samples) {
         this.sources = sources;
         this.excludeAnnotations = excludeAnnotations;
+        this.sitesOnly = sitesOnly;
+        this.samples = samples;
         if (sources != null) {
             this.studies = sources.stream().map(VariantSource::getStudyId).collect(Collectors.toSet());
+            this.studiesFileIds = sources.stream().collect(
+                    Collectors.groupingBy(VariantSource::getStudyId,
+                                          Collectors.mapping(VariantSource::getFileId, Collectors.toSet())));
         }
         this.filesSampleNamesEquivalences = filesSampleNamesEquivalences;
     }
@@ -80,7 +116,7 @@ public class VariantToVariantContextConverter {
         }
         String[] allelesArray = getAllelesArray(variant);
 
-        Set<Genotype> genotypes = getGenotypes(variant, allelesArray);
+        Set<Genotype> genotypes = sitesOnly ? Collections.emptySet() : getGenotypes(variant, allelesArray);
 
         // don't reuse instances of this builder. It carries over state from one variant to the next one
         VariantContextBuilder variantContextBuilder = new VariantContextBuilder();
@@ -227,20 +263,25 @@ public class VariantToVariantContextConverter {
                 {Allele.create(allelesArray[0], true), Allele.create(allelesArray[1]), Allele.create(Allele.NO_CALL,
                                                                                                      false)};
 
-        for (VariantSource source : sources) {
-            List<VariantSourceEntryWithSampleNames> variantStudyEntries =
-                    variant.getSourceEntries().stream().filter(s -> s.getStudyId().equals(source.getStudyId()))
-                           .collect(Collectors.toList());
-            for (VariantSourceEntryWithSampleNames variantStudyEntry : variantStudyEntries) {
-                genotypes = getStudyGenotypes(genotypes, variantAlleles, variantStudyEntry);
-            }
+        List<VariantSourceEntryWithSampleNames> variantFileEntries =
+                variant.getSourceEntries().stream().filter(this::isExportedFile).collect(Collectors.toList());
+        for (VariantSourceEntryWithSampleNames variantFileEntry : variantFileEntries) {
+            genotypes = getStudyGenotypes(genotypes, variantAlleles, variantFileEntry);
         }
         return genotypes;
     }
 
+    private boolean isExportedFile(VariantSourceEntryWithSampleNames sourceEntry) {
+        Set<String> fileIds = studiesFileIds.get(sourceEntry.getStudyId());
+        return fileIds != null && fileIds.contains(sourceEntry.getFileId());
+    }
+
     private Set<Genotype> getStudyGenotypes(Set<Genotype> genotypes, Allele[] variantAlleles,
                                             VariantSourceEntryWithSampleNames variantStudyEntry) {
         for (Map.Entry<String, Map<String, String>> sampleEntry : variantStudyEntry.getSamplesDataMap().entrySet()) {
+            if (samples != null && !samples.contains(sampleEntry.getKey())) {
+                continue;
+            }
             String sampleGenotypeString = sampleEntry.getValue().get(GENOTYPE_KEY);
             Genotype sampleGenotype =
                     parseSampleGenotype(variantAlleles, variantStudyEntry.getFileId(), sampleEntry.getKey(),
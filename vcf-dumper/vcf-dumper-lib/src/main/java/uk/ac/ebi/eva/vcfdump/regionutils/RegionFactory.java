@@ -35,6 +35,11 @@ public class RegionFactory {
 
     private static final Logger logger = LoggerFactory.getLogger(RegionFactory.class);
 
+    /**
+     * Maximum number of regions queried together, to keep the size of the '$or' clause reasonable
+     */
+    public static final int MAX_REGIONS_PER_BATCH = 100;
+
     private int windowSize;
 
     private final VariantWithSamplesAndAnnotationsService variantService;
@@ -97,6 +102,34 @@ public class RegionFactory {
         return regions;
     }
 
+    /**
+     * Groups consecutive regions so they can be exported with one query each. The total length of the regions in a
+     * batch is bounded by the window size, so the number of variants returned by a batch is similar to the one of a
+     * single window, and the regions that already are a full window are queried alone.
+     *
+     * @param regions regions of the same chromosome, sorted by start
+     */
+    public List<List<Region>> groupRegionsInBatches(List<Region> regions) {
+        List<List<Region>> batches = new ArrayList<>();
+        List<Region> batch = new ArrayList<>();
+        long batchLength = 0;
+        for (Region region : regions) {
+            long regionLength = region.getEnd() - region.getStart() + 1;
+            if (!batch.isEmpty() && (batchLength + regionLength > windowSize || batch.size() == MAX_REGIONS_PER_BATCH)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchLength = 0;
+            }
+            batch.add(region);
+            batchLength += regionLength;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        logger.debug("{} regions grouped in {} batches", regions.size(), batches.size());
+        return batches;
+    }
+
     public List<Region> divideRegionInChunks(String chromosome, long minStart, long maxStart) {
         // we are using long instead of int to avoid overflowing if maxStart is MAX_INT. The casting to int will always work, because the
         // maximum value will be MAX_INT
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.vcfdump.writers;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static uk.ac.ebi.eva.vcfdump.VariantToVariantContextConverter.ANNOTATION_KEY;
+
+/**
+ * Writes variants as an Arrow IPC stream, with one row per variant and the following columns:
+ * <ul>
+ * <li>chromosome, position, reference and alternates (comma separated)</li>
+ * <li>ids, quality and filters, null when the VCF would show them as missing ("."). As in VCF, the ids and the
+ * filters are separated by semicolons, and the filters are "PASS" if they were applied and none failed</li>
+ * <li>annotation: the CSQ attribute, if present</li>
+ * <li>genotypes: only if the header has samples. One byte per sample, in the order listed in the "samples" schema
+ * metadata entry. The lowest 3 bits are the first allele index, the next 3 bits the second allele index, and bit 6 is
+ * set for phased genotypes. Allele index {@link #NO_CALL_CODE} is a no-call, and {@link #ABSENT_ALLELE_CODE} means
+ * that the genotype has only one allele</li>
+ * </ul>
+ */
+public class ArrowVariantContextWriter implements VariantContextWriter {
+
+    public static final String SAMPLES_METADATA_KEY = "samples";
+
+    public static final String CHROMOSOME_COLUMN = "chromosome";
+
+    public static final String POSITION_COLUMN = "position";
+
+    public static final String IDS_COLUMN = "ids";
+
+    public static final String REFERENCE_COLUMN = "reference";
+
+    public static final String ALTERNATES_COLUMN = "alternates";
+
+    public static final String QUALITY_COLUMN = "quality";
+
+    public static final String FILTERS_COLUMN = "filters";
+
+    public static final String ANNOTATION_COLUMN = "annotation";
+
+    public static final String GENOTYPES_COLUMN = "genotypes";
+
+    public static final byte NO_CALL_CODE = 7;
+
+    public static final byte ABSENT_ALLELE_CODE = 6;
+
+    private static final int PHASED_FLAG = 1 << 6;
+
+    private static final String PASSED_FILTERS = "PASS";
+
+    private static final int BATCH_SIZE = 4096;
+
+    private final OutputStream outputStream;
+
+    private BufferAllocator allocator;
+
+    private VectorSchemaRoot root;
+
+    private ArrowStreamWriter writer;
+
+    private List<String> sampleNames;
+
+    private int rowsInBatch;
+
+    public ArrowVariantContextWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void writeHeader(VCFHeader header) {
+        setHeader(header);
+    }
+
+    @Override
+    public void setHeader(VCFHeader header) {
+        sampleNames = new ArrayList<>(header.getGenotypeSamples());
+        allocator = new RootAllocator(Long.MAX_VALUE);
+        root = VectorSchemaRoot.create(createSchema(), allocator);
+        root.allocateNew();
+        writer = new ArrowStreamWriter(root, null, outputStream);
+        try {
+            writer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write Arrow schema", e);
+        }
+    }
+
+    private Schema createSchema() {
+        List<Field> fields = new ArrayList<>();
+        fields.add(Field.nullable(CHROMOSOME_COLUMN, ArrowType.Utf8.INSTANCE));
+        fields.add(Field.nullable(POSITION_COLUMN, new ArrowType.Int(32, true)));
+        fields.add(Field.nullable(IDS_COLUMN, ArrowType.Utf8.INSTANCE));
+        fields.add(Field.nullable(REFERENCE_COLUMN, ArrowType.Utf8.INSTANCE));
+        fields.add(Field.nullable(ALTERNATES_COLUMN, ArrowType.Utf8.INSTANCE));
+        fields.add(Field.nullable(QUALITY_COLUMN, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)));
+        fields.add(Field.nullable(FILTERS_COLUMN, ArrowType.Utf8.INSTANCE));
+        fields.add(Field.nullable(ANNOTATION_COLUMN, ArrowType.Utf8.INSTANCE));
+        if (!sampleNames.isEmpty()) {
+            fields.add(Field.nullable(GENOTYPES_COLUMN, ArrowType.Binary.INSTANCE));
+        }
+        return new Schema(fields, Collections.singletonMap(SAMPLES_METADATA_KEY, String.join(",", sampleNames)));
+    }
+
+    @Override
+    public void add(VariantContext variantContext) {
+        if (root == null) {
+            throw new IllegalStateException("The header must be written before adding variants");
+        }
+        setString(CHROMOSOME_COLUMN, variantContext.getContig());
+        ((IntVector) root.getVector(POSITION_COLUMN)).setSafe(rowsInBatch, variantContext.getStart());
+        setString(IDS_COLUMN, variantContext.hasID() ? variantContext.getID() : null);
+        setString(REFERENCE_COLUMN, variantContext.getReference().getBaseString());
+        setString(ALTERNATES_COLUMN, variantContext.getAlternateAlleles().stream().map(Allele::getBaseString)
+                                                   .collect(Collectors.joining(",")));
+        Float8Vector qualities = (Float8Vector) root.getVector(QUALITY_COLUMN);
+        if (variantContext.hasLog10PError()) {
+            qualities.setSafe(rowsInBatch, variantContext.getPhredScaledQual());
+        } else {
+            qualities.setNull(rowsInBatch);
+        }
+        setString(FILTERS_COLUMN, getFilters(variantContext));
+        setString(ANNOTATION_COLUMN, variantContext.getAttributeAsString(ANNOTATION_KEY, null));
+        if (!sampleNames.isEmpty()) {
+            ((VarBinaryVector) root.getVector(GENOTYPES_COLUMN)).setSafe(rowsInBatch, encodeGenotypes(variantContext));
+        }
+
+        rowsInBatch++;
+        if (rowsInBatch == BATCH_SIZE) {
+            writeBatch();
+        }
+    }
+
+    private void setString(String column, String value) {
+        VarCharVector vector = (VarCharVector) root.getVector(column);
+        if (value == null) {
+            vector.setNull(rowsInBatch);
+        } else {
+            vector.setSafe(rowsInBatch, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String getFilters(VariantContext variantContext) {
+        if (!variantContext.filtersWereApplied()) {
+            return null;
+        }
+        return variantContext.isFiltered() ? String.join(";", variantContext.getFilters()) : PASSED_FILTERS;
+    }
+
+    private byte[] encodeGenotypes(VariantContext variantContext) {
+        byte[] genotypes = new byte[sampleNames.size()];
+        for (int i = 0; i < genotypes.length; i++) {
+            genotypes[i] = encodeGenotype(variantContext, variantContext.getGenotype(sampleNames.get(i)));
+        }
+        return genotypes;
+    }
+
+    static byte encodeGenotype(VariantContext variantContext, Genotype genotype) {
+        int firstAllele = NO_CALL_CODE;
+        int secondAllele = NO_CALL_CODE;
+        boolean phased = false;
+        if (genotype != null && genotype.getPloidy() > 0) {
+            firstAllele = encodeAllele(variantContext, genotype.getAllele(0));
+            secondAllele = genotype.getPloidy() > 1 ? encodeAllele(variantContext, genotype.getAllele(1))
+                    : ABSENT_ALLELE_CODE;
+            phased = genotype.isPhased();
+        }
+        return (byte) (firstAllele | (secondAllele << 3) | (phased ? PHASED_FLAG : 0));
+    }
+
+    private static int encodeAllele(VariantContext variantContext, Allele allele) {
+        int index = allele.isNoCall() ? -1 : variantContext.getAlleleIndex(allele);
+        return (index < 0 || index >= ABSENT_ALLELE_CODE) ? NO_CALL_CODE : index;
+    }
+
+    private void writeBatch() {
+        root.setRowCount(rowsInBatch);
+        try {
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write Arrow record batch", e);
+        }
+        root.allocateNew();
+        rowsInBatch = 0;
+    }
+
+    @Override
+    public void close() {
+        if (root == null) {
+            return;
+        }
+        try {
+            if (rowsInBatch > 0) {
+                writeBatch();
+            }
+            writer.end();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close Arrow stream", e);
+        } finally {
+            root.close();
+            allocator.close();
+        }
+    }
+
+    @Override
+    public boolean checkError() {
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.vcfdump.writers;
+
+/**
+ * Formats the exported variants can be written in.
+ */
+public enum OutputFormat {
+
+    /**
+     * VCF text, bgzipped when written to a file
+     */
+    VCF(".vcf.gz", ".vcf"),
+
+    /**
+     * Binary VCF
+     */
+    BCF(".bcf", ".bcf"),
+
+    /**
+     * Arrow IPC stream with one row per variant, see {@link ArrowVariantContextWriter}
+     */
+    ARROW(".arrow", ".arrow");
+
+    private final String fileExtension;
+
+    private final String streamExtension;
+
+    OutputFormat(String fileExtension, String streamExtension) {
+        this.fileExtension = fileExtension;
+        this.streamExtension = streamExtension;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public String getStreamExtension() {
+        return streamExtension;
+    }
+
+    public static OutputFormat parse(String format) {
+        try {
+            return OutputFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Output format '" + format + "' not supported. Valid formats are VCF, " +
+                                                       "BCF and ARROW");
+        }
+    }
+}
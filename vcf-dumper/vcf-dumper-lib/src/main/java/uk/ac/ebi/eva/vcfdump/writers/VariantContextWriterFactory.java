@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.vcfdump.writers;
+
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Builds the writer for each {@link OutputFormat}, either to a file or to an output stream.
+ */
+public class VariantContextWriterFactory {
+
+    private VariantContextWriterFactory() {
+    }
+
+    public static VariantContextWriter getWriter(OutputFormat outputFormat, File outputFile) {
+        switch (outputFormat) {
+            case VCF:
+            case BCF:
+                // the builder chooses VCF, bgzipped VCF or BCF from the file extension
+                return new VariantContextWriterBuilder().setOutputFile(outputFile)
+                                                        .unsetOption(Options.INDEX_ON_THE_FLY)
+                                                        .build();
+            case ARROW:
+                try {
+                    return new ArrowVariantContextWriter(new BufferedOutputStream(new FileOutputStream(outputFile)));
+                } catch (FileNotFoundException e) {
+                    throw new UncheckedIOException("Could not open output file " + outputFile, e);
+                }
+            default:
+                throw new IllegalArgumentException("Output format " + outputFormat + " not supported");
+        }
+    }
+
+    public static VariantContextWriter getWriter(OutputFormat outputFormat, OutputStream outputStream) {
+        switch (outputFormat) {
+            case VCF:
+                return new VariantContextWriterBuilder().setOutputVCFStream(outputStream)
+                                                        .unsetOption(Options.INDEX_ON_THE_FLY)
+                                                        .build();
+            case BCF:
+                return new VariantContextWriterBuilder().setOutputBCFStream(outputStream)
+                                                        .unsetOption(Options.INDEX_ON_THE_FLY)
+                                                        .build();
+            case ARROW:
+                return new ArrowVariantContextWriter(outputStream);
+            default:
+                throw new IllegalArgumentException("Output format " + outputFormat + " not supported");
+        }
+    }
+}
@@ -50,9 +50,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -248,6 +250,64 @@ public class VariantExporterControllerTest {
         assertVcfOrderedByCoordinate(outputFile);
     }
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_oaries_oarv31/files_2_0.json",
+            "/db-dump/eva_oaries_oarv31/variants_2_0.json"})
+    public void testIncrementalVcfExport() throws URISyntaxException, IOException {
+        // only the second sheep file was loaded after this date
+        Date loadedSince = Date.from(Instant.parse("2016-07-18T00:00:00Z"));
+        QueryParams params = new QueryParams();
+        params.setLoadedSince(loadedSince);
+        List<String> studies = Collections.singletonList(SHEEP_STUDY_ID);
+        VariantExporterController controller = new VariantExporterController(
+                databaseMapping.get(SHEEP_TEST_DB),
+                variantSourceService, variantService,
+                studies, Collections.emptyList(), OUTPUT_DIR, evaTestProperties, params);
+        controller.run();
+
+        ////////// checks
+        String outputFile = controller.getOuputFilePath();
+        testOutputFiles.add(outputFile);
+        testOutputFiles.add(controller.getManifestFilePath());
+        assertEquals(0, controller.getFailedVariants());   // test file should not have failed variants
+
+        List<String> files = Collections.singletonList(SHEEP_FILE_2_ID);
+        long variantCountInDb = getVariantCountInDb(variant -> containStudyIdAndFileIds(variant, studies, files));
+        assertTrue(variantCountInDb != 0);
+        assertEqualLinesFilesAndDB(outputFile, variantCountInDb);
+        assertVcfOrderedByCoordinate(outputFile);
+
+        ExportManifest manifest = ExportManifest.read(new File(controller.getManifestFilePath()));
+        assertEquals(loadedSince, manifest.getLoadedSince());
+        assertEquals(variantCountInDb, manifest.getExportedVariants());
+        assertEquals(1, manifest.getFiles().size());
+        assertEquals(SHEEP_FILE_2_ID, manifest.getFiles().get(0).getFileId());
+        assertTrue(manifest.getExportDate().after(manifest.getFiles().get(0).getLoadDate()));
+    }
+
+    @Test
+    public void testIncrementalVcfExportWithoutNewFiles() throws URISyntaxException, IOException {
+        QueryParams params = new QueryParams();
+        params.setLoadedSince(new Date());
+        List<String> studies = Arrays.asList("7", "8");
+        VariantExporterController controller = new VariantExporterController(
+                databaseMapping.get(HUMAN_TEST_DB),
+                variantSourceService, variantService,
+                studies, Collections.emptyList(), OUTPUT_DIR, evaTestProperties, params);
+        controller.run();
+
+        ////////// checks
+        String outputFile = controller.getOuputFilePath();
+        testOutputFiles.add(outputFile);
+        testOutputFiles.add(controller.getManifestFilePath());
+        assertEqualLinesFilesAndDB(outputFile, 0);
+
+        ExportManifest manifest = ExportManifest.read(new File(controller.getManifestFilePath()));
+        assertTrue(manifest.getFiles().isEmpty());
+        assertEquals(0, manifest.getExportedVariants());
+    }
+
     private long getVariantCountInDb(Predicate<VariantMongo> predicate) {
         List<VariantMongo> variants = variantRepository.findAll();
         return variants.stream().filter(predicate).count();
@@ -43,15 +43,19 @@ import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
 import static com.lordofthejars.nosqlunit.mongodb.MongoDbRule.MongoDbRuleBuilder.newMongoDbRule;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -90,6 +94,9 @@ public class VariantExporterTest {
     private static final String SHEEP_FILE_2_ID = "ERZ324596";
     private static final int NUMBER_OF_SAMPLES_IN_SHEEP_FILES = 453;
 
+    private static final String OVERLAPPING_STUDY_ID = "PRJEB00001";
+    private static final String OVERLAPPING_NEW_FILE_ID = "ERZ000002";
+
     @Autowired
     private MongoOperations mongoOperations;
 
@@ -217,6 +224,21 @@ public class VariantExporterTest {
                 s -> s.getSamplesPosition().size() == NUMBER_OF_SAMPLES_IN_SHEEP_FILES));
     }
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_oaries_oarv31/files_2_0.json",
+            "/db-dump/eva_oaries_oarv31/variants_2_0.json"})
+    public void getSourcesLoadedSinceDate() {
+        // one study with two files, only the second one loaded after the given date
+        VariantExporter variantExporter = new VariantExporter(true, false, null,
+                                                              Date.from(Instant.parse("2016-07-18T00:00:00Z")));
+        List<VariantSource> sources = variantExporter.getSources(variantSourceService,
+                                                                 Collections.singletonList(SHEEP_STUDY_ID),
+                                                                 Collections.emptyList());
+        assertEquals(1, sources.size());
+        assertEquals(SHEEP_FILE_2_ID, sources.get(0).getFileId());
+    }
+
     @Test
     @UsingDataSet(locations = {
             "/db-dump/eva_hsapiens_grch37/files_2_0.json",
@@ -345,6 +367,24 @@ public class VariantExporterTest {
         assertNotNull(header.getFormatHeaderLine(GENOTYPE_KEY));
     }
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_btaurus_umd31/files_2_0.json",
+            "/db-dump/eva_btaurus_umd31/variants_2_0.json"})
+    public void mergeVcfHeadersSitesOnly() throws IOException {
+        VariantExporter variantExporter = new VariantExporter(true, true);
+        List<String> cowStudyIds = Arrays.asList("PRJEB6119", "PRJEB7061");
+        List<VariantSource> cowSources =
+                variantExporter.getSources(variantSourceService, cowStudyIds, Collections.emptyList());
+        VCFHeader header = variantExporter.getMergedVcfHeader(cowSources);
+
+        // assert
+        assertEquals(1, header.getContigLines().size());
+        assertEquals(0, header.getFormatHeaderLines().size());
+        assertFalse(header.hasGenotypingData());
+        assertEquals(0, header.getNGenotypeSamples());
+    }
+
     @Test
     @UsingDataSet(locations = {
             "/db-dump/eva_hsapiens_grch37/files_2_0.json",
@@ -374,6 +414,34 @@ public class VariantExporterTest {
         checkExportedVariants(variantService, query, exportedVariants);
     }
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_hsapiens_grch37/files_2_0.json",
+            "/db-dump/eva_hsapiens_grch37/variants_2_0.json"})
+    public void testExportSeveralRegionsInOneBatch() throws Exception {
+        List<String> studies = Collections.singletonList("8");
+        VariantExporter variantExporter = new VariantExporter(true);
+        variantExporter.getSources(variantSourceService, studies, Collections.emptyList());
+        List<VariantRepositoryFilter> filters = new FilterBuilder().getVariantEntityRepositoryFilters(null, null, null,
+                                                                                                     studies, null);
+        List<Region> regions = Arrays.asList(new Region("20:60000-62999"), new Region("20:66000-69000"));
+
+        List<VariantContext> batchVariants = variantExporter.export(variantService, filters, regions);
+
+        List<VariantContext> separateVariants = new ArrayList<>();
+        for (Region region : regions) {
+            separateVariants.addAll(variantExporter.export(variantService, filters, region));
+        }
+        assertTrue(batchVariants.size() > 0);
+        assertEquals(separateVariants.size(), batchVariants.size());
+        for (int i = 0; i < batchVariants.size(); i++) {
+            assertEquals(separateVariants.get(i).getStart(), batchVariants.get(i).getStart());
+            assertEquals(separateVariants.get(i).getReference(), batchVariants.get(i).getReference());
+            assertEquals(separateVariants.get(i).getAlternateAlleles(), batchVariants.get(i).getAlternateAlleles());
+        }
+        assertTrue(batchVariants.stream().noneMatch(v -> v.getStart() > 62999 && v.getStart() < 66000));
+    }
+
     @Test
     @UsingDataSet(locations = {
             "/db-dump/eva_btaurus_umd31/files_2_0.json",
@@ -388,6 +456,68 @@ public class VariantExporterTest {
                        4);
     }
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_hsapiens_grch37/files_2_0.json",
+            "/db-dump/eva_hsapiens_grch37/variants_2_0.json"})
+    public void testExportOneStudySitesOnly() throws Exception {
+        List<String> studies = Collections.singletonList("8");
+        String region = "20:60000-69000";
+        QueryParams query = new QueryParams();
+        query.setStudies(studies);
+        query.setRegion(region);
+        query.setSitesOnly(true);
+        List<VariantContext> exportedVariants = exportAndCheck(variantSourceService, variantService, query, studies,
+                                                               Collections.emptyList());
+        checkExportedVariants(variantService, query, exportedVariants);
+        assertTrue(exportedVariants.stream().noneMatch(VariantContext::hasGenotypes));
+    }
+
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_hsapiens_grch37/files_2_0.json",
+            "/db-dump/eva_hsapiens_grch37/variants_2_0.json"})
+    public void testExportOneStudySubsetOfSamples() throws Exception {
+        List<String> studies = Collections.singletonList("8");
+        List<String> samples = Arrays.asList("HG00096", "HG00097");
+        String region = "20:60000-69000";
+        QueryParams query = new QueryParams();
+        query.setStudies(studies);
+        query.setRegion(region);
+        query.setSamples(samples);
+        List<VariantContext> exportedVariants = exportAndCheck(variantSourceService, variantService, query, studies,
+                                                               Collections.emptyList());
+        checkExportedVariants(variantService, query, exportedVariants);
+        assertTrue(exportedVariants.stream().allMatch(v -> v.getSampleNames().equals(new HashSet<>(samples))));
+    }
+
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_hsapiens_grch37/files_2_0.json",
+            "/db-dump/eva_hsapiens_grch37/variants_2_0.json"})
+    public void mergeVcfHeadersSubsetOfSamples() throws IOException {
+        List<String> samples = Arrays.asList("HG00096", "HG00097");
+        VariantExporter variantExporter = new VariantExporter(true, false, samples);
+        List<VariantSource> sources =
+                variantExporter.getSources(variantSourceService, Arrays.asList("7", "8"), Collections.emptyList());
+        VCFHeader header = variantExporter.getMergedVcfHeader(sources);
+
+        // both studies contain the same samples, so their names are prefixed with the file id
+        assertEquals(4, header.getNGenotypeSamples());
+        assertTrue(header.getGenotypeSamples().contains("5_HG00096"));
+        assertTrue(header.getGenotypeSamples().contains("6_HG00097"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @UsingDataSet(locations = {
+            "/db-dump/eva_hsapiens_grch37/files_2_0.json",
+            "/db-dump/eva_hsapiens_grch37/variants_2_0.json"})
+    public void notExistingSampleShouldThrowException() {
+        VariantExporter variantExporter = new VariantExporter(true, false,
+                                                              Collections.singletonList("notExistingSample"));
+        variantExporter.getSources(variantSourceService, Collections.singletonList("8"), Collections.emptyList());
+    }
+
     @Test
     @UsingDataSet(locations = {
             "/db-dump/eva_oaries_oarv31/files_2_0.json",
@@ -410,6 +540,36 @@ public class VariantExporterTest {
 
 
 
+    @Test
+    @UsingDataSet(locations = {
+            "/db-dump/eva_test_overlapping_files/files_2_0.json",
+            "/db-dump/eva_test_overlapping_files/variants_2_0.json"})
+    public void testExportFilesLoadedSinceDateOnlyIncludesTheirGenotypes() throws Exception {
+        // the variant at 1:1000 is in an old and a new file of the same study, all of them with the same sample names
+        VariantExporter variantExporter = new VariantExporter(true, false, null,
+                                                              Date.from(Instant.parse("2017-01-01T00:00:00Z")));
+        List<VariantSource> sources = variantExporter.getSources(variantSourceService,
+                                                                 Collections.singletonList(OVERLAPPING_STUDY_ID),
+                                                                 Collections.emptyList());
+        assertEquals(2, sources.size());
+
+        QueryParams query = new QueryParams();
+        query.setStudies(Collections.singletonList(OVERLAPPING_STUDY_ID));
+        List<VariantRepositoryFilter> filters = new FilterBuilder().getVariantEntityRepositoryFilters(
+                query.getMaf(), query.getPolyphenScore(), query.getSiftScore(), query.getStudies(),
+                query.getConsequenceType());
+        List<VariantContext> exportedVariants = variantExporter.export(variantService, filters,
+                                                                       new Region("1:1-5000"));
+
+        assertEquals(0, variantExporter.getFailedVariants());
+        assertEquals(2, exportedVariants.size());
+        VariantContext variantInOldAndNewFile = exportedVariants.get(0);
+        assertEquals(1000, variantInOldAndNewFile.getStart());
+        assertEquals(new HashSet<>(Arrays.asList(OVERLAPPING_NEW_FILE_ID + "_s1", OVERLAPPING_NEW_FILE_ID + "_s2")),
+                     new HashSet<>(variantInOldAndNewFile.getSampleNames()));
+        assertEquals(3000, exportedVariants.get(1).getStart());
+    }
+
     private List<VariantContext> exportAndCheck(VariantSourceService variantSourceService,
                                                 VariantWithSamplesAndAnnotationsService variantService,
                                                 QueryParams query, List<String> studies, List<String> files) {
@@ -420,7 +580,7 @@ public class VariantExporterTest {
                                                 VariantWithSamplesAndAnnotationsService variantService,
                                                 QueryParams query, List<String> studies, List<String> files,
                                                 int expectedFailedVariants) {
-        VariantExporter variantExporter = new VariantExporter(true);
+        VariantExporter variantExporter = new VariantExporter(true, query.isSitesOnly(), query.getSamples());
 
         // we need to call 'getSources' before 'export' because it checks if there are sample name conflicts
         // and initialize some dependencies
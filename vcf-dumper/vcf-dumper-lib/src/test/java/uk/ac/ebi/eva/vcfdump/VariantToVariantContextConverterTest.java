@@ -98,6 +98,51 @@ public class VariantToVariantContextConverterTest {
         checkVariantContext(variantContext, CHR_1, 1000, 1000, "C", "A", variantSA.getSourceEntries(), false);
     }
 
+    @Test
+    public void singleStudySNVSitesOnly() {
+        // create variant
+        VariantSource variantSource = createTestVariantSource(STUDY_1);
+        String variantLine = String
+                .join("\t", CHR_1, "1000", "id", "C", "A", "100", "PASS", ".", "GT", "0|0", "0|0", "0|1", "1|1", "1|1",
+                      "0|1");
+        List<Variant> variants = variantFactory.create(CHR_1, STUDY_1 , variantLine);
+        assertEquals(1, variants.size());
+        VariantWithSamplesAndAnnotation variantSA = new VariantWithSamplesAndAnnotation(variants.get(0), s1s6SampleList);
+
+        // export variant
+        VariantToVariantContextConverter variantConverter =
+                new VariantToVariantContextConverter(Collections.singletonList(variantSource),
+                                                     noSampleNamesConflictSampleNameCorrections, true, true);
+        VariantContext variantContext = variantConverter.transform(variantSA);
+        assertEquals(CHR_1, variantContext.getContig());
+        assertEquals(1000, variantContext.getStart());
+        assertEquals(Allele.create("C", true), variantContext.getReference());
+        assertEquals(Collections.singletonList(Allele.create("A", false)), variantContext.getAlternateAlleles());
+        assertFalse(variantContext.hasGenotypes());
+    }
+
+    @Test
+    public void singleStudySNVSubsetOfSamples() {
+        // create variant
+        VariantSource variantSource = createTestVariantSource(STUDY_1);
+        String variantLine = String
+                .join("\t", CHR_1, "1000", "id", "C", "A", "100", "PASS", ".", "GT", "0|0", "0|0", "0|1", "1|1", "1|1",
+                      "0|1");
+        List<Variant> variants = variantFactory.create(CHR_1, STUDY_1 , variantLine);
+        assertEquals(1, variants.size());
+        VariantWithSamplesAndAnnotation variantSA = new VariantWithSamplesAndAnnotation(variants.get(0), s1s6SampleList);
+
+        // export variant
+        Set<String> samples = new HashSet<>(Arrays.asList("s1", "s3"));
+        VariantToVariantContextConverter variantConverter =
+                new VariantToVariantContextConverter(Collections.singletonList(variantSource),
+                                                     noSampleNamesConflictSampleNameCorrections, true, false, samples);
+        VariantContext variantContext = variantConverter.transform(variantSA);
+        assertEquals(samples, variantContext.getSampleNames());
+        assertTrue(variantContext.getGenotype("s1").isHomRef());
+        assertTrue(variantContext.getGenotype("s3").isHet());
+    }
+
     @Test
     public void singleStudySingleNucleotideInsertion() {
         // create variant
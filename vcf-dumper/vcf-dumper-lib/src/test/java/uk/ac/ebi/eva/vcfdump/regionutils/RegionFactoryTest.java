@@ -36,7 +36,9 @@ import uk.ac.ebi.eva.vcfdump.QueryParams;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static com.lordofthejars.nosqlunit.mongodb.MongoDbRule.MongoDbRuleBuilder.newMongoDbRule;
@@ -128,6 +130,37 @@ public class RegionFactoryTest {
         assertTrue(regions.size() == 0);
     }
 
+    @Test
+    public void groupRegionsInBatches() {
+        RegionFactory regionFactory = new RegionFactory(1000, variantService);
+        List<Region> regions = Arrays.asList(new Region("1", 100L, 199L), new Region("1", 5000L, 5399L),
+                                             new Region("1", 9000L, 9499L), new Region("1", 20000L, 20999L),
+                                             new Region("1", 30000L, 30009L));
+
+        List<List<Region>> batches = regionFactory.groupRegionsInBatches(regions);
+        // the three first regions add up to one window, the full window is queried alone
+        assertEquals(3, batches.size());
+        assertEquals(Arrays.asList(new Region("1", 100L, 199L), new Region("1", 5000L, 5399L),
+                                   new Region("1", 9000L, 9499L)), batches.get(0));
+        assertEquals(Collections.singletonList(new Region("1", 20000L, 20999L)), batches.get(1));
+        assertEquals(Collections.singletonList(new Region("1", 30000L, 30009L)), batches.get(2));
+    }
+
+    @Test
+    public void groupRegionsInBatchesLimitsTheNumberOfRegionsPerBatch() {
+        RegionFactory regionFactory = new RegionFactory(BIG_WINDOW_SIZE, variantService);
+        List<Region> regions = new ArrayList<>();
+        for (long start = 1; start <= RegionFactory.MAX_REGIONS_PER_BATCH * 2 + 1; start++) {
+            regions.add(new Region("1", start * 100, start * 100 + 9));
+        }
+
+        List<List<Region>> batches = regionFactory.groupRegionsInBatches(regions);
+        assertEquals(3, batches.size());
+        assertEquals(RegionFactory.MAX_REGIONS_PER_BATCH, batches.get(0).size());
+        assertEquals(RegionFactory.MAX_REGIONS_PER_BATCH, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+    }
+
     @Test
     public void getRegionsForChromosomeWhenRegionQueryIsAFullChromosome()
             throws IOException {
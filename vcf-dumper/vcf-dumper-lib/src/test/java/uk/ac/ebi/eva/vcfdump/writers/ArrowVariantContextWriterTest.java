@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.vcfdump.writers;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArrowVariantContextWriterTest {
+
+    private static final Allele REFERENCE = Allele.create("A", true);
+
+    private static final Allele ALTERNATE = Allele.create("T");
+
+    private static final List<String> SAMPLES = Arrays.asList("SAMPLE_1", "SAMPLE_2", "SAMPLE_3");
+
+    @Test
+    public void encodeGenotypes() {
+        VariantContext variant = new VariantContextBuilder().chr("1").start(100).stop(100)
+                                                            .alleles(Arrays.asList(REFERENCE, ALTERNATE)).make();
+
+        assertEquals(0b001000, encode(variant, new GenotypeBuilder("S", Arrays.asList(REFERENCE, ALTERNATE))));
+        assertEquals(0b1001001, encode(variant, new GenotypeBuilder("S", Arrays.asList(ALTERNATE, ALTERNATE))
+                .phased(true)));
+        assertEquals(0b110001, encode(variant, new GenotypeBuilder("S", Collections.singletonList(ALTERNATE))));
+        assertEquals(0b111111, encode(variant, new GenotypeBuilder("S", Arrays.asList(Allele.NO_CALL,
+                                                                                      Allele.NO_CALL))));
+        assertEquals(0b111111, ArrowVariantContextWriter.encodeGenotype(variant, null));
+    }
+
+    private int encode(VariantContext variant, GenotypeBuilder genotypeBuilder) {
+        return ArrowVariantContextWriter.encodeGenotype(variant, genotypeBuilder.make());
+    }
+
+    @Test
+    public void writeAndReadVariants() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ArrowVariantContextWriter writer = new ArrowVariantContextWriter(outputStream);
+        writer.writeHeader(new VCFHeader(Collections.emptySet(), SAMPLES));
+        writer.add(new VariantContextBuilder(buildVariant("1", 100, "gene1|missense_variant")).id("rs100;ss100")
+                           .log10PError(-5.0).passFilters().make());
+        writer.add(new VariantContextBuilder(buildVariant("2", 200, null)).filters("q10", "s50").make());
+        writer.close();
+
+        try (RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(outputStream.toByteArray()),
+                                                              allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(String.join(",", SAMPLES), root.getSchema().getCustomMetadata().get(
+                    ArrowVariantContextWriter.SAMPLES_METADATA_KEY));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(2, root.getRowCount());
+            VarCharVector chromosomes = (VarCharVector) root.getVector(ArrowVariantContextWriter.CHROMOSOME_COLUMN);
+            IntVector positions = (IntVector) root.getVector(ArrowVariantContextWriter.POSITION_COLUMN);
+            VarCharVector ids = (VarCharVector) root.getVector(ArrowVariantContextWriter.IDS_COLUMN);
+            VarCharVector alternates = (VarCharVector) root.getVector(ArrowVariantContextWriter.ALTERNATES_COLUMN);
+            Float8Vector qualities = (Float8Vector) root.getVector(ArrowVariantContextWriter.QUALITY_COLUMN);
+            VarCharVector filters = (VarCharVector) root.getVector(ArrowVariantContextWriter.FILTERS_COLUMN);
+            VarCharVector annotations = (VarCharVector) root.getVector(ArrowVariantContextWriter.ANNOTATION_COLUMN);
+            VarBinaryVector genotypes = (VarBinaryVector) root.getVector(ArrowVariantContextWriter.GENOTYPES_COLUMN);
+
+            assertEquals("1", chromosomes.getObject(0).toString());
+            assertEquals(100, positions.get(0));
+            assertEquals("rs100;ss100", ids.getObject(0).toString());
+            assertEquals("T", alternates.getObject(0).toString());
+            assertEquals(50.0, qualities.get(0), 1e-9);
+            assertEquals("PASS", filters.getObject(0).toString());
+            assertEquals("gene1|missense_variant", annotations.getObject(0).toString());
+            assertArrayEquals(new byte[]{0b000000, 0b001000, 0b111111}, genotypes.get(0));
+
+            assertEquals("2", chromosomes.getObject(1).toString());
+            assertEquals(200, positions.get(1));
+            assertNull(ids.getObject(1));
+            assertTrue(qualities.isNull(1));
+            assertEquals("q10;s50", filters.getObject(1).toString());
+            assertNull(annotations.getObject(1));
+
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void sitesOnlyHeaderHasNoGenotypesColumn() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ArrowVariantContextWriter writer = new ArrowVariantContextWriter(outputStream);
+        writer.writeHeader(new VCFHeader(Collections.emptySet()));
+        writer.add(new VariantContextBuilder().chr("1").start(100).stop(100)
+                                              .alleles(Arrays.asList(REFERENCE, ALTERNATE)).make());
+        writer.close();
+
+        try (RootAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(outputStream.toByteArray()),
+                                                              allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertNull(root.getVector(ArrowVariantContextWriter.GENOTYPES_COLUMN));
+            assertTrue(reader.loadNextBatch());
+            assertEquals(1, root.getRowCount());
+            assertNull(((VarCharVector) root.getVector(ArrowVariantContextWriter.FILTERS_COLUMN)).getObject(0));
+        }
+    }
+
+    private VariantContext buildVariant(String chromosome, int position, String annotation) {
+        List<Genotype> genotypes = Arrays.asList(
+                new GenotypeBuilder(SAMPLES.get(0), Arrays.asList(REFERENCE, REFERENCE)).make(),
+                new GenotypeBuilder(SAMPLES.get(1), Arrays.asList(REFERENCE, ALTERNATE)).make(),
+                new GenotypeBuilder(SAMPLES.get(2), Arrays.asList(Allele.NO_CALL, Allele.NO_CALL)).make());
+        VariantContextBuilder builder = new VariantContextBuilder().chr(chromosome).start(position).stop(position)
+                                                                   .alleles(Arrays.asList(REFERENCE, ALTERNATE))
+                                                                   .genotypes(genotypes);
+        if (annotation != null) {
+            builder.attribute("CSQ", annotation);
+        }
+        return builder.make();
+    }
+}
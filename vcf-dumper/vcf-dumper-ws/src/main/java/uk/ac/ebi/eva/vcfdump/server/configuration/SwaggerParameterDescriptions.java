@@ -57,4 +57,10 @@ public class SwaggerParameterDescriptions {
     public static final String START_POSITION_DESCRIPTION = "Start position (0-based inclusive), e.g. 3000000";
 
     public static final String END_POSITION_DESCRIPTION = "End position  (0-based exclusive), e.g. 3010000";
+
+    public static final String SITES_ONLY_DESCRIPTION = "Export only the variant sites, omitting the genotypes and " +
+            "sample columns";
+
+    public static final String SAMPLES_DESCRIPTION = "Sample names (repeat parameter for multiple samples) whose " +
+            "genotypes will be exported, e.g. HG00096. All the samples of the studies are exported by default";
 }
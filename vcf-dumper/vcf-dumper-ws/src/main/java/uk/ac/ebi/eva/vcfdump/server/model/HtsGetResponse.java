@@ -16,12 +16,22 @@
 package uk.ac.ebi.eva.vcfdump.server.model;
 
 import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.vcfdump.QueryParams;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class HtsGetResponse {
 
+    /**
+     * Spring decodes the samples parameter before splitting it on commas, so a sample name with a comma can't be
+     * passed in the URLs even if it is encoded
+     */
+    private static final String SAMPLES_SEPARATOR = ",";
+
     private String format;
 
     private List<UrlResponse> urls;
@@ -32,8 +42,17 @@ public class HtsGetResponse {
     public HtsGetResponse(String format, String host, String contextPath, String id, String chromosome,
                           String species,
                           List<Region> regions) {
+        this(format, host, contextPath, id, chromosome, species, regions, new QueryParams());
+    }
+
+    /**
+     * @param queryParams the sites-only and samples parameters will be propagated to the header and block URLs
+     * @throws IllegalArgumentException if a sample name contains a comma, which can't be passed in the URLs
+     */
+    public HtsGetResponse(String format, String host, String contextPath, String id, String chromosome,
+                          String species, List<Region> regions, QueryParams queryParams) {
         this.format = format;
-        this.urls = constructUrls(host, contextPath, id, chromosome, species, regions);
+        this.urls = constructUrls(host, contextPath, id, chromosome, species, regions, queryParams);
     }
 
     public String getFormat() {
@@ -45,21 +64,51 @@ public class HtsGetResponse {
     }
 
     private List<UrlResponse> constructUrls(String host, String contextPath, String id, String chromosome,
-                                            String species, List<Region> regions) {
+                                            String species, List<Region> regions, QueryParams queryParams) {
 
         List<UrlResponse> resUrls = new ArrayList<>();
+        String exportParameters = getExportParameters(queryParams);
 
-        String headerUrl = host + contextPath + "/v1/variants/headers?species=" + species + "&studies=" + id;
+        String headerUrl = host + contextPath + "/v1/variants/headers?species=" + species + "&studies=" + id
+                + exportParameters;
         UrlResponse headerUrlResponse = new UrlResponse(headerUrl, "header");
         resUrls.add(headerUrlResponse);
 
         String baseUrl = host + contextPath + "/v1/variants/block?studies=" + id + "&species=" + species + "&region=" + chromosome + ":";
 
         for (Region region : regions) {
-            String url = baseUrl + region.getStart() + "-" + region.getEnd();
+            String url = baseUrl + region.getStart() + "-" + region.getEnd() + exportParameters;
             UrlResponse bodyHeaderResponse = new UrlResponse(url, "body");
             resUrls.add(bodyHeaderResponse);
         }
         return resUrls;
     }
+
+    private String getExportParameters(QueryParams queryParams) {
+        StringBuilder exportParameters = new StringBuilder();
+        if (queryParams.isSitesOnly()) {
+            exportParameters.append("&sites-only=true");
+        }
+        if (queryParams.getSamples() != null && !queryParams.getSamples().isEmpty()) {
+            String samples = queryParams.getSamples().stream().map(this::encode)
+                                        .collect(Collectors.joining(SAMPLES_SEPARATOR));
+            exportParameters.append("&samples=").append(samples);
+        }
+        return exportParameters.toString();
+    }
+
+    /**
+     * Sample names may contain characters such as '&' or '+' that would change the meaning of the URL
+     */
+    private String encode(String sample) {
+        if (sample.contains(SAMPLES_SEPARATOR)) {
+            throw new IllegalArgumentException("Sample name '" + sample + "' contains a comma, which is not supported "
+                                                       + "because the samples are separated by commas in the URLs");
+        }
+        try {
+            return URLEncoder.encode(sample, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 encoding is not supported", e);
+        }
+    }
 }
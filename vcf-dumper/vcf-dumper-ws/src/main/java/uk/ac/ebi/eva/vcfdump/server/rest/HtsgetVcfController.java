@@ -51,6 +51,8 @@ import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescrip
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.FORMAT_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.REFERENCE_SEQUENCE_NAME_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.REGION_DESCRIPTION;
+import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SAMPLES_DESCRIPTION;
+import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SITES_ONLY_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SPECIES_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.START_POSITION_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.STUDY_DESCRIPTION;
@@ -91,6 +93,10 @@ public class HtsgetVcfController {
             @RequestParam(name = "start", required = false) Long start,
             @ApiParam(value = END_POSITION_DESCRIPTION)
             @RequestParam(name = "end", required = false) Long end,
+            @ApiParam(value = SITES_ONLY_DESCRIPTION)
+            @RequestParam(name = "sites-only", required = false, defaultValue = "false") boolean sitesOnly,
+            @ApiParam(value = SAMPLES_DESCRIPTION)
+            @RequestParam(name = "samples", required = false) List<String> samples,
             HttpServletRequest request) throws URISyntaxException {
 
         if (end != null) {
@@ -105,10 +111,13 @@ public class HtsgetVcfController {
         String dbName = DBAdaptorConnector.getDBName(species);
         MultiMongoDbFactory.setDatabaseNameForCurrentThread(dbName);
         int blockSize = Integer.parseInt(evaProperties.getProperty("eva.htsget.blocksize"));
+        QueryParams queryParameters = new QueryParams();
+        queryParameters.setSitesOnly(sitesOnly);
+        queryParameters.setSamples(samples);
         VariantExporterController controller = new VariantExporterController(dbName, variantSourceService,
                                                                              variantService,
                                                                              Arrays.asList(id.split(",")),
-                                                                             evaProperties, new QueryParams(),
+                                                                             evaProperties, queryParameters,
                                                                              blockSize);
 
         if (start == null) {
@@ -125,7 +134,7 @@ public class HtsgetVcfController {
         List<Region> regionList = controller.divideChromosomeInChunks(referenceName, start, end);
         HtsGetResponse htsGetResponse = new HtsGetResponse(VCF, request.getServerName() + ":" + request.getServerPort(),
                                                            request.getContextPath(), id, referenceName, species,
-                                                           regionList);
+                                                           regionList, queryParameters);
         return ResponseEntity.status(HttpStatus.OK).body(Collections.singletonMap("htsget", htsGetResponse));
     }
 
@@ -180,11 +189,18 @@ public class HtsgetVcfController {
             @RequestParam(name = "species") String species,
             @ApiParam(value = STUDY_DESCRIPTION, required = true)
             @RequestParam(name = "studies") List<String> studies,
+            @ApiParam(value = SITES_ONLY_DESCRIPTION)
+            @RequestParam(name = "sites-only", required = false, defaultValue = "false") boolean sitesOnly,
+            @ApiParam(value = SAMPLES_DESCRIPTION)
+            @RequestParam(name = "samples", required = false) List<String> samples,
             HttpServletResponse response) {
 
         String dbName = DBAdaptorConnector.getDBName(species);
+        QueryParams queryParameters = new QueryParams();
+        queryParameters.setSitesOnly(sitesOnly);
+        queryParameters.setSamples(samples);
         StreamingResponseBody responseBody = getStreamingHeaderResponse(dbName, studies, evaProperties,
-                                                                        new QueryParams(), response);
+                                                                        queryParameters, response);
         return responseBody;
     }
 
@@ -196,11 +212,17 @@ public class HtsgetVcfController {
             @RequestParam(name = "studies") List<String> studies,
             @ApiParam(value = REGION_DESCRIPTION, required = true)
             @RequestParam(name = "region") String chrRegion,
+            @ApiParam(value = SITES_ONLY_DESCRIPTION)
+            @RequestParam(name = "sites-only", required = false, defaultValue = "false") boolean sitesOnly,
+            @ApiParam(value = SAMPLES_DESCRIPTION)
+            @RequestParam(name = "samples", required = false) List<String> samples,
             HttpServletResponse response) {
 
         String dbName = DBAdaptorConnector.getDBName(species);
         QueryParams queryParameters = new QueryParams();
         queryParameters.setRegion(chrRegion);
+        queryParameters.setSitesOnly(sitesOnly);
+        queryParameters.setSamples(samples);
         StreamingResponseBody responseBody = getStreamingBlockResponse(dbName, studies, evaProperties, queryParameters,
                                                                        response);
         return responseBody;
@@ -34,6 +34,7 @@ import uk.ac.ebi.eva.vcfdump.QueryParams;
 import uk.ac.ebi.eva.vcfdump.VariantExporterController;
 import uk.ac.ebi.eva.vcfdump.configuration.DBAdaptorConnector;
 import uk.ac.ebi.eva.vcfdump.server.configuration.MultiMongoDbFactory;
+import uk.ac.ebi.eva.vcfdump.writers.OutputFormat;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -42,11 +43,14 @@ import java.util.Properties;
 
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.ALTERNATE_ALLELE_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.ANNOTATION_CONSEQUENCE_TYPE_DESCRIPTION;
+import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.FORMAT_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.MINOR_ALLELE_FREQUENCY_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.POLYPHEN_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.REFERENCE_ALLELE_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.REGION_DESCRIPTION;
+import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SAMPLES_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SIFT_DESCRIPTION;
+import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SITES_ONLY_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.SPECIES_DESCRIPTION;
 import static uk.ac.ebi.eva.vcfdump.server.configuration.SwaggerParameterDescriptions.STUDY_LIST_DESCRIPTION;
 
@@ -92,10 +96,18 @@ public class VcfDumperController {
             @RequestParam(name = "miss_alleles", required = false, defaultValue = "") String missingAlleles,
             @RequestParam(name = "miss_gts", required = false, defaultValue = "") String missingGenotypes,
             @RequestParam(name = "exclude", required = false) List<String> exclude,
+            @ApiParam(value = SITES_ONLY_DESCRIPTION)
+            @RequestParam(name = "sites-only", required = false, defaultValue = "false") boolean sitesOnly,
+            @ApiParam(value = SAMPLES_DESCRIPTION)
+            @RequestParam(name = "samples", required = false) List<String> samples,
+            @ApiParam(value = FORMAT_DESCRIPTION, allowableValues = "VCF,BCF,ARROW", defaultValue = "VCF")
+            @RequestParam(name = "format", required = false, defaultValue = "VCF") String format,
             HttpServletResponse response) {
 
         QueryParams queryParameters = parseQueryParams(region, consequenceType, maf, polyphenScore, siftScore,
-                                                       reference, alternate,missingAlleles, missingGenotypes, exclude);
+                                                       reference, alternate,missingAlleles, missingGenotypes, exclude,
+                                                       sitesOnly, samples);
+        queryParameters.setOutputFormat(OutputFormat.parse(format));
 
         String dbName = DBAdaptorConnector.getDBName(species);
         MultiMongoDbFactory.setDatabaseNameForCurrentThread(dbName);
@@ -128,7 +140,8 @@ public class VcfDumperController {
 
     private QueryParams parseQueryParams(String region, List<String> consequenceType, String maf, String polyphenScore,
                                          String siftScore, String reference, String alternate, String missingAlleles,
-                                         String missingGenotypes, List<String> exclude) {
+                                         String missingGenotypes, List<String> exclude, boolean sitesOnly,
+                                         List<String> samples) {
         QueryParams queryParameters = new QueryParams();
         queryParameters.setRegion(region);
         if (consequenceType != null && !consequenceType.isEmpty()) {
@@ -158,6 +171,10 @@ public class VcfDumperController {
         if (exclude != null && !exclude.isEmpty()) {
             queryParameters.setExclusions(exclude);
         }
+        queryParameters.setSitesOnly(sitesOnly);
+        if (samples != null && !samples.isEmpty()) {
+            queryParameters.setSamples(samples);
+        }
         return queryParameters;
     }
 }